@@ -23,8 +23,15 @@ package de.adorsys.keycloak.config;
 import de.adorsys.keycloak.config.model.KeycloakImport;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportPlanProperties.ImportPlanMode;
+import de.adorsys.keycloak.config.provider.KeycloakImportPipeline;
 import de.adorsys.keycloak.config.provider.KeycloakImportProvider;
+import de.adorsys.keycloak.config.provider.KeycloakImportWatcher;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.service.ConcurrentRealmImporter;
+import de.adorsys.keycloak.config.service.ImportPlanService;
 import de.adorsys.keycloak.config.service.RealmImportService;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,10 +40,13 @@ import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.stereotype.Component;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Component
 public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerator {
@@ -46,6 +56,9 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
     private final KeycloakImportProvider keycloakImportProvider;
     private final RealmImportService realmImportService;
     private final ImportConfigProperties importConfigProperties;
+    private final KeycloakImportWatcher keycloakImportWatcher;
+    private final ImportPlanService importPlanService;
+    private final KeycloakProvider keycloakProvider;
 
     private int exitCode = 0;
 
@@ -53,10 +66,16 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
     public KeycloakConfigRunner(
             KeycloakImportProvider keycloakImportProvider,
             RealmImportService realmImportService,
-            ImportConfigProperties importConfigProperties) {
+            ImportConfigProperties importConfigProperties,
+            KeycloakImportWatcher keycloakImportWatcher,
+            ImportPlanService importPlanService,
+            KeycloakProvider keycloakProvider) {
         this.keycloakImportProvider = keycloakImportProvider;
         this.realmImportService = realmImportService;
         this.importConfigProperties = importConfigProperties;
+        this.keycloakImportWatcher = keycloakImportWatcher;
+        this.importPlanService = importPlanService;
+        this.keycloakProvider = keycloakProvider;
     }
 
     @Override
@@ -66,19 +85,17 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
 
     @Override
     public void run(String... args) {
+        Collection<String> importLocations = importConfigProperties.getFiles().getLocations();
+        ImportPlanMode planMode = importConfigProperties.getPlan().getMode();
+        boolean watch = importConfigProperties.getWatch().isEnabled() && planMode == ImportPlanMode.DISABLED;
+
         try {
-            Collection<String> importLocations = importConfigProperties.getFiles().getLocations();
-            KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(importLocations);
-
-            Map<String, Map<String, List<RealmImport>>> realmImports = keycloakImport.getRealmImports();
-
-            for (Map<String, List<RealmImport>> realmImportLocations : realmImports.values()) {
-                for (Map.Entry<String, List<RealmImport>> realmImport : realmImportLocations.entrySet()) {
-                    logger.info("Importing file '{}'", realmImport.getKey());
-                    for (RealmImport realmImportParts : realmImport.getValue()) {
-                        realmImportService.doImport(realmImportParts);
-                    }
-                }
+            if (planMode == ImportPlanMode.PLAN) {
+                planLocations(importLocations);
+            } else if (planMode == ImportPlanMode.APPLY) {
+                importPlanService.apply(importPlanService.readPlan());
+            } else {
+                importLocations(importLocations);
             }
         } catch (NullPointerException e) {
             throw e;
@@ -87,13 +104,115 @@ public class KeycloakConfigRunner implements CommandLineRunner, ExitCodeGenerato
 
             exitCode = 1;
 
-            if (logger.isDebugEnabled()) {
+            if (logger.isDebugEnabled() && !watch) {
                 throw e;
             }
         } finally {
             long totalTime = System.currentTimeMillis() - START_TIME;
             String formattedTime = new SimpleDateFormat("mm:ss.SSS").format(new Date(totalTime));
             logger.info("keycloak-config-cli running in {}.", formattedTime);
+            // statistics of the HTTP client, to tune the keycloak.http.* properties
+            logger.debug("HTTP connection pool: {}", keycloakProvider.getConnectionPoolStats());
+            logger.debug("HTTP concurrency limit: {}", keycloakProvider.getConcurrencyLimitStats());
+            logger.debug("HTTP retries: {}", keycloakProvider.getRetryStats());
+            logger.debug("HTTP cookies: {}", keycloakProvider.getCookieStats());
+            logger.debug("HTTP compression: {}", keycloakProvider.getCompressionStats());
+            logger.debug("HTTP coalesced reads: {}", keycloakProvider.getCoalescedReadStats());
+            logger.debug("Access token: {}", keycloakProvider.getTokenRefreshStats());
+
+            String httpMetrics = logger.isDebugEnabled() ? keycloakProvider.getHttpMetricsTable() : null;
+            if (httpMetrics != null) {
+                logger.debug("HTTP requests by endpoint:{}{}", System.lineSeparator(), httpMetrics);
+            }
+            keycloakProvider.writeHttpMetrics();
+        }
+
+        if (watch) {
+            keycloakImportWatcher.watch(importLocations, () -> importChangedLocations(importLocations));
+        }
+    }
+
+    /*
+     * Watch mode keeps the application context and the keycloak session. Unchanged files are skipped by their
+     * import checksum, so only the changed files are imported again.
+     */
+    private void importChangedLocations(Collection<String> importLocations) {
+        long startTime = System.nanoTime();
+
+        try {
+            importLocations(importLocations);
+            exitCode = 0;
+
+            logger.info("Imported changes in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            logger.debug("Import of changes failed", e);
+
+            exitCode = 1;
+        }
+    }
+
+    private void planLocations(Collection<String> importLocations) {
+        KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(importLocations, false);
+
+        List<RealmImport> realmImports = new ArrayList<>();
+        for (Map<String, List<RealmImport>> realmImportLocations : keycloakImport.getRealmImports().values()) {
+            realmImportLocations.values().forEach(realmImports::addAll);
+        }
+
+        importPlanService.writePlan(importPlanService.plan(realmImports));
+    }
+
+    private void importLocations(Collection<String> importLocations) {
+        int parallelRealms = importConfigProperties.getParallelRealms();
+
+        if (parallelRealms > 1) {
+            try (ConcurrentRealmImporter realmImporter = new ConcurrentRealmImporter(realmImportService, parallelRealms)) {
+                importFiles(importLocations, realmImporter::submit);
+                realmImporter.awaitAll();
+            }
+        } else {
+            importFiles(importLocations, realmImportService::doImport);
+        }
+    }
+
+    private void importFiles(Collection<String> importLocations, Consumer<RealmImport> realmImporter) {
+        if (importConfigProperties.getFiles().isPipeline()) {
+            importPipelined(importLocations, realmImporter);
+        } else {
+            importAll(importLocations, realmImporter);
+        }
+    }
+
+    private void importAll(Collection<String> importLocations, Consumer<RealmImport> realmImporter) {
+        KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(importLocations, true);
+
+        Map<String, Map<String, List<RealmImport>>> realmImports = keycloakImport.getRealmImports();
+
+        for (Map<String, List<RealmImport>> realmImportLocations : realmImports.values()) {
+            for (Map.Entry<String, List<RealmImport>> realmImport : realmImportLocations.entrySet()) {
+                importFile(realmImport.getKey(), realmImport.getValue(), realmImporter);
+            }
+        }
+    }
+
+    /*
+     * Files are parsed on a background thread while the previous files are imported.
+     * Each file is dropped as soon as it has been imported.
+     */
+    private void importPipelined(Collection<String> importLocations, Consumer<RealmImport> realmImporter) {
+        try (KeycloakImportPipeline pipeline = keycloakImportProvider.openPipeline(importLocations, true)) {
+            Pair<String, List<RealmImport>> realmImport;
+            while ((realmImport = pipeline.nextFile()) != null) {
+                importFile(realmImport.getKey(), realmImport.getValue(), realmImporter);
+            }
+        }
+    }
+
+    private void importFile(String fileName, List<RealmImport> realmImportParts, Consumer<RealmImport> realmImporter) {
+        logger.info("Importing file '{}'", fileName);
+        for (RealmImport realmImportPart : realmImportParts) {
+            realmImporter.accept(realmImportPart);
         }
     }
 }
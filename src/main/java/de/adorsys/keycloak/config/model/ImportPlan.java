@@ -0,0 +1,197 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The changes an import would apply to keycloak, created by the plan mode and applied by the apply mode.
+ */
+public class ImportPlan {
+    private List<RealmPlan> realms = new ArrayList<>();
+
+    public List<RealmPlan> getRealms() {
+        return realms;
+    }
+
+    public void setRealms(List<RealmPlan> realms) {
+        this.realms = realms;
+    }
+
+    public enum Action {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    public enum Type {
+        REALM,
+        CLIENT,
+        REALM_ROLE,
+        CLIENT_ROLE,
+        GROUP,
+        IDENTITY_PROVIDER
+    }
+
+    public static class RealmPlan {
+        private String realm;
+        private List<Operation> operations = new ArrayList<>();
+        private Set<String> unplannedSections = new TreeSet<>();
+        private JsonNode realmImport;
+        private String checksum;
+        private String importPart;
+
+        public RealmPlan() {
+        }
+
+        public RealmPlan(String realm) {
+            this.realm = realm;
+        }
+
+        public String getRealm() {
+            return realm;
+        }
+
+        public void setRealm(String realm) {
+            this.realm = realm;
+        }
+
+        public List<Operation> getOperations() {
+            return operations;
+        }
+
+        public void setOperations(List<Operation> operations) {
+            this.operations = operations;
+        }
+
+        /**
+         * Sections of the import which are not part of the plan and are not changed by applying it.
+         */
+        public Set<String> getUnplannedSections() {
+            return unplannedSections;
+        }
+
+        public void setUnplannedSections(Set<String> unplannedSections) {
+            this.unplannedSections = unplannedSections;
+        }
+
+        /**
+         * The planned import, to store the remote state and the import checksum after applying the plan.
+         */
+        public JsonNode getRealmImport() {
+            return realmImport;
+        }
+
+        public void setRealmImport(JsonNode realmImport) {
+            this.realmImport = realmImport;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        public void setChecksum(String checksum) {
+            this.checksum = checksum;
+        }
+
+        public String getImportPart() {
+            return importPart;
+        }
+
+        public void setImportPart(String importPart) {
+            this.importPart = importPart;
+        }
+
+        public void add(Action action, Type type, String name, String parent, JsonNode representation) {
+            operations.add(new Operation(action, type, name, parent, representation));
+        }
+    }
+
+    public static class Operation {
+        private Action action;
+        private Type type;
+        private String name;
+        private String parent;
+        private JsonNode representation;
+
+        public Operation() {
+        }
+
+        public Operation(Action action, Type type, String name, String parent, JsonNode representation) {
+            this.action = action;
+            this.type = type;
+            this.name = name;
+            this.parent = parent;
+            this.representation = representation;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public void setAction(Action action) {
+            this.action = action;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public void setType(Type type) {
+            this.type = type;
+        }
+
+        /**
+         * The name of the object, for groups the name of the top-level group. A group operation includes all subgroups
+         * of the group, a change of a subgroup is planned as update of its top-level group.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * The client id of client roles, null for all other types.
+         */
+        public String getParent() {
+            return parent;
+        }
+
+        public void setParent(String parent) {
+            this.parent = parent;
+        }
+
+        public JsonNode getRepresentation() {
+            return representation;
+        }
+
+        public void setRepresentation(JsonNode representation) {
+            this.representation = representation;
+        }
+    }
+}
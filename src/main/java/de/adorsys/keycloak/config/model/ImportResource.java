@@ -23,6 +23,8 @@ package de.adorsys.keycloak.config.model;
 import org.apache.commons.lang3.tuple.MutablePair;
 
 public class ImportResource extends MutablePair<String, String> {
+    private String importPart;
+
     public ImportResource(String key, String value) {
         super(key, value);
     }
@@ -30,4 +32,15 @@ public class ImportResource extends MutablePair<String, String> {
     public String getFilename() {
         return getKey();
     }
+
+    /**
+     * The path of the file relative to the directory of its import location.
+     */
+    public String getImportPart() {
+        return importPart;
+    }
+
+    public void setImportPart(String importPart) {
+        this.importPart = importPart;
+    }
 }
@@ -29,6 +29,7 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 public class RealmImport extends RealmRepresentation {
@@ -38,6 +39,12 @@ public class RealmImport extends RealmRepresentation {
 
     private String checksum;
 
+    private String importPart;
+
+    private Map<String, String> sectionChecksums;
+
+    private Set<String> knownImportParts;
+
     @Override
     @SuppressWarnings("java:S1168")
     public List<AuthenticationFlowRepresentation> getAuthenticationFlows() {
@@ -71,4 +78,38 @@ public class RealmImport extends RealmRepresentation {
     public void setChecksum(String checksum) {
         this.checksum = checksum;
     }
+
+    @JsonIgnore
+    public String getImportPart() {
+        return importPart;
+    }
+
+    @JsonIgnore
+    public void setImportPart(String importPart) {
+        this.importPart = importPart;
+    }
+
+    @JsonIgnore
+    public Map<String, String> getSectionChecksums() {
+        return sectionChecksums;
+    }
+
+    @JsonIgnore
+    public void setSectionChecksums(Map<String, String> sectionChecksums) {
+        this.sectionChecksums = sectionChecksums;
+    }
+
+    /**
+     * The import parts of all files read in this run, whether imported or skipped as unchanged. Only known if the part
+     * was read from a pattern location, otherwise null.
+     */
+    @JsonIgnore
+    public Set<String> getKnownImportParts() {
+        return knownImportParts;
+    }
+
+    @JsonIgnore
+    public void setKnownImportParts(Set<String> knownImportParts) {
+        this.knownImportParts = knownImportParts;
+    }
 }
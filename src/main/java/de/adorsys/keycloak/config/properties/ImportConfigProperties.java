@@ -24,8 +24,10 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.Collection;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
@@ -36,6 +38,8 @@ import javax.validation.constraints.Pattern;
 public class ImportConfigProperties {
     public static final String REALM_STATE_ATTRIBUTE_COMMON_PREFIX = "de.adorsys.keycloak.config";
     public static final String REALM_CHECKSUM_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".import-checksum-{0}";
+    public static final String REALM_PART_CHECKSUM_ATTRIBUTE_PREFIX_KEY = REALM_CHECKSUM_ATTRIBUTE_PREFIX_KEY + "-part-{1}";
+    public static final String REALM_SECTION_CHECKSUM_ATTRIBUTE_SUFFIX_KEY = "-section-{0}";
     public static final String REALM_STATE_ATTRIBUTE_PREFIX_KEY = REALM_STATE_ATTRIBUTE_COMMON_PREFIX + ".state-{0}-{1}";
 
     @NotNull
@@ -44,6 +48,12 @@ public class ImportConfigProperties {
     @NotNull
     private final boolean parallel;
 
+    @Min(1)
+    private final int parallelRealms;
+
+    @Min(1)
+    private final int parallelPhases;
+
     @Valid
     private final ImportFilesProperties files;
 
@@ -62,19 +72,34 @@ public class ImportConfigProperties {
     @Valid
     private final ImportRemoteStateProperties remoteState;
 
-    public ImportConfigProperties(boolean validate, boolean parallel,
+    @Valid
+    private final ImportWatchProperties watch;
+
+    @Valid
+    private final ImportPlanProperties plan;
+
+    @Valid
+    private final ImportExecutorProperties executor;
+
+    public ImportConfigProperties(boolean validate, boolean parallel, int parallelRealms, int parallelPhases,
                                   ImportFilesProperties files, ImportVarSubstitutionProperties varSubstitution,
                                   ImportBehaviorsProperties behaviors, ImportCacheProperties cache, ImportManagedProperties managed,
-                                  ImportRemoteStateProperties remoteState
+                                  ImportRemoteStateProperties remoteState, ImportWatchProperties watch, ImportPlanProperties plan,
+                                  ImportExecutorProperties executor
     ) {
         this.validate = validate;
         this.parallel = parallel;
+        this.parallelRealms = parallelRealms;
+        this.parallelPhases = parallelPhases;
         this.files = files;
         this.varSubstitution = varSubstitution;
         this.behaviors = behaviors;
         this.cache = cache;
         this.managed = managed;
         this.remoteState = remoteState;
+        this.watch = watch;
+        this.plan = plan;
+        this.executor = executor;
     }
 
     public boolean isValidate() {
@@ -85,6 +110,14 @@ public class ImportConfigProperties {
         return parallel;
     }
 
+    public int getParallelRealms() {
+        return parallelRealms;
+    }
+
+    public int getParallelPhases() {
+        return parallelPhases;
+    }
+
     public ImportFilesProperties getFiles() {
         return files;
     }
@@ -109,6 +142,18 @@ public class ImportConfigProperties {
         return remoteState;
     }
 
+    public ImportWatchProperties getWatch() {
+        return watch;
+    }
+
+    public ImportPlanProperties getPlan() {
+        return plan;
+    }
+
+    public ImportExecutorProperties getExecutor() {
+        return executor;
+    }
+
     @SuppressWarnings("unused")
     public static class ImportManagedProperties {
         @NotNull
@@ -240,10 +285,23 @@ public class ImportConfigProperties {
         @NotNull
         private final boolean includeHiddenFiles;
 
-        public ImportFilesProperties(Collection<String> locations, Collection<String> excludes, boolean includeHiddenFiles) {
+        @Min(1)
+        private final int parseWorkers;
+
+        @NotNull
+        private final boolean pipeline;
+
+        @Min(1)
+        private final int pipelineQueueSize;
+
+        public ImportFilesProperties(Collection<String> locations, Collection<String> excludes, boolean includeHiddenFiles, int parseWorkers,
+                                     boolean pipeline, int pipelineQueueSize) {
             this.locations = locations;
             this.excludes = excludes;
             this.includeHiddenFiles = includeHiddenFiles;
+            this.parseWorkers = parseWorkers;
+            this.pipeline = pipeline;
+            this.pipelineQueueSize = pipelineQueueSize;
         }
 
         public Collection<String> getLocations() {
@@ -257,6 +315,18 @@ public class ImportConfigProperties {
         public boolean isIncludeHiddenFiles() {
             return includeHiddenFiles;
         }
+
+        public int getParseWorkers() {
+            return parseWorkers;
+        }
+
+        public boolean isPipeline() {
+            return pipeline;
+        }
+
+        public int getPipelineQueueSize() {
+            return pipelineQueueSize;
+        }
     }
 
     @SuppressWarnings("unused")
@@ -385,4 +455,117 @@ public class ImportConfigProperties {
             return encryptionSalt;
         }
     }
+
+    @SuppressWarnings("unused")
+    public static class ImportWatchProperties {
+        @NotNull
+        private final boolean enabled;
+
+        @NotNull
+        private final Duration interval;
+
+        public ImportWatchProperties(boolean enabled, Duration interval) {
+            this.enabled = enabled;
+            this.interval = interval;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class ImportPlanProperties {
+        @NotNull
+        private final ImportPlanMode mode;
+
+        private final String file;
+
+        public ImportPlanProperties(ImportPlanMode mode, String file) {
+            this.mode = mode;
+            this.file = file;
+        }
+
+        public ImportPlanMode getMode() {
+            return mode;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public enum ImportPlanMode {
+            DISABLED, PLAN, APPLY
+        }
+    }
+
+    public static class ImportExecutorProperties {
+        @Min(1)
+        private final int threads;
+
+        @Valid
+        private final ImportExecutorMaxInFlightProperties maxInFlight;
+
+        public ImportExecutorProperties(int threads, ImportExecutorMaxInFlightProperties maxInFlight) {
+            this.threads = threads;
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public ImportExecutorMaxInFlightProperties getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public static class ImportExecutorMaxInFlightProperties {
+            @Min(1)
+            private final int clientScope;
+
+            @Min(1)
+            private final int client;
+
+            @Min(1)
+            private final int role;
+
+            @Min(1)
+            private final int group;
+
+            @Min(1)
+            private final int user;
+
+            public ImportExecutorMaxInFlightProperties(int clientScope, int client, int role, int group, int user) {
+                this.clientScope = clientScope;
+                this.client = client;
+                this.role = role;
+                this.group = group;
+                this.user = user;
+            }
+
+            public int getClientScope() {
+                return clientScope;
+            }
+
+            public int getClient() {
+                return client;
+            }
+
+            public int getRole() {
+                return role;
+            }
+
+            public int getGroup() {
+                return group;
+            }
+
+            public int getUser() {
+                return user;
+            }
+        }
+    }
 }
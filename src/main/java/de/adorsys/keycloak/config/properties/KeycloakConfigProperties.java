@@ -26,7 +26,12 @@ import org.springframework.validation.annotation.Validated;
 
 import java.net.URL;
 import java.time.Duration;
+import java.util.Set;
 import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -69,6 +74,12 @@ public class KeycloakConfigProperties {
     @Valid
     private final KeycloakAvailabilityCheck availabilityCheck;
 
+    @Valid
+    private final KeycloakHttpProperties http;
+
+    @Valid
+    private final KeycloakTokenRefreshProperties tokenRefresh;
+
     public KeycloakConfigProperties(
             String loginRealm,
             String clientId,
@@ -81,7 +92,9 @@ public class KeycloakConfigProperties {
             URL httpProxy,
             KeycloakAvailabilityCheck availabilityCheck,
             Duration connectTimeout,
-            Duration readTimeout
+            Duration readTimeout,
+            KeycloakHttpProperties http,
+            KeycloakTokenRefreshProperties tokenRefresh
     ) {
         this.loginRealm = loginRealm;
         this.clientId = clientId;
@@ -96,6 +109,8 @@ public class KeycloakConfigProperties {
         this.availabilityCheck = availabilityCheck;
         this.connectTimeout = connectTimeout;
         this.readTimeout = readTimeout;
+        this.http = http;
+        this.tokenRefresh = tokenRefresh;
     }
 
     public String getLoginRealm() {
@@ -150,6 +165,14 @@ public class KeycloakConfigProperties {
         return readTimeout;
     }
 
+    public KeycloakHttpProperties getHttp() {
+        return http;
+    }
+
+    public KeycloakTokenRefreshProperties getTokenRefresh() {
+        return tokenRefresh;
+    }
+
     public static class KeycloakAvailabilityCheck {
         @NotNull
         private final boolean enabled;
@@ -179,4 +202,318 @@ public class KeycloakConfigProperties {
             return retryDelay;
         }
     }
+
+    public static class KeycloakTokenRefreshProperties {
+        @NotNull
+        private final boolean enabled;
+
+        @DecimalMin("0.1")
+        @DecimalMax("0.9")
+        private final double lifetimeRatio;
+
+        @SuppressWarnings("unused")
+        public KeycloakTokenRefreshProperties(boolean enabled, double lifetimeRatio) {
+            this.enabled = enabled;
+            this.lifetimeRatio = lifetimeRatio;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * The part of the access token lifetime after which the token is refreshed in the background.
+         */
+        public double getLifetimeRatio() {
+            return lifetimeRatio;
+        }
+    }
+
+    public static class KeycloakHttpProperties {
+        @Min(0)
+        private final int poolSize;
+
+        @Min(0)
+        private final int maxPerRoute;
+
+        @NotNull
+        private final Duration connectionTtl;
+
+        @NotNull
+        private final Duration idleTimeout;
+
+        @NotNull
+        private final Duration validateAfterInactivity;
+
+        @NotNull
+        private final boolean compression;
+
+        @NotNull
+        private final boolean coalesceReads;
+
+        @Valid
+        private final KeycloakHttpLimitProperties limit;
+
+        @Valid
+        private final KeycloakHttpRetryProperties retry;
+
+        @Valid
+        private final KeycloakHttpMetricsProperties metrics;
+
+        @SuppressWarnings({"unused", "java:S107"})
+        public KeycloakHttpProperties(int poolSize, int maxPerRoute, Duration connectionTtl, Duration idleTimeout,
+                                      Duration validateAfterInactivity, boolean compression, boolean coalesceReads,
+                                      KeycloakHttpLimitProperties limit, KeycloakHttpRetryProperties retry,
+                                      KeycloakHttpMetricsProperties metrics) {
+            this.poolSize = poolSize;
+            this.maxPerRoute = maxPerRoute;
+            this.connectionTtl = connectionTtl;
+            this.idleTimeout = idleTimeout;
+            this.validateAfterInactivity = validateAfterInactivity;
+            this.compression = compression;
+            this.coalesceReads = coalesceReads;
+            this.limit = limit;
+            this.retry = retry;
+            this.metrics = metrics;
+        }
+
+        /**
+         * The maximum number of pooled connections, 0 sizes the pool from the import parallelism.
+         */
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        /**
+         * The maximum number of pooled connections per host, 0 uses the pool size.
+         */
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public Duration getConnectionTtl() {
+            return connectionTtl;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public Duration getValidateAfterInactivity() {
+            return validateAfterInactivity;
+        }
+
+        /**
+         * Ask keycloak for gzip compressed responses.
+         */
+        public boolean isCompression() {
+            return compression;
+        }
+
+        /**
+         * Send identical GET requests which are in flight at the same time only once.
+         */
+        public boolean isCoalesceReads() {
+            return coalesceReads;
+        }
+
+        public KeycloakHttpLimitProperties getLimit() {
+            return limit;
+        }
+
+        public KeycloakHttpRetryProperties getRetry() {
+            return retry;
+        }
+
+        public KeycloakHttpMetricsProperties getMetrics() {
+            return metrics;
+        }
+
+        public static class KeycloakHttpLimitProperties {
+            @NotNull
+            private final boolean enabled;
+
+            @Min(0)
+            private final int initialLimit;
+
+            @Min(1)
+            private final int minLimit;
+
+            @Min(0)
+            private final int maxLimit;
+
+            @DecimalMin("0.1")
+            @DecimalMax("0.99")
+            private final double backoffRatio;
+
+            @DecimalMin("1.1")
+            private final double latencyTolerance;
+
+            @SuppressWarnings("unused")
+            public KeycloakHttpLimitProperties(boolean enabled, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                               double latencyTolerance) {
+                this.enabled = enabled;
+                this.initialLimit = initialLimit;
+                this.minLimit = minLimit;
+                this.maxLimit = maxLimit;
+                this.backoffRatio = backoffRatio;
+                this.latencyTolerance = latencyTolerance;
+            }
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            /**
+             * The number of concurrent requests to start with, 0 starts with the maximum.
+             */
+            public int getInitialLimit() {
+                return initialLimit;
+            }
+
+            public int getMinLimit() {
+                return minLimit;
+            }
+
+            /**
+             * The maximum number of concurrent requests, 0 uses the pool size.
+             */
+            public int getMaxLimit() {
+                return maxLimit;
+            }
+
+            public double getBackoffRatio() {
+                return backoffRatio;
+            }
+
+            /**
+             * Requests slower than this multiple of the average latency are slow.
+             */
+            public double getLatencyTolerance() {
+                return latencyTolerance;
+            }
+        }
+
+        public static class KeycloakHttpRetryProperties {
+            @NotNull
+            private final boolean enabled;
+
+            @NotNull
+            private final Set<Integer> statuses;
+
+            @Min(1)
+            private final int maxRetries;
+
+            @NotNull
+            private final Duration delay;
+
+            @NotNull
+            private final Duration maxDelay;
+
+            @DecimalMin("0.0")
+            @DecimalMax("1.0")
+            private final double jitter;
+
+            @DecimalMin("0.0")
+            private final double budgetRatio;
+
+            @Min(0)
+            private final int budgetMinRetries;
+
+            @SuppressWarnings({"unused", "java:S107"})
+            public KeycloakHttpRetryProperties(boolean enabled, Set<Integer> statuses, int maxRetries, Duration delay, Duration maxDelay,
+                                               double jitter, double budgetRatio, int budgetMinRetries) {
+                this.enabled = enabled;
+                this.statuses = statuses;
+                this.maxRetries = maxRetries;
+                this.delay = delay;
+                this.maxDelay = maxDelay;
+                this.jitter = jitter;
+                this.budgetRatio = budgetRatio;
+                this.budgetMinRetries = budgetMinRetries;
+            }
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            /**
+             * The response statuses of idempotent requests which are retried, besides connection errors.
+             */
+            public Set<Integer> getStatuses() {
+                return statuses;
+            }
+
+            public int getMaxRetries() {
+                return maxRetries;
+            }
+
+            /**
+             * The delay before the first retry, which doubles with every further retry up to the max delay.
+             */
+            public Duration getDelay() {
+                return delay;
+            }
+
+            public Duration getMaxDelay() {
+                return maxDelay;
+            }
+
+            public double getJitter() {
+                return jitter;
+            }
+
+            /**
+             * The retries allowed per request of the run, on top of the budget min retries.
+             */
+            public double getBudgetRatio() {
+                return budgetRatio;
+            }
+
+            public int getBudgetMinRetries() {
+                return budgetMinRetries;
+            }
+
+            @AssertTrue(message = "delay must be less than max-delay")
+            public boolean isDelayLessThanMaxDelay() {
+                return delay == null || maxDelay == null || delay.compareTo(maxDelay) < 0;
+            }
+        }
+
+        public static class KeycloakHttpMetricsProperties {
+            @NotNull
+            private final boolean enabled;
+
+            private final String file;
+
+            @NotNull
+            private final KeycloakHttpMetricsFormat format;
+
+            @SuppressWarnings("unused")
+            public KeycloakHttpMetricsProperties(boolean enabled, String file, KeycloakHttpMetricsFormat format) {
+                this.enabled = enabled;
+                this.file = file;
+                this.format = format;
+            }
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            /**
+             * The file the metrics are written to at the end of the run, null to only log them.
+             */
+            public String getFile() {
+                return file;
+            }
+
+            public KeycloakHttpMetricsFormat getFormat() {
+                return format;
+            }
+
+            public enum KeycloakHttpMetricsFormat {
+                PROMETHEUS, JSON
+            }
+        }
+    }
 }
@@ -0,0 +1,223 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportExecutorProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportExecutorProperties.ImportExecutorMaxInFlightProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Imports the entities of a realm concurrently on a shared pool of import.executor.threads, instead of the common
+ * ForkJoinPool which is sized to the CPU count, but the imports are blocked by keycloak requests.
+ * <p>
+ * The calling thread imports as well and every call uses at most the max-in-flight threads of its entity type. Helpers
+ * which did not start until the calling thread is done are cancelled, so nested calls can not run out of threads.
+ * <p>
+ * Independent reads run on the same threads with {@link #supplyAsync(Supplier)}. A read which did not start until it is
+ * joined runs on the joining thread, for the same reason. Without import.parallel, the reads run on the calling thread.
+ */
+@Component
+public class ImportExecutor implements AutoCloseable {
+    private final boolean parallel;
+    private final Map<Entity, Integer> maxInFlight = new EnumMap<>(Entity.class);
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ImportExecutor(ImportConfigProperties importConfigProperties) {
+        ImportExecutorProperties executorProperties = importConfigProperties.getExecutor();
+        ImportExecutorMaxInFlightProperties maxInFlightProperties = executorProperties.getMaxInFlight();
+
+        this.parallel = importConfigProperties.isParallel();
+
+        maxInFlight.put(Entity.CLIENT_SCOPE, maxInFlightProperties.getClientScope());
+        maxInFlight.put(Entity.CLIENT, maxInFlightProperties.getClient());
+        maxInFlight.put(Entity.ROLE, maxInFlightProperties.getRole());
+        maxInFlight.put(Entity.GROUP, maxInFlightProperties.getGroup());
+        maxInFlight.put(Entity.USER, maxInFlightProperties.getUser());
+
+        int threads = executorProperties.getThreads();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("kcc-import-"));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> void forEach(Entity entity, Collection<T> items, Consumer<T> action) {
+        int helpers = parallel ? Math.min(maxInFlight.get(entity), items.size()) - 1 : 0;
+        if (helpers <= 0) {
+            items.forEach(action);
+            return;
+        }
+
+        Queue<T> pendingItems = new ConcurrentLinkedQueue<>(items);
+        Runnable worker = () -> {
+            try {
+                for (T item = pendingItems.poll(); item != null; item = pendingItems.poll()) {
+                    action.accept(item);
+                }
+            } catch (RuntimeException | Error e) {
+                // stop the other workers after the first failure
+                pendingItems.clear();
+                throw e;
+            }
+        };
+
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        for (int i = 0; i < helpers; i++) {
+            futures.add(executor.submit(worker));
+        }
+
+        Throwable failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+
+        for (Future<?> future : futures) {
+            Throwable helperFailure = await(future);
+            if (failure == null) {
+                failure = helperFailure;
+            }
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Runs the read on the import threads, if import.parallel is enabled. Otherwise, it runs on the calling thread and the
+     * returned future is already completed.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        if (!parallel) {
+            try {
+                return CompletableFuture.completedFuture(supplier.get());
+            } catch (RuntimeException | Error e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        ImportTask<T> task = new ImportTask<>(supplier);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Joins the futures in their order and rethrows the first failure as is, like the reads would in a loop.
+     */
+    public static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+
+        for (CompletableFuture<T> future : futures) {
+            results.add(join(future));
+        }
+
+        return results;
+    }
+
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable await(Future<?> future) {
+        if (future.cancel(false)) {
+            return null;
+        }
+
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ImportProcessingException("Interrupted while waiting for concurrent imports", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static class ImportTask<T> extends CompletableFuture<T> implements Runnable {
+        private final Supplier<T> supplier;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        ImportTask(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                complete(supplier.get());
+            } catch (RuntimeException | Error e) {
+                completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public T join() {
+            run();
+            return super.join();
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            run();
+            return super.get();
+        }
+    }
+
+    public enum Entity {
+        CLIENT_SCOPE, CLIENT, ROLE, GROUP, USER
+    }
+}
@@ -0,0 +1,131 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.exception.InvalidImportException;
+import de.adorsys.keycloak.config.model.RealmImport;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Reads import files on a background thread and hands them over through a bounded queue.
+ * <p>
+ * The reader blocks as soon as import.files.pipeline-queue-size parsed files are waiting, so only the queued
+ * files, the files being parsed and the file being imported are held in memory at the same time.
+ */
+public class KeycloakImportPipeline implements AutoCloseable {
+    private static final Entry END = new Entry(null, null);
+
+    private final BlockingQueue<Entry> queue;
+    private final Thread producer;
+
+    private volatile boolean closed = false;
+    private boolean finished = false;
+
+    KeycloakImportPipeline(Consumer<Consumer<Pair<String, List<RealmImport>>>> reader, int queueSize) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+
+        this.producer = new CustomizableThreadFactory("kcc-pipeline-").newThread(() -> produce(reader));
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    /**
+     * Returns the next parsed file in import order, or null if all files have been read.
+     * Errors of the reader are rethrown here.
+     */
+    public Pair<String, List<RealmImport>> nextFile() {
+        if (finished) {
+            return null;
+        }
+
+        Entry entry;
+        try {
+            entry = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidImportException("Interrupted while waiting for import files", e);
+        }
+
+        if (entry == END) {
+            finished = true;
+            return null;
+        }
+
+        if (entry.error != null) {
+            finished = true;
+
+            if (entry.error instanceof Error) {
+                throw (Error) entry.error;
+            }
+            throw (RuntimeException) entry.error;
+        }
+
+        return entry.file;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        producer.interrupt();
+        queue.clear();
+    }
+
+    private void produce(Consumer<Consumer<Pair<String, List<RealmImport>>>> reader) {
+        try {
+            reader.accept(file -> put(new Entry(file, null)));
+            put(END);
+        } catch (RuntimeException | Error e) {
+            if (closed) {
+                return;
+            }
+
+            try {
+                put(new Entry(null, e));
+            } catch (InvalidImportException ignored) {
+                // closed while handing over the error, nobody is waiting for it anymore
+            }
+        }
+    }
+
+    private void put(Entry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidImportException("Import pipeline has been closed", e);
+        }
+    }
+
+    private static class Entry {
+        private final Pair<String, List<RealmImport>> file;
+        private final Throwable error;
+
+        private Entry(Pair<String, List<RealmImport>> file, Throwable error) {
+            this.file = file;
+            this.error = error;
+        }
+    }
+}
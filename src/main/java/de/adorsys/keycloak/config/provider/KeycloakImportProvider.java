@@ -27,7 +27,9 @@ import de.adorsys.keycloak.config.model.ImportResource;
 import de.adorsys.keycloak.config.model.KeycloakImport;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
-import org.apache.commons.codec.digest.DigestUtils;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.util.ImportContentUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.text.StringSubstitutor;
@@ -40,23 +42,31 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.PathMatcher;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Authenticator;
 import java.net.PasswordAuthentication;
+import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Component
 public class KeycloakImportProvider {
     private final PathMatchingResourcePatternResolver patternResolver;
     private final ImportConfigProperties importConfigProperties;
+    private final ChecksumService checksumService;
 
     private StringSubstitutor interpolator = null;
 
@@ -69,10 +79,12 @@ public class KeycloakImportProvider {
     public KeycloakImportProvider(
             Environment environment,
             PathMatchingResourcePatternResolver patternResolver,
-            ImportConfigProperties importConfigProperties
+            ImportConfigProperties importConfigProperties,
+            ChecksumService checksumService
     ) {
         this.patternResolver = patternResolver;
         this.importConfigProperties = importConfigProperties;
+        this.checksumService = checksumService;
 
         if (importConfigProperties.getVarSubstitution().isEnabled()) {
             setupVariableSubstitution(environment);
@@ -97,39 +109,232 @@ public class KeycloakImportProvider {
     }
 
     public KeycloakImport readFromLocations(Collection<String> locations) {
+        return readFromLocations(locations, false);
+    }
+
+    /**
+     * With skipUnchangedFiles and import.cache.enabled, files whose checksum is already stored on their realm are not
+     * deserialized at all and are returned without realm imports.
+     */
+    public KeycloakImport readFromLocations(Collection<String> locations, boolean skipUnchangedFiles) {
+        ReadContext context = createReadContext(locations, skipUnchangedFiles);
         Map<String, Map<String, List<RealmImport>>> realmImports = new LinkedHashMap<>();
 
         for (String location : locations) {
-            logger.debug("Loading file location '{}'", location);
-            String resourceLocation = prepareResourceLocation(location);
-
-            Resource[] resources;
-            try {
-                resources = this.patternResolver.getResources(resourceLocation);
-            } catch (IOException e) {
-                throw new InvalidImportException("Unable to proceed location '" + location + "': " + e.getMessage(), e);
+            Map<String, List<RealmImport>> realmImport = new LinkedHashMap<>();
+            readFromLocation(location, context,
+                    parsedResource -> realmImport.putIfAbsent(parsedResource.getKey(), parsedResource.getValue()));
+
+            realmImports.put(location, realmImport);
+        }
+
+        return new KeycloakImport(realmImports);
+    }
+
+    /**
+     * Reads the given locations one after another and hands every parsed file to the consumer as soon as it is
+     * available, instead of collecting all files first.
+     */
+    public void readFromLocations(Collection<String> locations, boolean skipUnchangedFiles, Consumer<Pair<String, List<RealmImport>>> consumer) {
+        ReadContext context = createReadContext(locations, skipUnchangedFiles);
+
+        for (String location : locations) {
+            Set<String> readFiles = new HashSet<>();
+            readFromLocation(location, context, parsedResource -> {
+                if (readFiles.add(parsedResource.getKey())) {
+                    consumer.accept(parsedResource);
+                }
+            });
+        }
+    }
+
+    public KeycloakImportPipeline openPipeline(Collection<String> locations, boolean skipUnchangedFiles) {
+        return new KeycloakImportPipeline(consumer -> readFromLocations(locations, skipUnchangedFiles, consumer),
+                importConfigProperties.getFiles().getPipelineQueueSize());
+    }
+
+    /*
+     * Resolves the files of all locations up front, so the import parts of this run are known before the first file
+     * is imported.
+     */
+    private ReadContext createReadContext(Collection<String> locations, boolean skipUnchangedFiles) {
+        ReadContext context = new ReadContext(skipUnchangedFiles && importConfigProperties.getCache().isEnabled());
+
+        for (String location : locations) {
+            List<Resource> sortedResources = getResources(location);
+            URI baseUri = getBaseUri(location);
+
+            context.resources.put(location, sortedResources);
+            context.baseUris.put(location, baseUri);
+            sortedResources.forEach(resource -> context.importParts.add(getImportPart(baseUri, getURI(resource))));
+        }
+
+        return context;
+    }
+
+    private void readFromLocation(String location, ReadContext context, Consumer<Pair<String, List<RealmImport>>> consumer) {
+        logger.debug("Loading file location '{}'", location);
+        List<Resource> sortedResources = context.resources.get(location);
+        URI baseUri = context.baseUris.get(location);
+        context.patternLocation = patternResolver.getPathMatcher().isPattern(prepareResourceLocation(location));
+
+        long startTime = System.nanoTime();
+        int parsedFiles = parseResources(sortedResources, baseUri, context, consumer);
+
+        logger.info("Parsed {} file(s) of location '{}' in {} ms", parsedFiles, location,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    List<Resource> getResources(String location) {
+        String resourceLocation = prepareResourceLocation(location);
+
+        Resource[] resources;
+        try {
+            resources = this.patternResolver.getResources(resourceLocation);
+        } catch (IOException e) {
+            throw new InvalidImportException("Unable to proceed location '" + location + "': " + e.getMessage(), e);
+        }
+
+        List<Resource> sortedResources = Arrays.stream(resources)
+                .filter(this::filterExcludedResources)
+                .sorted(Comparator.comparing(KeycloakImportProvider::getResourceUri))
+                .collect(Collectors.toList());
+
+        if (sortedResources.isEmpty()) {
+            throw new InvalidImportException("No files matching '" + location + "'!");
+        }
+
+        return sortedResources;
+    }
+
+    /**
+     * Import Pipe: resources are read one after another, but substitution and parsing run on up to
+     * import.files.parse-workers threads. Results are handed to the consumer in the order of the given resources.
+     */
+    private int parseResources(List<Resource> resources, URI baseUri, ReadContext context, Consumer<Pair<String, List<RealmImport>>> consumer) {
+        int parseWorkers = importConfigProperties.getFiles().getParseWorkers();
+        boolean checkUnchanged = context.skipUnchangedFiles;
+        int parsedFiles = 0;
+
+        if (parseWorkers <= 1) {
+            for (Resource resource : resources) {
+                ImportResource importResource = readResource(resource, baseUri);
+                if (!filterEmptyResources(importResource)) continue;
+
+                consumer.accept(completeParsedResource(parseImportResource(importResource, checkUnchanged), context));
+                parsedFiles++;
             }
 
-            resources = Arrays.stream(resources).filter(this::filterExcludedResources).toArray(Resource[]::new);
+            return parsedFiles;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parseWorkers, new CustomizableThreadFactory("kcc-parse-"));
+        Deque<Future<ParsedResource>> inFlight = new ArrayDeque<>();
 
-            if (resources.length == 0) {
-                throw new InvalidImportException("No files matching '" + location + "'!");
+        try {
+            for (Resource resource : resources) {
+                ImportResource importResource = readResource(resource, baseUri);
+                if (!filterEmptyResources(importResource)) continue;
+
+                inFlight.add(executor.submit(() -> parseImportResource(importResource, checkUnchanged)));
+                parsedFiles++;
+
+                // keep at most parseWorkers resources in memory which are not handed to the consumer yet
+                if (inFlight.size() >= parseWorkers) {
+                    consumer.accept(completeParsedResource(awaitParsedResource(inFlight.poll()), context));
+                }
             }
 
-            // Import Pipe
-            Map<String, List<RealmImport>> realmImport = Arrays.stream(resources)
-                    .map(this::readResource)
-                    .filter(this::filterEmptyResources)
-                    .sorted(Map.Entry.comparingByKey())
-                    .map(this::substituteImportResource)
-                    .map(this::readRealmImportFromImportResource)
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-                            (oldValue, newValue) -> oldValue, LinkedHashMap::new));
+            while (!inFlight.isEmpty()) {
+                consumer.accept(completeParsedResource(awaitParsedResource(inFlight.poll()), context));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
 
-            realmImports.put(location, realmImport);
+        return parsedFiles;
+    }
+
+    private ParsedResource parseImportResource(ImportResource importResource, boolean checkUnchanged) {
+        long startTime = System.nanoTime();
+
+        ImportResource resource = substituteImportResource(importResource);
+        ParsedResource parsedResource = new ParsedResource(resource, ImportContentUtil.sha256Hex(resource.getValue()));
+
+        if (checkUnchanged) {
+            parsedResource.unchangedRealm = findUnchangedRealm(parsedResource);
         }
 
-        return new KeycloakImport(realmImports);
+        if (parsedResource.unchangedRealm == null) {
+            parsedResource.realmImports = readRealmImportFromImportResource(resource, parsedResource.checksum);
+        }
+
+        logger.debug("Parsed file '{}' in {} ms", importResource.getFilename(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        return parsedResource;
+    }
+
+    /*
+     * Checksum short-circuit: only the realm name is read from the content, the full file is not deserialized
+     * if the stored import checksum of the realm is the same.
+     */
+    private String findUnchangedRealm(ParsedResource parsedResource) {
+        String realmName = ImportContentUtil.readTopLevelString(parsedResource.resource.getValue(), "realm");
+
+        String importPart = parsedResource.resource.getImportPart();
+
+        if (realmName != null && checksumService.isUpToDate(realmName, importPart, parsedResource.checksum)) {
+            return realmName;
+        }
+
+        return null;
+    }
+
+    private Pair<String, List<RealmImport>> completeParsedResource(ParsedResource parsedResource, ReadContext context) {
+        String filename = parsedResource.resource.getFilename();
+
+        if (parsedResource.unchangedRealm != null) {
+            logger.debug("No need to parse file '{}', import checksum of realm '{}' same: '{}'",
+                    filename, parsedResource.unchangedRealm, parsedResource.checksum);
+
+            return new ImmutablePair<>(filename, Collections.emptyList());
+        }
+
+        // only a pattern location reads all files of a directory, a single file may be imported on its own
+        if (context.patternLocation) {
+            Set<String> knownImportParts = Collections.unmodifiableSet(context.importParts);
+            parsedResource.realmImports.forEach(realmImport -> realmImport.setKnownImportParts(knownImportParts));
+        }
+
+        return new ImmutablePair<>(filename, parsedResource.realmImports);
+    }
+
+    private static ParsedResource awaitParsedResource(Future<ParsedResource> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidImportException("Interrupted while parsing import files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new InvalidImportException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static String getResourceUri(Resource resource) {
+        return getURI(resource).toString();
+    }
+
+    private static URI getURI(Resource resource) {
+        try {
+            return resource.getURI();
+        } catch (IOException e) {
+            throw new InvalidImportException("Unable to proceed resource '" + resource + "': " + e.getMessage(), e);
+        }
     }
 
     private boolean filterExcludedResources(Resource resource) {
@@ -169,16 +374,20 @@ public class KeycloakImportProvider {
                 });
     }
 
-    private ImportResource readResource(Resource resource) {
+    private ImportResource readResource(Resource resource, URI baseUri) {
         logger.debug("Loading file '{}'", resource.getFilename());
-        if (maybeMatchingExtractor.isEmpty()) {
-            throw new InvalidImportException("No resource extractor found to handle config property import.path=" + path + "! Check your settings.");
-        }
 
         try {
+            URI resourceUri = resource.getURI();
+
             resource = setupAuthentication(resource);
             try (InputStream inputStream = resource.getInputStream()) {
-                return new ImportResource(resource.getURI().toString(), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                ImportResource importResource = new ImportResource(
+                        resource.getURI().toString(), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)
+                );
+                importResource.setImportPart(getImportPart(baseUri, resourceUri));
+
+                return importResource;
             }
         } catch (IOException e) {
             throw new InvalidImportException("Unable to proceed resource '" + resource + "': " + e.getMessage(), e);
@@ -199,10 +408,9 @@ public class KeycloakImportProvider {
         return importResource;
     }
 
-    private Pair<String, List<RealmImport>> readRealmImportFromImportResource(ImportResource resource) {
+    private List<RealmImport> readRealmImportFromImportResource(ImportResource resource, String contentChecksum) {
         String location = resource.getFilename();
         String content = resource.getValue();
-        String contentChecksum = DigestUtils.sha256Hex(content);
 
         if (logger.isTraceEnabled()) {
             logger.trace(content);
@@ -214,22 +422,56 @@ public class KeycloakImportProvider {
         } catch (Exception e) {
             throw new InvalidImportException("Unable to parse file '" + location + "': " + e.getMessage(), e);
         }
-        realmImports.forEach(realmImport -> realmImport.setChecksum(contentChecksum));
+        String importPart = resource.getImportPart();
+        for (int index = 0; index < realmImports.size(); index++) {
+            RealmImport realmImport = realmImports.get(index);
+            realmImport.setChecksum(contentChecksum);
+            realmImport.setImportPart(realmImports.size() > 1 ? importPart + "-" + index : importPart);
+        }
+
+        return realmImports;
+    }
+
+    /*
+     * Identifies the checksum of a realm import by the path of its file relative to the directory of the import
+     * location, so the files of a realm which is split across multiple files do not replace each others checksum.
+     * The directory itself is left out, it may differ between runs. Files outside the directory are identified by
+     * their file name.
+     */
+    static String getImportPart(URI baseUri, URI resourceUri) {
+        if (baseUri != null) {
+            URI relativeUri = baseUri.normalize().relativize(resourceUri.normalize());
+
+            if (!relativeUri.isAbsolute() && relativeUri.getPath() != null && !relativeUri.getPath().isEmpty()) {
+                return relativeUri.getPath();
+            }
+        }
 
-        return new ImmutablePair<>(location, realmImports);
+        String path = resourceUri.getPath() != null ? resourceUri.getPath() : resourceUri.getSchemeSpecificPart();
+        return path.substring(path.lastIndexOf('/') + 1);
     }
 
-    private List<RealmImport> readContent(String content) {
-        List<RealmImport> realmImports = new ArrayList<>();
+    /*
+     * The directory of the location before the first wildcard, or the directory of the file.
+     */
+    private URI getBaseUri(String location) {
+        String resourceLocation = prepareResourceLocation(location).replaceFirst("^classpath\\*:", "classpath:");
+
+        int wildcard = StringUtils.indexOfAny(resourceLocation, '*', '?', '{', '[');
+        int baseEnd = resourceLocation.lastIndexOf('/', wildcard < 0 ? resourceLocation.length() : wildcard);
 
-        Yaml yaml = new Yaml();
-        Iterable<Object> yamlDocuments = yaml.loadAll(content);
+        if (baseEnd < 0) return null;
 
-        for (Object yamlDocument : yamlDocuments) {
-            realmImports.add(OBJECT_MAPPER.convertValue(yamlDocument, RealmImport.class));
+        try {
+            return patternResolver.getResource(resourceLocation.substring(0, baseEnd + 1)).getURI();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Unable to resolve the directory of location '{}', identify files by name: {}", location, e.getMessage());
+            return null;
         }
+    }
 
-        return realmImports;
+    private List<RealmImport> readContent(String content) throws IOException {
+        return ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class);
     }
 
     private String prepareResourceLocation(String location) {
@@ -244,7 +486,7 @@ public class KeycloakImportProvider {
         return importLocation;
     }
 
-    private Resource setupAuthentication(Resource resource) throws IOException {
+    Resource setupAuthentication(Resource resource) throws IOException {
         String userInfo;
 
         try {
@@ -270,4 +512,35 @@ public class KeycloakImportProvider {
         String location = resource.getURI().toString().replace(userInfo + "@", "***@");
         return new UrlResource(location);
     }
+
+    /*
+     * State of a single read of import locations: the files and directory of every location, and the import parts of
+     * all files of the run.
+     */
+    private static class ReadContext {
+        private final boolean skipUnchangedFiles;
+        private final Map<String, List<Resource>> resources = new HashMap<>();
+        private final Map<String, URI> baseUris = new HashMap<>();
+        private final Set<String> importParts = new HashSet<>();
+
+        // whether the location which is read right now is a pattern
+        private boolean patternLocation;
+
+        private ReadContext(boolean skipUnchangedFiles) {
+            this.skipUnchangedFiles = skipUnchangedFiles;
+        }
+    }
+
+    private static class ParsedResource {
+        private final ImportResource resource;
+        private final String checksum;
+
+        private String unchangedRealm;
+        private List<RealmImport> realmImports;
+
+        private ParsedResource(ImportResource resource, String checksum) {
+            this.resource = resource;
+            this.checksum = checksum;
+        }
+    }
 }
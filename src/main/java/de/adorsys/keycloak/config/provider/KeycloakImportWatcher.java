@@ -0,0 +1,229 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.exception.InvalidImportException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.util.ImportContentUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the import locations for changes, so the import can run again without a restart. Directories of local
+ * files are watched with a {@link WatchService}, remote files are polled with conditional requests every
+ * import.watch.interval.
+ */
+@Component
+public class KeycloakImportWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakImportWatcher.class);
+
+    // wait for this quiet period after a file event, editors and deployments often write several events per change
+    private static final long DEBOUNCE_MILLIS = 200;
+    private static final String CHECKSUM_VERSION_PREFIX = "sha256:";
+
+    private final KeycloakImportProvider keycloakImportProvider;
+    private final ImportConfigProperties importConfigProperties;
+
+    @Autowired
+    public KeycloakImportWatcher(KeycloakImportProvider keycloakImportProvider, ImportConfigProperties importConfigProperties) {
+        this.keycloakImportProvider = keycloakImportProvider;
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    /**
+     * Blocks until the current thread is interrupted and calls onChange after every change of the import locations.
+     */
+    public void watch(Collection<String> locations, Runnable onChange) {
+        long interval = importConfigProperties.getWatch().getInterval().toMillis();
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            Map<Path, WatchKey> watchedDirectories = new HashMap<>();
+            Map<String, String> remoteVersions = new HashMap<>();
+
+            register(locations, watchService, watchedDirectories, remoteVersions);
+            logger.info("Watching {} for changes", locations);
+
+            long nextRemotePoll = System.currentTimeMillis() + interval;
+
+            while (!Thread.currentThread().isInterrupted()) {
+                long timeout = remoteVersions.isEmpty() ? interval : Math.max(0, nextRemotePoll - System.currentTimeMillis());
+                boolean changed = awaitFileEvents(watchService, timeout);
+
+                if (!remoteVersions.isEmpty() && System.currentTimeMillis() >= nextRemotePoll) {
+                    changed |= pollRemoteResources(remoteVersions);
+                    nextRemotePoll = System.currentTimeMillis() + interval;
+                }
+
+                if (changed) {
+                    logger.info("Detected changes of {}", locations);
+                    onChange.run();
+
+                    // pick up new files and directories
+                    register(locations, watchService, watchedDirectories, remoteVersions);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new InvalidImportException("Unable to watch import locations: " + e.getMessage(), e);
+        }
+
+        logger.info("Stopped watching {}", locations);
+    }
+
+    private boolean awaitFileEvents(WatchService watchService, long timeout) throws InterruptedException {
+        WatchKey watchKey = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+        if (watchKey == null) return false;
+
+        while (watchKey != null) {
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                logger.debug("File event {} on '{}' in '{}'", event.kind().name(), event.context(), watchKey.watchable());
+            }
+            watchKey.reset();
+
+            watchKey = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        return true;
+    }
+
+    private void register(Collection<String> locations, WatchService watchService,
+                          Map<Path, WatchKey> watchedDirectories, Map<String, String> remoteVersions) throws IOException {
+        for (String location : locations) {
+            List<Resource> resources;
+            try {
+                resources = keycloakImportProvider.getResources(location);
+            } catch (InvalidImportException e) {
+                logger.warn("Unable to watch location '{}': {}", location, e.getMessage());
+                continue;
+            }
+
+            for (Resource resource : resources) {
+                if (resource.isFile()) {
+                    Path directory = resource.getFile().toPath().toAbsolutePath().getParent();
+                    if (!watchedDirectories.containsKey(directory)) {
+                        watchedDirectories.put(directory, directory.register(watchService,
+                                StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY,
+                                StandardWatchEventKinds.ENTRY_DELETE));
+
+                        logger.debug("Watching directory '{}'", directory);
+                    }
+                } else if (isRemote(resource)) {
+                    String url = resource.getURL().toString();
+                    if (!remoteVersions.containsKey(url)) {
+                        remoteVersions.put(url, fetchRemoteVersionQuietly(url));
+                    }
+                } else {
+                    logger.debug("Unable to watch '{}', it is neither a local file nor a remote file", resource);
+                }
+            }
+        }
+    }
+
+    private boolean pollRemoteResources(Map<String, String> remoteVersions) {
+        boolean changed = false;
+
+        for (Map.Entry<String, String> remoteVersion : remoteVersions.entrySet()) {
+            String version;
+            try {
+                version = fetchRemoteVersion(remoteVersion.getKey(), remoteVersion.getValue());
+            } catch (IOException e) {
+                logger.warn("Unable to poll '{}': {}", maskUserInfo(remoteVersion.getKey()), e.getMessage());
+                continue;
+            }
+
+            if (!Objects.equals(version, remoteVersion.getValue())) {
+                logger.debug("Remote file '{}' changed", maskUserInfo(remoteVersion.getKey()));
+                remoteVersion.setValue(version);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    private String fetchRemoteVersionQuietly(String location) {
+        try {
+            return fetchRemoteVersion(location, null);
+        } catch (IOException e) {
+            logger.warn("Unable to poll '{}': {}", maskUserInfo(location), e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * The version is the entity tag of the response. Servers without entity tags are polled with a full request
+     * and the version is the checksum of the content.
+     */
+    private String fetchRemoteVersion(String location, String previousVersion) throws IOException {
+        try {
+            Resource resource = keycloakImportProvider.setupAuthentication(new UrlResource(location));
+
+            HttpURLConnection connection = (HttpURLConnection) resource.getURL().openConnection();
+            try {
+                if (previousVersion != null && !previousVersion.startsWith(CHECKSUM_VERSION_PREFIX)) {
+                    connection.setRequestProperty("If-None-Match", previousVersion);
+                }
+
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    return previousVersion;
+                }
+
+                String entityTag = connection.getHeaderField("ETag");
+                if (entityTag != null) return entityTag;
+
+                try (InputStream inputStream = connection.getInputStream()) {
+                    return CHECKSUM_VERSION_PREFIX + ImportContentUtil.sha256Hex(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } finally {
+            Authenticator.setDefault(null);
+        }
+    }
+
+    private static boolean isRemote(Resource resource) {
+        try {
+            String protocol = resource.getURL().getProtocol();
+            return "http".equals(protocol) || "https".equals(protocol);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String maskUserInfo(String location) {
+        return location.replaceFirst("//[^/@]+@", "//***@");
+    }
+}
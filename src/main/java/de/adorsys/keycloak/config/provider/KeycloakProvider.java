@@ -21,25 +21,48 @@
 package de.adorsys.keycloak.config.provider;
 
 import de.adorsys.keycloak.config.exception.KeycloakProviderException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.KeycloakConfigProperties;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties.KeycloakHttpLimitProperties;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties.KeycloakHttpMetricsProperties;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties.KeycloakHttpMetricsProperties.KeycloakHttpMetricsFormat;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties.KeycloakHttpRetryProperties;
 import de.adorsys.keycloak.config.util.ResteasyUtil;
+import de.adorsys.keycloak.config.util.resteasy.AdaptiveConcurrencyLimit;
+import de.adorsys.keycloak.config.util.resteasy.CompressionStatsInterceptor;
+import de.adorsys.keycloak.config.util.resteasy.CookieClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.HttpMetricsFilter;
+import de.adorsys.keycloak.config.util.resteasy.HttpMetricsReport;
+import de.adorsys.keycloak.config.util.resteasy.HttpRetryPolicy;
+import de.adorsys.keycloak.config.util.resteasy.InstrumentedConnectionManager;
+import de.adorsys.keycloak.config.util.resteasy.PooledClientHttpEngineBuilder;
+import de.adorsys.keycloak.config.util.resteasy.SingleFlightHttpClient;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
 import org.jboss.resteasy.client.jaxrs.internal.BasicAuthentication;
+import org.jboss.resteasy.plugins.interceptors.AcceptEncodingGZIPFilter;
+import org.jboss.resteasy.plugins.interceptors.GZIPDecodingInterceptor;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
+import org.keycloak.admin.client.token.TokenManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.client.Entity;
@@ -53,29 +76,110 @@ import jakarta.ws.rs.core.Response;
 @Component
 public class KeycloakProvider implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(KeycloakProvider.class);
+    private static final int DEFAULT_POOL_SIZE = 10;
 
     private final KeycloakConfigProperties properties;
     private final ResteasyClient resteasyClient;
+    private final PooledClientHttpEngineBuilder engineBuilder;
+    private final CookieClientFilter cookieFilter = new CookieClientFilter();
+    private final CompressionStatsInterceptor compressionStatsInterceptor = new CompressionStatsInterceptor();
+    private final HttpMetricsFilter metricsFilter = new HttpMetricsFilter();
+    private final KeycloakTokenRefresher tokenRefresher;
 
     private Keycloak keycloak;
 
     private String version;
 
     @Autowired
-    private KeycloakProvider(KeycloakConfigProperties properties) {
+    private KeycloakProvider(KeycloakConfigProperties properties, ImportConfigProperties importConfigProperties) {
         this.properties = properties;
+
+        KeycloakHttpProperties http = this.properties.getHttp();
+        int poolSize = getPoolSize(http, importConfigProperties);
+
+        this.engineBuilder = new PooledClientHttpEngineBuilder(http.getIdleTimeout(), http.getValidateAfterInactivity())
+                .concurrencyLimit(createConcurrencyLimit(http.getLimit(), poolSize))
+                .retryPolicy(createRetryPolicy(http.getRetry()))
+                .coalesceReads(http.isCoalesceReads());
         this.resteasyClient = ResteasyUtil.getClient(
                 !this.properties.isSslVerify(),
                 this.properties.getHttpProxy(),
                 this.properties.getConnectTimeout(),
-                this.properties.getReadTimeout()
+                this.properties.getReadTimeout(),
+                poolSize,
+                http.getMaxPerRoute() > 0 ? http.getMaxPerRoute() : poolSize,
+                http.getConnectionTtl(),
+                engineBuilder,
+                getProviders(http)
         );
+
+        this.tokenRefresher = this.properties.getTokenRefresh().isEnabled()
+                ? new KeycloakTokenRefresher(this.properties.getTokenRefresh().getLifetimeRatio())
+                : null;
+    }
+
+    /*
+     * Every thread which imports at the same time needs its own connection. Parallel imports run on the shared
+     * import executor and the threads of the realms and phases.
+     */
+    private static int getPoolSize(KeycloakHttpProperties http, ImportConfigProperties importConfigProperties) {
+        if (http.getPoolSize() > 0) {
+            return http.getPoolSize();
+        }
+
+        int workers = importConfigProperties.isParallel() ? importConfigProperties.getExecutor().getThreads() : 0;
+        int threads = importConfigProperties.getParallelRealms() * importConfigProperties.getParallelPhases() + workers;
+
+        return Math.max(DEFAULT_POOL_SIZE, threads);
+    }
+
+    private Object[] getProviders(KeycloakHttpProperties http) {
+        List<Object> providers = new ArrayList<>();
+        providers.add(cookieFilter);
+
+        if (http.isCompression()) {
+            // the RESTEasy engine disables the content compression of the http client, keycloak is trusted to send any size
+            providers.add(new AcceptEncodingGZIPFilter());
+            providers.add(new GZIPDecodingInterceptor(Integer.MAX_VALUE));
+            providers.add(compressionStatsInterceptor);
+            providers.add(compressionStatsInterceptor.getDecodedBytesInterceptor());
+        }
+
+        if (http.getMetrics().isEnabled()) {
+            providers.add(metricsFilter);
+        }
+
+        return providers.toArray();
     }
 
-    public Keycloak getInstance() {
+    private static AdaptiveConcurrencyLimit createConcurrencyLimit(KeycloakHttpLimitProperties limit, int poolSize) {
+        if (!limit.isEnabled()) {
+            return null;
+        }
+
+        int maxLimit = limit.getMaxLimit() > 0 ? limit.getMaxLimit() : poolSize;
+        int initialLimit = limit.getInitialLimit() > 0 ? limit.getInitialLimit() : maxLimit;
+
+        return new AdaptiveConcurrencyLimit(initialLimit, limit.getMinLimit(), maxLimit, limit.getBackoffRatio(), limit.getLatencyTolerance());
+    }
+
+    private static HttpRetryPolicy createRetryPolicy(KeycloakHttpRetryProperties retry) {
+        if (!retry.isEnabled()) {
+            return null;
+        }
+
+        return new HttpRetryPolicy(retry.getStatuses(), retry.getMaxRetries(), retry.getDelay(), retry.getMaxDelay(),
+                retry.getJitter(), retry.getBudgetRatio(), retry.getBudgetMinRetries());
+    }
+
+    public synchronized Keycloak getInstance() {
         if (keycloak == null || keycloak.isClosed()) {
             keycloak = createKeycloak();
 
+            if (tokenRefresher != null) {
+                tokenRefresher.schedule(keycloak.tokenManager());
+            }
+
             checkServerVersion();
         }
 
@@ -90,8 +194,77 @@ public class KeycloakProvider implements AutoCloseable {
         return version;
     }
 
+    public String getConnectionPoolStats() {
+        InstrumentedConnectionManager connectionManager = engineBuilder.getConnectionManager();
+        return connectionManager != null ? connectionManager.getStats() : "not pooled";
+    }
+
+    public String getConcurrencyLimitStats() {
+        AdaptiveConcurrencyLimit concurrencyLimit = engineBuilder.getConcurrencyLimit();
+        return concurrencyLimit != null ? concurrencyLimit.getStats() : "disabled";
+    }
+
+    public String getRetryStats() {
+        HttpRetryPolicy retryPolicy = engineBuilder.getRetryPolicy();
+        return retryPolicy != null ? retryPolicy.getStats() : "disabled";
+    }
+
+    public String getCoalescedReadStats() {
+        SingleFlightHttpClient singleFlightHttpClient = engineBuilder.getSingleFlightHttpClient();
+        return singleFlightHttpClient != null ? singleFlightHttpClient.getStats() : "disabled";
+    }
+
+    public String getCompressionStats() {
+        return properties.getHttp().isCompression() ? compressionStatsInterceptor.getStats() : "disabled";
+    }
+
+    public String getCookieStats() {
+        return cookieFilter.getStats();
+    }
+
+    /**
+     * The requests per endpoint as a table, null if the metrics are disabled.
+     */
+    public String getHttpMetricsTable() {
+        if (!properties.getHttp().getMetrics().isEnabled()) {
+            return null;
+        }
+
+        return HttpMetricsReport.toTable(metricsFilter.getEndpoints());
+    }
+
+    public void writeHttpMetrics() {
+        KeycloakHttpMetricsProperties metrics = properties.getHttp().getMetrics();
+        if (!metrics.isEnabled() || metrics.getFile() == null || metrics.getFile().isEmpty()) {
+            return;
+        }
+
+        List<HttpMetricsFilter.Endpoint> endpoints = metricsFilter.getEndpoints();
+        try {
+            String content = metrics.getFormat() == KeycloakHttpMetricsFormat.JSON
+                    ? HttpMetricsReport.toJson(endpoints)
+                    : HttpMetricsReport.toPrometheus(endpoints);
+
+            Files.writeString(Path.of(metrics.getFile()), content);
+        } catch (IOException e) {
+            logger.error("Cannot write HTTP metrics to '{}': {}", metrics.getFile(), e.getMessage());
+        }
+    }
+
+    public String getTokenRefreshStats() {
+        return tokenRefresher != null ? tokenRefresher.getStats() : "disabled";
+    }
+
+    /**
+     * Refreshes the access token right away, like after a new realm which grants the user new roles.
+     */
     public void refreshToken() {
-        getInstance().tokenManager().refreshToken();
+        TokenManager tokenManager = getInstance().tokenManager();
+        tokenManager.refreshToken();
+
+        if (tokenRefresher != null) {
+            tokenRefresher.schedule(tokenManager);
+        }
     }
 
     public <T> T getCustomApiProxy(Class<T> proxyClass) {
@@ -177,6 +350,10 @@ public class KeycloakProvider implements AutoCloseable {
 
     @Override
     public void close() {
+        if (tokenRefresher != null) {
+            tokenRefresher.close();
+        }
+
         if (!isClosed()) {
             logout();
             keycloak.close();
@@ -0,0 +1,143 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.provider;
+
+import org.keycloak.admin.client.token.TokenManager;
+import org.keycloak.representations.AccessTokenResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the access token in the background after a part of its lifetime, before the import threads notice the
+ * expired token and refresh it on their own. The {@link TokenManager} refreshes within its lock, so there is only one
+ * refresh at a time and the import threads wait for it instead of sending their own.
+ * <p>
+ * Requests to keycloak are sent without holding the lock of this class. The scheduler thread is started with the first
+ * refresh and stopped by {@link #close()}.
+ */
+class KeycloakTokenRefresher {
+    private static final Logger logger = LoggerFactory.getLogger(KeycloakTokenRefresher.class);
+    private static final long MIN_DELAY_MILLIS = 1000;
+    private static final long RETRY_DELAY_MILLIS = 10_000;
+
+    private final double lifetimeRatio;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+    private TokenManager tokenManager;
+    private ScheduledFuture<?> nextRefresh;
+
+    KeycloakTokenRefresher(double lifetimeRatio) {
+        this.lifetimeRatio = lifetimeRatio;
+    }
+
+    /**
+     * Schedules the next refresh of the given token manager from the lifetime of its current token.
+     */
+    void schedule(TokenManager tokenManager) {
+        // reading the token may request a new one
+        long delay = getRefreshDelay(tokenManager);
+
+        synchronized (this) {
+            this.tokenManager = tokenManager;
+            scheduleRefresh(delay);
+        }
+    }
+
+    private long getRefreshDelay(TokenManager tokenManager) {
+        AccessTokenResponse token = tokenManager.getAccessToken();
+        return Math.max(MIN_DELAY_MILLIS, (long) (TimeUnit.SECONDS.toMillis(token.getExpiresIn()) * lifetimeRatio));
+    }
+
+    private synchronized void scheduleRefresh(long delayMillis) {
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+
+        if (scheduler == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("kcc-token-");
+            threadFactory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        }
+
+        nextRefresh = scheduler.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+        TokenManager currentTokenManager;
+        synchronized (this) {
+            currentTokenManager = tokenManager;
+        }
+
+        if (currentTokenManager == null) {
+            return;
+        }
+
+        long delay;
+        try {
+            currentTokenManager.refreshToken();
+            refreshes.incrementAndGet();
+
+            delay = getRefreshDelay(currentTokenManager);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            logger.debug("Background refresh of the access token failed: {}", e.getMessage());
+
+            delay = RETRY_DELAY_MILLIS;
+        }
+
+        synchronized (this) {
+            // a new token manager may have been scheduled or the refresher closed in the meantime
+            if (currentTokenManager == tokenManager) {
+                scheduleRefresh(delay);
+            }
+        }
+    }
+
+    String getStats() {
+        return String.format("%d background refreshes, %d failures", refreshes.get(), failures.get());
+    }
+
+    /**
+     * Stops the refreshes and the scheduler thread until the next {@link #schedule(TokenManager)}, like after a logout.
+     */
+    synchronized void close() {
+        tokenManager = null;
+
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+            nextRefresh = null;
+        }
+
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
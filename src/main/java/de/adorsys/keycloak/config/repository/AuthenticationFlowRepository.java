@@ -95,6 +95,8 @@ public class AuthenticationFlowRepository {
             );
 
             throw new ImportProcessingException(errorMessage, error);
+        } finally {
+            realmRepository.evict(realmName);
         }
     }
 
@@ -106,6 +108,8 @@ public class AuthenticationFlowRepository {
             String errorMessage = String.format("Cannot update top-level-flow '%s' in realm '%s'.", flow.getAlias(), realmName);
 
             throw new ImportProcessingException(errorMessage, error);
+        } finally {
+            realmRepository.evict(realmName);
         }
     }
 
@@ -138,6 +142,8 @@ public class AuthenticationFlowRepository {
                     ),
                     e
             );
+        } finally {
+            realmRepository.evict(realmName);
         }
     }
 
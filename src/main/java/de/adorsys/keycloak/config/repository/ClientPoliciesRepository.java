@@ -76,7 +76,11 @@ public class ClientPoliciesRepository {
             newClientPolicies = new ClientPoliciesRepresentation();
         }
 
-        policiesResource.updatePolicies(newClientPolicies);
+        try {
+            policiesResource.updatePolicies(newClientPolicies);
+        } finally {
+            realmRepository.evict(realmImport.getRealm());
+        }
     }
 
     public void updateClientPoliciesProfiles(RealmImport realmImport, ClientProfilesRepresentation newClientProfiles) {
@@ -106,7 +110,11 @@ public class ClientPoliciesRepository {
             newClientProfiles = new ClientProfilesRepresentation();
         }
 
-        profilesResource.updateProfiles(newClientProfiles);
+        try {
+            profilesResource.updateProfiles(newClientProfiles);
+        } finally {
+            realmRepository.evict(realmImport.getRealm());
+        }
     }
 
 }
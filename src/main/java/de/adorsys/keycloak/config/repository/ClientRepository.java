@@ -22,6 +22,8 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ResponseUtil;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.resource.ClientResource;
@@ -38,50 +40,54 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 
+/**
+ * Indexes the clients of every realm by client id, name and id, loaded with a single request and maintained by the
+ * writes of this repository. Clients which are not in the index, e.g. created by others, are looked up in keycloak.
+ * Names can only be looked up with all clients, so a name which is still unknown after a reload is not looked up again
+ * until the index is evicted. Readers get a copy of the indexed representation, so they can change it for an update.
+ */
 @Service
 public class ClientRepository {
+    private static final RepresentationIndex.Key<ClientRepresentation> CLIENT_ID = RepresentationIndex.Key.unique(ClientRepresentation::getClientId);
+    // names are not unique, the first client of a name is found like before
+    private static final RepresentationIndex.Key<ClientRepresentation> NAME = RepresentationIndex.Key.firstOf(ClientRepresentation::getName);
 
     private final RealmRepository realmRepository;
+    private final ImportExecutor importExecutor;
+
+    private final Map<String, RepresentationIndex<ClientRepresentation>> indexes = new ConcurrentHashMap<>();
 
     @Autowired
-    public ClientRepository(RealmRepository realmRepository) {
+    public ClientRepository(RealmRepository realmRepository, ImportExecutor importExecutor) {
         this.realmRepository = realmRepository;
+        this.importExecutor = importExecutor;
     }
 
     public Optional<ClientRepresentation> searchByClientId(String realmName, String clientId) {
-        List<ClientRepresentation> foundClients = getResource(realmName).findByClientId(Objects.requireNonNull(clientId));
-
-        Optional<ClientRepresentation> client;
-        if (foundClients.isEmpty()) {
-            client = Optional.empty();
-        } else {
-            client = Optional.of(foundClients.get(0));
-        }
-
-        return client;
+        return searchIdByClientId(realmName, clientId)
+                .flatMap(id -> getIndex(realmName).get(id))
+                .map(CloneUtil::deepClone);
     }
 
     public Optional<ClientRepresentation> searchByName(String realmName, String name) {
         Objects.requireNonNull(name);
 
-        // this is expensive, but easy to implement.
-        // if this too expensive, please provide a PR which implement a pagination for findAll()
-        Optional<ClientRepresentation> foundClients = realmRepository.getResource(realmName)
-                .partialExport(false, true)
-                .getClients()
-                .stream()
-                .filter(client -> Objects.equals(name, client.getName()))
-                .findAny();
+        RepresentationIndex<ClientRepresentation> index = getIndex(realmName);
 
-        return foundClients.map(clientRepresentation -> getByClientId(realmName, clientRepresentation.getId()));
+        return index.getIdOrReload(NAME, name)
+                .flatMap(index::get)
+                .map(CloneUtil::deepClone);
     }
 
     public ClientRepresentation getByClientId(String realmName, String clientId) {
@@ -94,6 +100,10 @@ public class ClientRepository {
         return foundClients.get();
     }
 
+    public CompletableFuture<ClientRepresentation> getByClientIdAsync(String realmName, String clientId) {
+        return importExecutor.supplyAsync(() -> getByClientId(realmName, clientId));
+    }
+
     public ClientRepresentation getByName(String realmName, String name) {
         Optional<ClientRepresentation> foundClients = searchByName(realmName, name);
 
@@ -115,7 +125,8 @@ public class ClientRepository {
 
     public void create(String realmName, ClientRepresentation client) {
         try (Response response = getResource(realmName).create(client)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            getIndex(realmName).add(id, client);
         } catch (WebApplicationException error) {
             String errorMessage = ResponseUtil.getErrorMessage(error);
 
@@ -128,12 +139,31 @@ public class ClientRepository {
 
     public void update(String realmName, ClientRepresentation client) {
         ClientResource clientResource = getResourceById(realmName, client.getId());
-        clientResource.update(client);
+
+        try {
+            clientResource.update(client);
+        } finally {
+            getIndex(realmName).remove(client.getId());
+        }
+
+        getIndex(realmName).add(client.getId(), client);
     }
 
     public void remove(String realmName, ClientRepresentation client) {
         ClientResource clientResource = getResourceById(realmName, client.getId());
-        clientResource.remove();
+
+        try {
+            clientResource.remove();
+        } finally {
+            getIndex(realmName).remove(client.getId());
+        }
+    }
+
+    /**
+     * Drops the clients indexed for the realm.
+     */
+    public void evict(String realmName) {
+        indexes.remove(realmName);
     }
 
     private ClientsResource getResource(String realmName) {
@@ -151,9 +181,41 @@ public class ClientRepository {
     }
 
     public ClientResource getResourceByClientId(String realmName, String clientId) {
-        ClientRepresentation client = getByClientId(realmName, clientId);
+        return getResourceById(realmName, getIdByClientId(realmName, clientId));
+    }
 
-        return getResourceById(realmName, client.getId());
+    public String getIdByClientId(String realmName, String clientId) {
+        return searchIdByClientId(realmName, clientId)
+                .orElseThrow(() -> new KeycloakRepositoryException("Cannot find client by clientId '%s'", clientId));
+    }
+
+    private Optional<String> searchIdByClientId(String realmName, String clientId) {
+        Objects.requireNonNull(clientId);
+
+        RepresentationIndex<ClientRepresentation> index = getIndex(realmName);
+
+        Optional<String> id = index.getId(CLIENT_ID, clientId);
+        if (id.isPresent()) {
+            return id;
+        }
+
+        long readGeneration = index.getGeneration();
+        List<ClientRepresentation> foundClients = getResource(realmName).findByClientId(clientId);
+        if (foundClients.isEmpty()) {
+            return Optional.empty();
+        }
+
+        index.put(foundClients.get(0), readGeneration);
+        return Optional.of(foundClients.get(0).getId());
+    }
+
+    private RepresentationIndex<ClientRepresentation> getIndex(String realmName) {
+        return indexes.computeIfAbsent(realmName, key -> new RepresentationIndex<>(
+                () -> getResource(key).findAll(),
+                id -> getResourceById(key, id).toRepresentation(),
+                ClientRepresentation::getId,
+                List.of(CLIENT_ID, NAME)
+        ));
     }
 
     public final Set<String> getAllIds(String realmName) {
@@ -246,37 +308,57 @@ public class ClientRepository {
 
     public void addDefaultClientScopes(String realmName, String clientId,
                                        List<ClientScopeRepresentation> defaultClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        String id = getIdByClientId(realmName, clientId);
+        ClientResource clientResource = getResourceById(realmName, id);
 
-        for (ClientScopeRepresentation defaultClientScope : defaultClientScopes) {
-            clientResource.addDefaultClientScope(defaultClientScope.getId());
+        try {
+            for (ClientScopeRepresentation defaultClientScope : defaultClientScopes) {
+                clientResource.addDefaultClientScope(defaultClientScope.getId());
+            }
+        } finally {
+            getIndex(realmName).evictRepresentation(id);
         }
     }
 
     public void removeDefaultClientScopes(String realmName, String clientId,
                                           List<ClientScopeRepresentation> defaultClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        String id = getIdByClientId(realmName, clientId);
+        ClientResource clientResource = getResourceById(realmName, id);
 
-        for (ClientScopeRepresentation defaultClientScope : defaultClientScopes) {
-            clientResource.removeDefaultClientScope(defaultClientScope.getId());
+        try {
+            for (ClientScopeRepresentation defaultClientScope : defaultClientScopes) {
+                clientResource.removeDefaultClientScope(defaultClientScope.getId());
+            }
+        } finally {
+            getIndex(realmName).evictRepresentation(id);
         }
     }
 
     public void addOptionalClientScopes(String realmName, String clientId,
                                         List<ClientScopeRepresentation> optionalClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        String id = getIdByClientId(realmName, clientId);
+        ClientResource clientResource = getResourceById(realmName, id);
 
-        for (ClientScopeRepresentation optionalClientScope : optionalClientScopes) {
-            clientResource.addOptionalClientScope(optionalClientScope.getId());
+        try {
+            for (ClientScopeRepresentation optionalClientScope : optionalClientScopes) {
+                clientResource.addOptionalClientScope(optionalClientScope.getId());
+            }
+        } finally {
+            getIndex(realmName).evictRepresentation(id);
         }
     }
 
     public void removeOptionalClientScopes(String realmName, String clientId,
                                            List<ClientScopeRepresentation> optionalClientScopes) {
-        ClientResource clientResource = getResourceByClientId(realmName, clientId);
+        String id = getIdByClientId(realmName, clientId);
+        ClientResource clientResource = getResourceById(realmName, id);
 
-        for (ClientScopeRepresentation optionalClientScope : optionalClientScopes) {
-            clientResource.removeOptionalClientScope(optionalClientScope.getId());
+        try {
+            for (ClientScopeRepresentation optionalClientScope : optionalClientScopes) {
+                clientResource.removeOptionalClientScope(optionalClientScope.getId());
+            }
+        } finally {
+            getIndex(realmName).evictRepresentation(id);
         }
     }
 
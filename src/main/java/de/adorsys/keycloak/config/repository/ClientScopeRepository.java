@@ -21,10 +21,11 @@
 package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ResponseUtil;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.resource.ClientScopeResource;
-import org.keycloak.admin.client.resource.ClientScopesResource;
 import org.keycloak.admin.client.resource.ProtocolMappersResource;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
@@ -33,75 +34,118 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 
+/**
+ * Indexes the client scopes of every realm by name and id, loaded with a single request and maintained by the writes
+ * of this repository. Names missing in the index are looked up by reading the index again, once per name, so client
+ * scopes created by others are found. Readers get a copy of the indexed representation, so they can change it for an
+ * update.
+ */
 @Service
 public class ClientScopeRepository {
+    private static final RepresentationIndex.Key<ClientScopeRepresentation> NAME = RepresentationIndex.Key.unique(ClientScopeRepresentation::getName);
 
     private final RealmRepository realmRepository;
+    private final ImportExecutor importExecutor;
+
+    private final Map<String, RepresentationIndex<ClientScopeRepresentation>> indexes = new ConcurrentHashMap<>();
 
     @Autowired
-    public ClientScopeRepository(RealmRepository realmRepository) {
+    public ClientScopeRepository(RealmRepository realmRepository, ImportExecutor importExecutor) {
         this.realmRepository = realmRepository;
+        this.importExecutor = importExecutor;
     }
 
+    /**
+     * Reads the client scopes again.
+     */
     public List<ClientScopeRepresentation> getAll(String realmName) {
-        ClientScopesResource clientScopeResource = realmRepository.getResource(realmName).clientScopes();
-        return clientScopeResource.findAll();
+        return getIndex(realmName).reload()
+                .stream()
+                .map(CloneUtil::deepClone)
+                .collect(Collectors.toList());
     }
 
     public List<ClientScopeRepresentation> getListByNames(String realmName, List<String> clientScopeNames) {
-        return clientScopeNames
+        return ImportExecutor.joinAll(clientScopeNames
                 .stream()
-                .map(scopeName -> getByName(realmName, scopeName))
-                .collect(Collectors.toList());
+                .map(scopeName -> getByNameAsync(realmName, scopeName))
+                .collect(Collectors.toList()));
     }
 
-    public ClientScopeRepresentation getByName(String realmName, String clientScopeName) {
-        ClientScopeResource clientScopeResource = getResourceByName(realmName, clientScopeName);
-        if (clientScopeResource == null) {
-            return null;
+    public CompletableFuture<ClientScopeRepresentation> getByNameAsync(String realmName, String clientScopeName) {
+        RepresentationIndex<ClientScopeRepresentation> index = getIndex(realmName);
+        Optional<String> id = index.getId(NAME, clientScopeName);
+
+        if (id.isEmpty() || index.contains(id.get())) {
+            return CompletableFuture.completedFuture(getByName(realmName, clientScopeName));
         }
-        return clientScopeResource.toRepresentation();
+
+        return importExecutor.supplyAsync(() -> getByName(realmName, clientScopeName));
+    }
+
+    public ClientScopeRepresentation getByName(String realmName, String clientScopeName) {
+        return searchByName(realmName, clientScopeName).orElse(null);
     }
 
     public ClientScopeRepresentation getById(String realmName, String clientScopeId) {
-        ClientScopeResource clientScopeResource = getResourceById(realmName, clientScopeId);
-        if (clientScopeResource == null) {
-            return null;
-        }
-        return clientScopeResource.toRepresentation();
+        return getIndex(realmName).get(clientScopeId)
+                .map(CloneUtil::deepClone)
+                .orElse(null);
     }
 
     public void create(String realmName, ClientScopeRepresentation clientScope) {
         try (Response response = realmRepository.getResource(realmName).clientScopes().create(clientScope)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            getIndex(realmName).add(id, clientScope);
         }
     }
 
     public void delete(String realmName, String id) {
         ClientScopeResource clientScopeResource = getResourceById(realmName, id);
-        clientScopeResource.remove();
+
+        try {
+            clientScopeResource.remove();
+        } finally {
+            getIndex(realmName).remove(id);
+            // the client scope is removed from the default client scopes of the realm as well
+            realmRepository.evict(realmName);
+        }
     }
 
     public void update(String realmName, ClientScopeRepresentation clientScope) {
         ClientScopeResource clientScopeResource = getResourceById(realmName, clientScope.getId());
-        clientScopeResource.update(clientScope);
+
+        try {
+            clientScopeResource.update(clientScope);
+        } finally {
+            getIndex(realmName).remove(clientScope.getId());
+        }
+
+        getIndex(realmName).add(clientScope.getId(), clientScope);
     }
 
     public void addProtocolMappers(String realmName, String clientScopeId, List<ProtocolMapperRepresentation> protocolMappers) {
         ClientScopeResource clientScopeResource = getResourceById(realmName, clientScopeId);
         ProtocolMappersResource protocolMappersResource = clientScopeResource.getProtocolMappers();
 
-        for (ProtocolMapperRepresentation protocolMapper : protocolMappers) {
-            try (Response response = protocolMappersResource.createMapper(protocolMapper)) {
-                CreatedResponseUtil.getCreatedId(response);
+        try {
+            for (ProtocolMapperRepresentation protocolMapper : protocolMappers) {
+                try (Response response = protocolMappersResource.createMapper(protocolMapper)) {
+                    CreatedResponseUtil.getCreatedId(response);
+                }
             }
+        } finally {
+            getIndex(realmName).evictRepresentation(clientScopeId);
         }
     }
 
@@ -116,8 +160,12 @@ public class ClientScopeRepository {
                 )
                 .collect(Collectors.toList());
 
-        for (ProtocolMapperRepresentation protocolMapper : protocolMapperToRemove) {
-            protocolMappersResource.delete(protocolMapper.getId());
+        try {
+            for (ProtocolMapperRepresentation protocolMapper : protocolMapperToRemove) {
+                protocolMappersResource.delete(protocolMapper.getId());
+            }
+        } finally {
+            getIndex(realmName).evictRepresentation(clientScopeId);
         }
     }
 
@@ -125,46 +173,37 @@ public class ClientScopeRepository {
         ClientScopeResource clientScopeResource = getResourceById(realmName, clientScopeId);
         ProtocolMappersResource protocolMappersResource = clientScopeResource.getProtocolMappers();
 
-        for (ProtocolMapperRepresentation protocolMapper : protocolMappers) {
-            try {
-                protocolMappersResource.update(protocolMapper.getId(), protocolMapper);
-            } catch (WebApplicationException error) {
-                String errorMessage = ResponseUtil.getErrorMessage(error);
-                throw new ImportProcessingException(
-                        String.format(
-                                "Cannot update protocolMapper '%s' for clientScope '%s' in realm '%s': %s",
-                                protocolMapper.getName(), clientScopeResource.toRepresentation().getName(),
-                                realmName, errorMessage
-                        ),
-                        error
-                );
+        try {
+            for (ProtocolMapperRepresentation protocolMapper : protocolMappers) {
+                try {
+                    protocolMappersResource.update(protocolMapper.getId(), protocolMapper);
+                } catch (WebApplicationException error) {
+                    String errorMessage = ResponseUtil.getErrorMessage(error);
+                    throw new ImportProcessingException(
+                            String.format(
+                                    "Cannot update protocolMapper '%s' for clientScope '%s' in realm '%s': %s",
+                                    protocolMapper.getName(), clientScopeResource.toRepresentation().getName(),
+                                    realmName, errorMessage
+                            ),
+                            error
+                    );
+                }
             }
+        } finally {
+            getIndex(realmName).evictRepresentation(clientScopeId);
         }
     }
 
-    private ClientScopeResource getResourceByName(String realmName, String clientScopeName) {
-        Optional<ClientScopeRepresentation> maybeClientScope = searchByName(realmName, clientScopeName);
-
-        ClientScopeRepresentation existingClientScope = maybeClientScope.orElse(null);
-
-        if (existingClientScope == null) {
-            return null;
-        }
-
-        return getResourceById(realmName, existingClientScope.getId());
-    }
-
     private ClientScopeResource getResourceById(String realmName, String clientScopeId) {
         return realmRepository.getResource(realmName).clientScopes().get(clientScopeId);
     }
 
     public Optional<ClientScopeRepresentation> searchByName(String realmName, String clientScopeName) {
-        ClientScopesResource clientScopeResource = realmRepository.getResource(realmName).clientScopes();
+        RepresentationIndex<ClientScopeRepresentation> index = getIndex(realmName);
 
-        return clientScopeResource.findAll()
-                .stream()
-                .filter(s -> Objects.equals(s.getName(), clientScopeName))
-                .findFirst();
+        return index.getIdOrReload(NAME, clientScopeName)
+                .flatMap(index::get)
+                .map(CloneUtil::deepClone);
     }
 
     public List<ClientScopeRepresentation> getDefaultClientScopes(String realmName) {
@@ -175,4 +214,20 @@ public class ClientScopeRepository {
 
         return defaultClientScopes;
     }
+
+    /**
+     * Drops the client scopes indexed for the realm.
+     */
+    public void evict(String realmName) {
+        indexes.remove(realmName);
+    }
+
+    private RepresentationIndex<ClientScopeRepresentation> getIndex(String realmName) {
+        return indexes.computeIfAbsent(realmName, key -> new RepresentationIndex<>(
+                () -> realmRepository.getResource(key).clientScopes().findAll(),
+                id -> getResourceById(key, id).toRepresentation(),
+                ClientScopeRepresentation::getId,
+                List.of(NAME)
+        ));
+    }
 }
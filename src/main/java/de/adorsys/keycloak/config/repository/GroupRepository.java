@@ -21,6 +21,8 @@
 package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import org.apache.commons.lang3.StringUtils;
 import org.keycloak.admin.client.CreatedResponseUtil;
 import org.keycloak.admin.client.resource.GroupResource;
 import org.keycloak.admin.client.resource.GroupsResource;
@@ -35,82 +37,124 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jakarta.ws.rs.core.Response;
 
+/**
+ * Keeps the group tree of a realm, read with a single paginated request on first use and maintained as groups and
+ * sub groups are created or deleted by this repository. The tree resolves names, paths and sub groups to ids only;
+ * names and paths missing in the tree are looked up in keycloak. Full representations, e.g. with attributes and roles,
+ * are always read from keycloak.
+ */
 @Service
 public class GroupRepository {
+    private static final int PAGE_SIZE = 100;
 
     private final RealmRepository realmRepository;
     private final RoleRepository roleRepository;
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
+    private final ImportExecutor importExecutor;
+
+    private final Map<String, GroupTree> trees = new ConcurrentHashMap<>();
 
     @Autowired
     public GroupRepository(
             RealmRepository realmRepository,
             RoleRepository roleRepository,
             ClientRepository clientRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            ImportExecutor importExecutor) {
         this.realmRepository = realmRepository;
         this.roleRepository = roleRepository;
         this.clientRepository = clientRepository;
         this.userRepository = userRepository;
+        this.importExecutor = importExecutor;
     }
 
+    /**
+     * Reads the top-level groups with their sub groups again.
+     */
     public List<GroupRepresentation> getAll(String realmName) {
-        GroupsResource groupsResource = realmRepository.getResource(realmName)
-                .groups();
-
-        return groupsResource.groups();
+        return getTree(realmName).reload();
     }
 
     public List<GroupRepresentation> findGroupsByGroupPath(String realmName, List<String> groupPaths) {
-        List<GroupRepresentation> groups = new ArrayList<>();
+        List<CompletableFuture<GroupRepresentation>> groups = new ArrayList<>();
+
+        for (String groupPath : groupPaths) {
+            groups.add(importExecutor.supplyAsync(() -> findGroupByPath(realmName, groupPath)));
+        }
+
+        return ImportExecutor.joinAll(groups);
+    }
+
+    /**
+     * Resolves the ids of the groups from the group tree, paths missing in the tree are looked up in keycloak.
+     */
+    public List<String> findGroupIdsByGroupPath(String realmName, List<String> groupPaths) {
+        List<CompletableFuture<String>> groupIds = new ArrayList<>();
 
         for (String groupPath : groupPaths) {
-            try {
-                GroupRepresentation group = getGroupByPath(realmName, groupPath);
-                groups.add(group);
-            } catch (Exception e) {
-                throw new ImportProcessingException(
-                        String.format("Could not find group '%s' in realm '%s'!", groupPath, realmName)
-                );
+            GroupNode group = getTree(realmName).getByPath(groupPath);
+
+            if (group != null) {
+                groupIds.add(CompletableFuture.completedFuture(group.getId()));
+                continue;
             }
+
+            groupIds.add(importExecutor.supplyAsync(() -> findGroupByPath(realmName, groupPath).getId()));
         }
 
-        return groups;
+        return ImportExecutor.joinAll(groupIds);
     }
 
-    public Optional<GroupRepresentation> searchByName(String realmName, String groupName) {
-        GroupsResource groupsResource = realmRepository.getResource(realmName)
-                .groups();
+    private GroupRepresentation findGroupByPath(String realmName, String groupPath) {
+        try {
+            return getGroupByPath(realmName, groupPath);
+        } catch (Exception e) {
+            throw new ImportProcessingException(
+                    String.format("Could not find group '%s' in realm '%s'!", groupPath, realmName)
+            );
+        }
+    }
 
-        return groupsResource.groups()
-                .stream()
-                .filter(g -> Objects.equals(g.getName(), groupName))
-                .findFirst();
+    public Optional<GroupRepresentation> searchByName(String realmName, String groupName) {
+        return Optional.ofNullable(getTree(realmName).getByName(groupName))
+                .map(GroupNode::toRepresentation);
     }
 
     public void createGroup(String realmName, GroupRepresentation group) {
         GroupsResource groupsResource = realmRepository.getResource(realmName).groups();
         try (Response response = groupsResource.add(group)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            getTree(realmName).add(null, id, group.getName());
         }
     }
 
     public void addSubGroup(String realmName, String parentGroupId, GroupRepresentation subGroup) {
         GroupResource groupResource = getResourceById(realmName, parentGroupId);
         try (Response response = groupResource.subGroup(subGroup)) {
-            CreatedResponseUtil.getCreatedId(response);
+            String id = CreatedResponseUtil.getCreatedId(response);
+            getTree(realmName).add(parentGroupId, id, subGroup.getName());
         }
     }
 
     public GroupRepresentation getSubGroupByName(String realmName, String parentGroupId, String name) {
+        GroupNode subGroup = getTree(realmName).getSubGroup(parentGroupId, name);
+
+        if (subGroup != null) {
+            return getGroupById(realmName, subGroup.getId());
+        }
+
         GroupRepresentation existingGroup = getResourceById(realmName, parentGroupId).toRepresentation();
 
         return existingGroup.getSubGroups()
@@ -125,9 +169,7 @@ public class GroupRepository {
         RoleMappingResource groupRoles = groupResource.roles();
         RoleScopeResource groupRealmRoles = groupRoles.realmLevel();
 
-        List<RoleRepresentation> existingRealmRoles = roleNames.stream()
-                .map(realmRole -> roleRepository.getRealmRole(realmName, realmRole))
-                .collect(Collectors.toList());
+        List<RoleRepresentation> existingRealmRoles = roleRepository.getRealmRolesByName(realmName, roleNames);
 
         groupRealmRoles.add(existingRealmRoles);
     }
@@ -137,29 +179,34 @@ public class GroupRepository {
         RoleMappingResource groupRoles = groupResource.roles();
         RoleScopeResource groupRealmRoles = groupRoles.realmLevel();
 
-        List<RoleRepresentation> existingRealmRoles = roleNames.stream()
-                .map(realmRole -> roleRepository.getRealmRole(realmName, realmRole))
-                .collect(Collectors.toList());
+        List<RoleRepresentation> existingRealmRoles = roleRepository.getRealmRolesByName(realmName, roleNames);
 
         groupRealmRoles.remove(existingRealmRoles);
     }
 
     public void deleteGroup(String realmName, String id) {
         GroupResource groupResource = getResourceById(realmName, id);
-        groupResource.remove();
+
+        try {
+            groupResource.remove();
+        } finally {
+            getTree(realmName).remove(id);
+            // the group is removed from the default groups of the realm as well
+            realmRepository.evict(realmName);
+        }
     }
 
-    public void addGroupsToUser(String realmName, String username, List<GroupRepresentation> groups) {
+    public void addGroupsToUser(String realmName, String username, List<String> groupIds) {
         UserResource userResource = userRepository.getResource(realmName, username);
-        for (GroupRepresentation group : groups) {
-            userResource.joinGroup(group.getId());
+        for (String groupId : groupIds) {
+            userResource.joinGroup(groupId);
         }
     }
 
-    public void removeGroupsFromUser(String realmName, String username, List<GroupRepresentation> groups) {
+    public void removeGroupsFromUser(String realmName, String username, List<String> groupIds) {
         UserResource userResource = userRepository.getResource(realmName, username);
-        for (GroupRepresentation group : groups) {
-            userResource.leaveGroup(group.getId());
+        for (String groupId : groupIds) {
+            userResource.leaveGroup(groupId);
         }
     }
 
@@ -188,17 +235,22 @@ public class GroupRepository {
 
     public void update(String realmName, GroupRepresentation group) {
         GroupResource groupResource = getResourceById(realmName, group.getId());
-        groupResource.update(group);
+
+        try {
+            groupResource.update(group);
+        } finally {
+            getTree(realmName).renamed(group.getId(), group.getName());
+        }
     }
 
     public GroupRepresentation getGroupByName(String realmName, String groupName) {
-        GroupResource groupResource = getResourceByName(realmName, groupName);
+        GroupNode group = getTree(realmName).getByName(groupName);
 
-        if (groupResource == null) {
+        if (group == null) {
             return null;
         }
 
-        return groupResource.toRepresentation();
+        return getGroupById(realmName, group.getId());
     }
 
     public GroupRepresentation getGroupById(String realmName, String groupId) {
@@ -210,6 +262,23 @@ public class GroupRepository {
         return realmRepository.getResource(realmName).getGroupByPath(groupPath);
     }
 
+    public CompletableFuture<GroupRepresentation> getGroupByPathAsync(String realmName, String groupPath) {
+        return importExecutor.supplyAsync(() -> getGroupByPath(realmName, groupPath));
+    }
+
+    /**
+     * Resolves the id of a group from the group tree, paths missing in the tree are looked up in keycloak.
+     */
+    public String getGroupIdByPath(String realmName, String groupPath) {
+        GroupNode group = getTree(realmName).getByPath(groupPath);
+
+        if (group != null) {
+            return group.getId();
+        }
+
+        return getGroupByPath(realmName, groupPath).getId();
+    }
+
     public void enablePermission(String realmName, String id) {
         GroupResource groupResource = getResourceById(realmName, id);
 
@@ -222,16 +291,15 @@ public class GroupRepository {
         return groupResource.getPermissions().isEnabled();
     }
 
-    private GroupResource getResourceByName(String realmName, String groupName) {
-        Optional<GroupRepresentation> maybeGroup = searchByName(realmName, groupName);
-
-        GroupRepresentation existingGroup = maybeGroup.orElse(null);
-
-        if (existingGroup == null) {
-            return null;
-        }
+    /**
+     * Drops the group tree of the realm.
+     */
+    public void evict(String realmName) {
+        trees.remove(realmName);
+    }
 
-        return getResourceById(realmName, existingGroup.getId());
+    private GroupTree getTree(String realmName) {
+        return trees.computeIfAbsent(realmName, GroupTree::new);
     }
 
     private GroupResource getResourceById(String realmName, String groupId) {
@@ -239,4 +307,162 @@ public class GroupRepository {
                 .groups()
                 .group(groupId);
     }
+
+    /**
+     * The groups of a realm as a trie of names, with an index by id. Reading all groups holds the lock, so changes
+     * made meanwhile are applied afterwards.
+     */
+    private class GroupTree {
+        private final String realmName;
+        private final Map<String, GroupNode> groups = new LinkedHashMap<>();
+        private final Map<String, GroupNode> groupsById = new HashMap<>();
+
+        private boolean loaded;
+
+        GroupTree(String realmName) {
+            this.realmName = realmName;
+        }
+
+        synchronized List<GroupRepresentation> reload() {
+            GroupsResource groupsResource = realmRepository.getResource(realmName).groups();
+            List<GroupRepresentation> topLevelGroups = new ArrayList<>();
+
+            List<GroupRepresentation> page;
+            do {
+                page = groupsResource.groups(topLevelGroups.size(), PAGE_SIZE);
+                topLevelGroups.addAll(page);
+            } while (page.size() == PAGE_SIZE);
+
+            groups.clear();
+            groupsById.clear();
+            topLevelGroups.forEach(group -> index(null, group));
+            loaded = true;
+
+            return topLevelGroups;
+        }
+
+        synchronized GroupNode getSubGroup(String parentId, String name) {
+            load();
+
+            GroupNode parent = groupsById.get(parentId);
+            return parent == null ? null : parent.subGroups.get(name);
+        }
+
+        synchronized GroupNode getByName(String name) {
+            load();
+            return groups.get(name);
+        }
+
+        synchronized GroupNode getByPath(String path) {
+            load();
+
+            Map<String, GroupNode> level = groups;
+            GroupNode group = null;
+
+            for (String name : StringUtils.removeStart(path, "/").split("/")) {
+                group = level.get(name);
+
+                if (group == null) {
+                    return null;
+                }
+
+                level = group.subGroups;
+            }
+
+            return group;
+        }
+
+        /**
+         * Adds a group created by this repository. Sub groups of groups unknown to the tree are looked up in keycloak.
+         */
+        synchronized void add(String parentId, String id, String name) {
+            if (!loaded) {
+                return;
+            }
+
+            GroupNode parent = parentId == null ? null : groupsById.get(parentId);
+
+            if (parentId != null && parent == null) {
+                return;
+            }
+
+            GroupNode group = new GroupNode(id, name, parent);
+            (parent == null ? groups : parent.subGroups).put(name, group);
+            groupsById.put(id, group);
+        }
+
+        synchronized void remove(String id) {
+            GroupNode group = groupsById.get(id);
+
+            if (group == null) {
+                return;
+            }
+
+            (group.parent == null ? groups : group.parent.subGroups).remove(group.name);
+            unindex(group);
+        }
+
+        /**
+         * The paths of the group and its sub groups change with its name, so the tree is read again.
+         */
+        synchronized void renamed(String id, String name) {
+            GroupNode group = groupsById.get(id);
+
+            if (group != null && name != null && !name.equals(group.name)) {
+                groups.clear();
+                groupsById.clear();
+                loaded = false;
+            }
+        }
+
+        private void load() {
+            if (!loaded) {
+                reload();
+            }
+        }
+
+        private void index(GroupNode parent, GroupRepresentation representation) {
+            GroupNode group = new GroupNode(representation.getId(), representation.getName(), parent);
+
+            (parent == null ? groups : parent.subGroups).put(group.name, group);
+            groupsById.put(group.id, group);
+
+            if (representation.getSubGroups() != null) {
+                representation.getSubGroups().forEach(subGroup -> index(group, subGroup));
+            }
+        }
+
+        private void unindex(GroupNode group) {
+            groupsById.remove(group.id);
+            group.subGroups.values().forEach(this::unindex);
+        }
+    }
+
+    private static class GroupNode {
+        private final String id;
+        private final String name;
+        private final String path;
+        private final GroupNode parent;
+        private final Map<String, GroupNode> subGroups = new LinkedHashMap<>();
+
+        GroupNode(String id, String name, GroupNode parent) {
+            this.id = id;
+            this.name = name;
+            this.path = (parent == null ? "" : parent.path) + "/" + name;
+            this.parent = parent;
+        }
+
+        String getId() {
+            return id;
+        }
+
+        GroupRepresentation toRepresentation() {
+            GroupRepresentation group = new GroupRepresentation();
+            group.setId(id);
+            group.setName(name);
+            group.setPath(path);
+
+            return group;
+        }
+    }
 }
@@ -84,6 +84,8 @@ public class IdentityProviderMapperRepository {
 
         try (Response response = resource.addMapper(identityProviderMapper)) {
             CreatedResponseUtil.getCreatedId(response);
+        } finally {
+            realmRepository.evict(realmName);
         }
     }
 
@@ -91,9 +93,13 @@ public class IdentityProviderMapperRepository {
         IdentityProvidersResource identityProvidersResource = realmRepository
                 .getResource(realmName).identityProviders();
 
-        identityProvidersResource
-                .get(identityProviderMapperToUpdate.getIdentityProviderAlias())
-                .update(identityProviderMapperToUpdate.getId(), identityProviderMapperToUpdate);
+        try {
+            identityProvidersResource
+                    .get(identityProviderMapperToUpdate.getIdentityProviderAlias())
+                    .update(identityProviderMapperToUpdate.getId(), identityProviderMapperToUpdate);
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 
     public void delete(String realmName, IdentityProviderMapperRepresentation identityProviderMapperToDelete) {
@@ -102,8 +108,12 @@ public class IdentityProviderMapperRepository {
 
         String identityProviderAlias = identityProviderMapperToDelete.getIdentityProviderAlias();
 
-        identityProvidersResource
-                .get(identityProviderAlias)
-                .delete(identityProviderMapperToDelete.getId());
+        try {
+            identityProvidersResource
+                    .get(identityProviderAlias)
+                    .delete(identityProviderMapperToDelete.getId());
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 }
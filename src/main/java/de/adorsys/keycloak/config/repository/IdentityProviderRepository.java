@@ -78,6 +78,8 @@ public class IdentityProviderRepository {
         IdentityProvidersResource identityProvidersResource = realmRepository.getResource(realmName).identityProviders();
         try (Response response = identityProvidersResource.create(identityProvider)) {
             CreatedResponseUtil.getCreatedId(response);
+        } finally {
+            realmRepository.evict(realmName);
         }
     }
 
@@ -86,7 +88,11 @@ public class IdentityProviderRepository {
                 .identityProviders()
                 .get(identityProviderToUpdate.getAlias());
 
-        identityProviderResource.update(identityProviderToUpdate);
+        try {
+            identityProviderResource.update(identityProviderToUpdate);
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 
     public void delete(String realmName, IdentityProviderRepresentation identityProviderToDelete) {
@@ -94,7 +100,11 @@ public class IdentityProviderRepository {
                 .identityProviders()
                 .get(identityProviderToDelete.getInternalId());
 
-        identityProviderResource.remove();
+        try {
+            identityProviderResource.remove();
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 
     public boolean isPermissionEnabled(String realmName, String alias) {
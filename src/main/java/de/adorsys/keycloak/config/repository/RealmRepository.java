@@ -22,21 +22,37 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.ResponseUtil;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.RealmsResource;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
 
+/**
+ * Caches the representation of every realm, because it is read for many import steps and for every user. Every write
+ * through this repository evicts it, as well as the writes of other repositories to parts of the representation, like
+ * client policies, identity providers or default groups. Readers get a copy, so they can change it for an update.
+ */
 @Service
 public class RealmRepository {
     private final KeycloakProvider keycloakProvider;
 
+    private final Map<String, RealmRepresentation> realms = new ConcurrentHashMap<>();
+    // incremented by every eviction, so a representation read before a write is not cached after the write
+    private final AtomicLong generation = new AtomicLong();
+
     @Autowired
     public RealmRepository(KeycloakProvider keycloakProvider) {
         this.keycloakProvider = keycloakProvider;
@@ -44,7 +60,7 @@ public class RealmRepository {
 
     public boolean exists(String realmName) {
         try {
-            get(realmName);
+            getCached(realmName);
         } catch (NotFoundException e) {
             return false;
         }
@@ -57,7 +73,28 @@ public class RealmRepository {
     }
 
     public RealmRepresentation get(String realmName) {
-        return getResource(realmName).toRepresentation();
+        return CloneUtil.deepClone(getCached(realmName));
+    }
+
+    /**
+     * Drops the cached representation of the realm.
+     */
+    public void evict(String realmName) {
+        generation.incrementAndGet();
+        realms.remove(realmName);
+    }
+
+    private RealmRepresentation getCached(String realmName) {
+        RealmRepresentation realm = realms.get(realmName);
+        if (realm != null) {
+            return realm;
+        }
+
+        long readGeneration = generation.get();
+        RealmRepresentation readRealm = getResource(realmName).toRepresentation();
+        realms.compute(realmName, (name, cachedRealm) -> generation.get() == readGeneration ? readRealm : cachedRealm);
+
+        return readRealm;
     }
 
     public void create(RealmRepresentation realm) {
@@ -72,6 +109,8 @@ public class RealmRepository {
                     String.format("Cannot create realm '%s': %s", realm.getRealm(), errorMessage),
                     error
             );
+        } finally {
+            evict(realm.getRealm());
         }
     }
 
@@ -84,6 +123,8 @@ public class RealmRepository {
                     String.format("Cannot update realm '%s': %s", realm.getRealm(), errorMessage),
                     error
             );
+        } finally {
+            evict(realm.getRealm());
         }
     }
 
@@ -91,19 +132,45 @@ public class RealmRepository {
         return getResource(realmName).partialExport(exportGroupsAndRoles, exportClients);
     }
 
+    public void partialImport(String realmName, PartialImportRepresentation partialImport) {
+        try (Response response = getResource(realmName).partialImport(partialImport)) {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new KeycloakRepositoryException(
+                        "Cannot import into realm '%s': %s", realmName, response.readEntity(String.class)
+                );
+            }
+        } finally {
+            evict(realmName);
+        }
+    }
+
     public void addDefaultDefaultClientScope(String realmName, String scopeId) {
         getResource(realmName).addDefaultDefaultClientScope(scopeId);
+        evict(realmName);
     }
 
     public void addDefaultOptionalClientScope(String realmName, String scopeId) {
         getResource(realmName).addDefaultOptionalClientScope(scopeId);
+        evict(realmName);
     }
 
     public void removeDefaultDefaultClientScope(String realmName, String scopeId) {
         getResource(realmName).removeDefaultDefaultClientScope(scopeId);
+        evict(realmName);
     }
 
     public void removeDefaultOptionalClientScope(String realmName, String scopeId) {
         getResource(realmName).removeDefaultOptionalClientScope(scopeId);
+        evict(realmName);
+    }
+
+    public void addDefaultGroup(String realmName, String groupId) {
+        getResource(realmName).addDefaultGroup(groupId);
+        evict(realmName);
+    }
+
+    public void removeDefaultGroup(String realmName, String groupId) {
+        getResource(realmName).removeDefaultGroup(groupId);
+        evict(realmName);
     }
 }
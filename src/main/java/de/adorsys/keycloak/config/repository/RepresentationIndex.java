@@ -0,0 +1,258 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.repository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Representations of one kind, e.g. the clients of a realm, by id and by lookup keys such as the client id. All
+ * representations are read with a single request on first use and maintained by the writes of the owning repository.
+ * <p>
+ * Reading all representations holds the lock, so writes wait for it, and swaps the new entries in at once, so readers
+ * without the lock never see a partially filled index. Representations are read on demand once they were evicted.
+ * Every write bumps a generation, so a representation read before a write is not indexed after the write.
+ */
+class RepresentationIndex<T> {
+    private final Supplier<List<T>> readAll;
+    private final Function<String, T> readById;
+    private final Function<T, String> idOf;
+    private final List<Key<T>> keys;
+
+    private volatile Entries<T> entries;
+    private long generation;
+
+    RepresentationIndex(Supplier<List<T>> readAll, Function<String, T> readById, Function<T, String> idOf, List<Key<T>> keys) {
+        this.readAll = readAll;
+        this.readById = readById;
+        this.idOf = idOf;
+        this.keys = keys;
+    }
+
+    void load() {
+        if (entries == null) {
+            synchronized (this) {
+                if (entries == null) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    synchronized List<T> reload() {
+        List<T> representations = readAll.get();
+
+        Entries<T> reloadedEntries = new Entries<>(keys);
+        representations.forEach(representation -> reloadedEntries.put(idOf.apply(representation), representation));
+
+        generation++;
+        entries = reloadedEntries;
+
+        return representations;
+    }
+
+    Optional<String> getId(Key<T> key, String value) {
+        load();
+        return Optional.ofNullable(entries.keyEntries.get(key).idsByValue.get(value));
+    }
+
+    /**
+     * Reads the index again for a value which is not indexed, once per value until the next reload. For keys which
+     * can only be looked up with all representations, e.g. the name of a client.
+     */
+    Optional<String> getIdOrReload(Key<T> key, String value) {
+        Optional<String> id = getId(key, value);
+
+        if (id.isEmpty() && reloadForMissingValue(key, value)) {
+            id = getId(key, value);
+        }
+
+        return id;
+    }
+
+    boolean contains(String id) {
+        load();
+        return entries.representations.containsKey(id);
+    }
+
+    Optional<T> get(String id) {
+        load();
+
+        T representation = entries.representations.get(id);
+        if (representation != null) {
+            return Optional.of(representation);
+        }
+
+        long readGeneration = getGeneration();
+        try {
+            representation = readById.apply(id);
+        } catch (NotFoundException e) {
+            remove(id);
+            return Optional.empty();
+        }
+
+        put(representation, readGeneration);
+        return Optional.of(representation);
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Indexes a representation read at the given generation, unless the index was written meanwhile.
+     */
+    synchronized void put(T representation, long readGeneration) {
+        if (entries != null && generation == readGeneration) {
+            entries.put(idOf.apply(representation), representation);
+        }
+    }
+
+    /**
+     * Indexes the keys of a representation written by the owning repository, the representation itself is read on
+     * demand.
+     */
+    synchronized void add(String id, T representation) {
+        if (entries != null) {
+            entries.index(id, representation);
+        }
+    }
+
+    synchronized void remove(String id) {
+        generation++;
+
+        if (entries != null) {
+            entries.remove(id);
+        }
+    }
+
+    synchronized void evictRepresentation(String id) {
+        generation++;
+
+        if (entries != null) {
+            entries.representations.remove(id);
+        }
+    }
+
+    private synchronized boolean reloadForMissingValue(Key<T> key, String value) {
+        KeyEntries keyEntries = entries.keyEntries.get(key);
+
+        if (keyEntries.idsByValue.containsKey(value)) {
+            // indexed by a concurrent reload or write
+            return true;
+        }
+        if (keyEntries.missingValues.contains(value)) {
+            return false;
+        }
+
+        reload();
+
+        keyEntries = entries.keyEntries.get(key);
+        if (!keyEntries.idsByValue.containsKey(value)) {
+            keyEntries.missingValues.add(value);
+        }
+
+        return true;
+    }
+
+    /**
+     * A lookup key of the representations. A value of a key which is not unique, like the name of a client, resolves
+     * to the first representation indexed with it.
+     */
+    static final class Key<T> {
+        private final Function<T, String> valueOf;
+        private final boolean unique;
+
+        private Key(Function<T, String> valueOf, boolean unique) {
+            this.valueOf = valueOf;
+            this.unique = unique;
+        }
+
+        static <T> Key<T> unique(Function<T, String> valueOf) {
+            return new Key<>(valueOf, true);
+        }
+
+        static <T> Key<T> firstOf(Function<T, String> valueOf) {
+            return new Key<>(valueOf, false);
+        }
+    }
+
+    /*
+     * The lookup maps are read without the lock, the reverse maps and missing values are only used under the lock.
+     */
+    private static class Entries<T> {
+        private final Map<String, T> representations = new ConcurrentHashMap<>();
+        private final Map<Key<T>, KeyEntries> keyEntries = new HashMap<>();
+
+        Entries(List<Key<T>> keys) {
+            keys.forEach(key -> keyEntries.put(key, new KeyEntries()));
+        }
+
+        void put(String id, T representation) {
+            index(id, representation);
+            representations.put(id, representation);
+        }
+
+        void index(String id, T representation) {
+            keyEntries.forEach((key, entries) -> {
+                String value = key.valueOf.apply(representation);
+                if (value == null) return;
+
+                if (key.unique) {
+                    entries.idsByValue.put(value, id);
+                } else {
+                    entries.idsByValue.putIfAbsent(value, id);
+                }
+                entries.missingValues.remove(value);
+
+                String previousValue = entries.valuesById.put(id, value);
+                if (previousValue != null && !previousValue.equals(value)) {
+                    entries.idsByValue.remove(previousValue, id);
+                }
+            });
+        }
+
+        void remove(String id) {
+            representations.remove(id);
+
+            keyEntries.values().forEach(entries -> {
+                String value = entries.valuesById.remove(id);
+                if (value != null) {
+                    entries.idsByValue.remove(value, id);
+                }
+            });
+        }
+    }
+
+    private static class KeyEntries {
+        private final Map<String, String> idsByValue = new ConcurrentHashMap<>();
+        private final Map<String, String> valuesById = new HashMap<>();
+        private final Set<String> missingValues = new HashSet<>();
+    }
+}
@@ -39,10 +39,12 @@ import jakarta.ws.rs.NotFoundException;
 public class RequiredActionRepository {
 
     private final AuthenticationFlowRepository authenticationFlowRepository;
+    private final RealmRepository realmRepository;
 
     @Autowired
-    public RequiredActionRepository(AuthenticationFlowRepository authenticationFlowRepository) {
+    public RequiredActionRepository(AuthenticationFlowRepository authenticationFlowRepository, RealmRepository realmRepository) {
         this.authenticationFlowRepository = authenticationFlowRepository;
+        this.realmRepository = realmRepository;
     }
 
     public RequiredActionProviderRepresentation getNewlyCreated(String realmName, String name, String requiredActionProviderId) {
@@ -72,16 +74,28 @@ public class RequiredActionRepository {
 
     public void create(String realmName, RequiredActionProviderSimpleRepresentation requiredAction) {
         AuthenticationManagementResource flows = authenticationFlowRepository.getFlowResources(realmName);
-        flows.registerRequiredAction(requiredAction);
+        try {
+            flows.registerRequiredAction(requiredAction);
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 
     public void update(String realmName, String requiredActionAlias, RequiredActionProviderRepresentation requiredAction) {
         AuthenticationManagementResource flows = authenticationFlowRepository.getFlowResources(realmName);
-        flows.updateRequiredAction(requiredActionAlias, requiredAction);
+        try {
+            flows.updateRequiredAction(requiredActionAlias, requiredAction);
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 
     public void delete(String realmName, RequiredActionProviderRepresentation requiredAction) {
         AuthenticationManagementResource flows = authenticationFlowRepository.getFlowResources(realmName);
-        flows.removeRequiredAction(requiredAction.getAlias());
+        try {
+            flows.removeRequiredAction(requiredAction.getAlias());
+        } finally {
+            realmRepository.evict(realmName);
+        }
     }
 }
@@ -131,7 +131,8 @@ public class RoleCompositeRepository {
         addRealmComposites(
                 realmName,
                 realmComposites,
-                () -> loadRealmRole(realmName, roleName)
+                () -> loadRealmRole(realmName, roleName),
+                () -> roleRepository.evictRealmRole(realmName, roleName)
         );
     }
 
@@ -144,7 +145,8 @@ public class RoleCompositeRepository {
         addRealmComposites(
                 realmName,
                 realmComposites,
-                () -> loadClientRole(realmName, roleClientId, roleName)
+                () -> loadClientRole(realmName, roleClientId, roleName),
+                () -> roleRepository.evictClientRole(realmName, roleClientId, roleName)
         );
     }
 
@@ -159,7 +161,8 @@ public class RoleCompositeRepository {
                     realmName,
                     compositeClientId,
                     clientRoles,
-                    () -> loadRealmRole(realmName, roleName)
+                    () -> loadRealmRole(realmName, roleName),
+                    () -> roleRepository.evictRealmRole(realmName, roleName)
             );
         } catch (KeycloakRepositoryException e) {
             throw new KeycloakRepositoryException(
@@ -180,7 +183,8 @@ public class RoleCompositeRepository {
                     realmName,
                     compositeClientId,
                     clientComposites,
-                    () -> loadClientRole(realmName, roleClientId, roleName)
+                    () -> loadClientRole(realmName, roleClientId, roleName),
+                    () -> roleRepository.evictClientRole(realmName, roleClientId, roleName)
             );
         } catch (KeycloakRepositoryException e) {
             throw new KeycloakRepositoryException(
@@ -197,7 +201,8 @@ public class RoleCompositeRepository {
         removeRealmComposites(
                 realmName,
                 realmComposites,
-                () -> loadRealmRole(realmName, roleName)
+                () -> loadRealmRole(realmName, roleName),
+                () -> roleRepository.evictRealmRole(realmName, roleName)
         );
     }
 
@@ -210,7 +215,8 @@ public class RoleCompositeRepository {
         removeRealmComposites(
                 realmName,
                 realmComposites,
-                () -> loadClientRole(realmName, roleClientId, roleName)
+                () -> loadClientRole(realmName, roleClientId, roleName),
+                () -> roleRepository.evictClientRole(realmName, roleClientId, roleName)
         );
     }
 
@@ -222,7 +228,8 @@ public class RoleCompositeRepository {
         removeClientComposites(
                 realmName,
                 clientCompositesToRemove,
-                () -> loadRealmRole(realmName, roleName)
+                () -> loadRealmRole(realmName, roleName),
+                () -> roleRepository.evictRealmRole(realmName, roleName)
         );
     }
 
@@ -236,7 +243,8 @@ public class RoleCompositeRepository {
                 realmName,
                 compositeClientId,
                 clientRoleNames,
-                () -> loadRealmRole(realmName, roleName)
+                () -> loadRealmRole(realmName, roleName),
+                () -> roleRepository.evictRealmRole(realmName, roleName)
         );
     }
 
@@ -249,7 +257,8 @@ public class RoleCompositeRepository {
         removeClientComposites(
                 realmName,
                 clientCompositesToRemove,
-                () -> loadClientRole(realmName, roleClientId, roleName)
+                () -> loadClientRole(realmName, roleClientId, roleName),
+                () -> roleRepository.evictClientRole(realmName, roleClientId, roleName)
         );
     }
 
@@ -264,14 +273,16 @@ public class RoleCompositeRepository {
                 realmName,
                 compositeClientId,
                 clientRoleNames,
-                () -> loadClientRole(realmName, roleClientId, roleName)
+                () -> loadClientRole(realmName, roleClientId, roleName),
+                () -> roleRepository.evictClientRole(realmName, roleClientId, roleName)
         );
     }
 
     private void addRealmComposites(
             String realmName,
             Set<String> realmComposites,
-            Supplier<RoleResource> roleSupplier
+            Supplier<RoleResource> roleSupplier,
+            Runnable evictRole
     ) {
         RoleResource roleResource = roleSupplier.get();
 
@@ -279,14 +290,19 @@ public class RoleCompositeRepository {
                 .map(realmRoleName -> roleRepository.getRealmRole(realmName, realmRoleName))
                 .collect(Collectors.toList());
 
-        roleResource.addComposites(realmRoles);
+        try {
+            roleResource.addComposites(realmRoles);
+        } finally {
+            evictRole.run();
+        }
     }
 
     private void addClientComposites(
             String realmName,
             String compositeClientId,
             Collection<String> clientRoles,
-            Supplier<RoleResource> roleSupplier
+            Supplier<RoleResource> roleSupplier,
+            Runnable evictRole
     ) throws KeycloakRepositoryException {
         RoleResource roleResource = roleSupplier.get();
 
@@ -302,13 +318,18 @@ public class RoleCompositeRepository {
                 })
                 .collect(Collectors.toList());
 
-        roleResource.addComposites(realmRoles);
+        try {
+            roleResource.addComposites(realmRoles);
+        } finally {
+            evictRole.run();
+        }
     }
 
     private void removeRealmComposites(
             String realmName,
             Set<String> realmComposites,
-            Supplier<RoleResource> roleSupplier
+            Supplier<RoleResource> roleSupplier,
+            Runnable evictRole
     ) {
         RoleResource roleResource = roleSupplier.get();
 
@@ -316,25 +337,35 @@ public class RoleCompositeRepository {
                 .map(realmRoleName -> roleRepository.getRealmRole(realmName, realmRoleName))
                 .collect(Collectors.toList());
 
-        roleResource.deleteComposites(realmRoles);
+        try {
+            roleResource.deleteComposites(realmRoles);
+        } finally {
+            evictRole.run();
+        }
     }
 
     private void removeClientComposites(
             String realmName,
             Map<String, List<String>> clientCompositesToRemove,
-            Supplier<RoleResource> roleSupplier
+            Supplier<RoleResource> roleSupplier,
+            Runnable evictRole
     ) {
         RoleResource roleResource = roleSupplier.get();
         List<RoleRepresentation> clientRolesToRemove = findAllClientRoles(realmName, clientCompositesToRemove);
 
-        roleResource.deleteComposites(clientRolesToRemove);
+        try {
+            roleResource.deleteComposites(clientRolesToRemove);
+        } finally {
+            evictRole.run();
+        }
     }
 
     private void removeClientComposites(
             String realmName,
             String compositeClientId,
             Collection<String> clientRoleNames,
-            Supplier<RoleResource> roleSupplier
+            Supplier<RoleResource> roleSupplier,
+            Runnable evictRole
     ) {
         RoleResource roleResource = roleSupplier.get();
 
@@ -342,7 +373,11 @@ public class RoleCompositeRepository {
                 .map(clientRoleName -> roleRepository.getClientRole(realmName, compositeClientId, clientRoleName))
                 .collect(Collectors.toList());
 
-        roleResource.deleteComposites(clientRoles);
+        try {
+            roleResource.deleteComposites(clientRoles);
+        } finally {
+            evictRole.run();
+        }
     }
 
     private MultivaluedHashMap<String, RoleRepresentation> findClientComposites(
@@ -22,8 +22,10 @@ package de.adorsys.keycloak.config.repository;
 
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
 import de.adorsys.keycloak.config.resource.ManagementPermissions;
+import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.admin.client.resource.*;
 import org.keycloak.representations.idm.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,47 +33,53 @@ import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import jakarta.ws.rs.NotFoundException;
-
+/**
+ * Catalogs the realm roles and the roles of every client by name. Listing the roles reads them again, the roles of all
+ * clients concurrently, and lookups by name are served from the catalog. Roles which are not in the catalog, e.g.
+ * created by others, are looked up in keycloak. Writes of this repository evict the role, readers get copies.
+ */
 @Service
 public class RoleRepository {
     private final RealmRepository realmRepository;
     private final ClientRepository clientRepository;
     private final UserRepository userRepository;
     private final KeycloakProvider keycloakProvider;
+    private final ImportExecutor importExecutor;
+
+    private final Map<String, RoleCatalog> catalogs = new ConcurrentHashMap<>();
 
     @Autowired
     public RoleRepository(
             RealmRepository realmRepository,
             ClientRepository clientRepository,
             UserRepository userRepository,
-            KeycloakProvider keycloakProvider) {
+            KeycloakProvider keycloakProvider,
+            ImportExecutor importExecutor) {
         this.realmRepository = realmRepository;
         this.clientRepository = clientRepository;
         this.userRepository = userRepository;
         this.keycloakProvider = keycloakProvider;
+        this.importExecutor = importExecutor;
     }
 
     public Optional<RoleRepresentation> searchRealmRole(String realmName, String name) {
-        Optional<RoleRepresentation> maybeRole;
+        return getCatalog(realmName).getRealmRoles().get(name).map(CloneUtil::deepClone);
+    }
 
+    public void createRealmRole(String realmName, RoleRepresentation role) {
         RolesResource rolesResource = realmRepository.getResource(realmName).roles();
-        RoleResource roleResource = rolesResource.get(name);
 
         try {
-            maybeRole = Optional.of(roleResource.toRepresentation());
-        } catch (NotFoundException e) {
-            maybeRole = Optional.empty();
+            rolesResource.create(role);
+        } finally {
+            getCatalog(realmName).getRealmRoles().evictRepresentation(role.getName());
         }
-
-        return maybeRole;
-    }
-
-    public void createRealmRole(String realmName, RoleRepresentation role) {
-        RolesResource rolesResource = realmRepository.getResource(realmName).roles();
-        rolesResource.create(role);
     }
 
     public void updateRealmRole(String realmName, RoleRepresentation roleToUpdate) {
@@ -79,13 +87,21 @@ public class RoleRepository {
                 .roles()
                 .get(roleToUpdate.getName());
 
-        roleResource.update(roleToUpdate);
+        try {
+            roleResource.update(roleToUpdate);
+        } finally {
+            getCatalog(realmName).getRealmRoles().evictRepresentation(roleToUpdate.getName());
+        }
     }
 
     public void deleteRealmRole(String realmName, RoleRepresentation roleToUpdate) {
-        realmRepository.getResource(realmName)
-                .roles()
-                .deleteRole(roleToUpdate.getName());
+        try {
+            realmRepository.getResource(realmName)
+                    .roles()
+                    .deleteRole(roleToUpdate.getName());
+        } finally {
+            getCatalog(realmName).getRealmRoles().evictRepresentation(roleToUpdate.getName());
+        }
     }
 
     public RoleRepresentation getRealmRole(String realmName, String roleName) {
@@ -96,99 +112,149 @@ public class RoleRepository {
     }
 
     public List<RoleRepresentation> getRealmRoles(String realmName) {
-        return realmRepository.getResource(realmName)
-                .roles().list();
+        return getCatalog(realmName).getRealmRoles().reload()
+                .stream()
+                .map(CloneUtil::deepClone)
+                .collect(Collectors.toList());
+    }
+
+    public CompletableFuture<RoleRepresentation> getRealmRoleAsync(String realmName, String roleName) {
+        if (getCatalog(realmName).getRealmRoles().contains(roleName)) {
+            return CompletableFuture.completedFuture(getRealmRole(realmName, roleName));
+        }
+
+        return importExecutor.supplyAsync(() -> getRealmRole(realmName, roleName));
     }
 
     public List<RoleRepresentation> getRealmRolesByName(String realmName, Collection<String> roles) {
-        return roles.stream()
-                .map(role -> getRealmRole(realmName, role))
-                .collect(Collectors.toList());
+        return ImportExecutor.joinAll(roles.stream()
+                .map(role -> getRealmRoleAsync(realmName, role))
+                .collect(Collectors.toList()));
     }
 
     public final RoleRepresentation getClientRole(String realmName, String clientId, String roleName) {
-        ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
-        RealmResource realmResource = realmRepository.getResource(realmName);
-
-        List<RoleRepresentation> clientRoles = realmResource.clients()
-                .get(client.getId())
-                .roles()
-                .list();
+        String id = clientRepository.getIdByClientId(realmName, clientId);
 
-        return clientRoles.stream()
-                .filter(r -> Objects.equals(r.getName(), roleName))
-                .findFirst()
+        return getCatalog(realmName).getClientRoles(id).get(roleName)
+                .map(CloneUtil::deepClone)
                 .orElse(null);
     }
 
+    /**
+     * Reads the roles of the client with the given id, not the client id, again.
+     */
+    public CompletableFuture<List<RoleRepresentation>> getClientRolesAsync(String realmName, String id) {
+        return importExecutor.supplyAsync(() -> getCatalog(realmName).getClientRoles(id).reload()
+                .stream()
+                .map(CloneUtil::deepClone)
+                .collect(Collectors.toList()));
+    }
+
     public Map<String, List<RoleRepresentation>> getClientRoles(String realmName) {
-        return realmRepository.getResource(realmName).clients().findAll().stream()
+        Map<String, CompletableFuture<List<RoleRepresentation>>> clientRoles = realmRepository.getResource(realmName).clients().findAll()
+                .stream()
                 .collect(Collectors.toMap(
                         ClientRepresentation::getClientId,
-                        client -> realmRepository.getResource(realmName).clients()
-                                .get(client.getId()).roles().list()
+                        client -> getClientRolesAsync(realmName, client.getId())
                 ));
-    }
 
-    public List<RoleRepresentation> getClientRolesByName(String realmName, String clientId, List<String> roleNames) {
-        ClientResource clientResource = clientRepository.getResourceByClientId(realmName, clientId);
+        Map<String, List<RoleRepresentation>> result = new HashMap<>();
+        clientRoles.forEach((clientId, roles) -> result.put(clientId, ImportExecutor.join(roles)));
 
-        List<RoleRepresentation> roles = new ArrayList<>();
+        return result;
+    }
 
-        for (String roleName : roleNames) {
-            try {
-                roles.add(clientResource.roles().get(roleName).toRepresentation());
-            } catch (NotFoundException e) {
-                throw new KeycloakRepositoryException(
-                        "Cannot find client role '%s' for client '%s' within realm '%s'",
-                        roleName, clientId, realmName
-                );
-            }
-        }
+    public List<RoleRepresentation> getClientRolesByName(String realmName, String clientId, List<String> roleNames) {
+        RepresentationIndex<RoleRepresentation> clientRoles = getCatalog(realmName).getClientRoles(clientRepository.getIdByClientId(realmName, clientId));
 
-        return roles;
+        return searchRoles(clientRoles, roleNames, roleName -> new KeycloakRepositoryException(
+                "Cannot find client role '%s' for client '%s' within realm '%s'",
+                roleName, clientId, realmName
+        ));
     }
 
     public void createClientRole(String realmName, String clientId, RoleRepresentation role) {
-        RolesResource rolesResource = clientRepository.getResourceByClientId(realmName, clientId).roles();
-        rolesResource.create(role);
+        String id = clientRepository.getIdByClientId(realmName, clientId);
+
+        try {
+            clientRepository.getResourceById(realmName, id).roles().create(role);
+        } finally {
+            getCatalog(realmName).getClientRoles(id).evictRepresentation(role.getName());
+        }
 
         // KEYCLOAK-16082
         updateClientRole(realmName, clientId, role);
     }
 
     public void updateClientRole(String realmName, String clientId, RoleRepresentation role) {
-        RoleResource roleResource = loadClientRole(realmName, clientId, role.getName());
-        roleResource.update(role);
+        String id = clientRepository.getIdByClientId(realmName, clientId);
+
+        try {
+            clientRepository.getResourceById(realmName, id).roles().get(role.getName()).update(role);
+        } finally {
+            getCatalog(realmName).getClientRoles(id).evictRepresentation(role.getName());
+        }
     }
 
     public void deleteClientRole(String realmName, String clientId, RoleRepresentation role) {
-        ClientRepresentation client = clientRepository.getByClientId(realmName, clientId);
+        String id = clientRepository.getIdByClientId(realmName, clientId);
 
-        realmRepository.getResource(realmName)
-                .clients()
-                .get(client.getId())
-                .roles()
-                .deleteRole(role.getName());
+        try {
+            clientRepository.getResourceById(realmName, id).roles().deleteRole(role.getName());
+        } finally {
+            getCatalog(realmName).getClientRoles(id).evictRepresentation(role.getName());
+        }
     }
 
     public List<RoleRepresentation> searchRealmRoles(String realmName, List<String> roleNames) {
-        List<RoleRepresentation> roles = new ArrayList<>();
-        RealmResource realmResource = realmRepository.getResource(realmName);
+        return searchRoles(getCatalog(realmName).getRealmRoles(), roleNames, roleName -> new ImportProcessingException(
+                String.format("Could not find role '%s' in realm '%s'!", roleName, realmName)
+        ));
+    }
+
+    /*
+     * Roles in the catalog are resolved right away, the others are read concurrently.
+     */
+    private List<RoleRepresentation> searchRoles(RepresentationIndex<RoleRepresentation> container, List<String> roleNames,
+                                                 Function<String, RuntimeException> notFound) {
+        List<CompletableFuture<RoleRepresentation>> roles = new ArrayList<>();
 
         for (String roleName : roleNames) {
-            try {
-                RoleRepresentation role = realmResource.roles().get(roleName).toRepresentation();
-
-                roles.add(role);
-            } catch (NotFoundException e) {
-                throw new ImportProcessingException(
-                        String.format("Could not find role '%s' in realm '%s'!", roleName, realmName)
-                );
-            }
+            Supplier<RoleRepresentation> role = () -> container.get(roleName)
+                    .map(CloneUtil::deepClone)
+                    .orElseThrow(() -> notFound.apply(roleName));
+
+            roles.add(container.contains(roleName)
+                    ? CompletableFuture.completedFuture(role.get())
+                    : importExecutor.supplyAsync(role));
         }
 
-        return roles;
+        return ImportExecutor.joinAll(roles);
+    }
+
+    /**
+     * Drops a cached realm role after a write of another repository, e.g. of its composites.
+     */
+    public void evictRealmRole(String realmName, String roleName) {
+        getCatalog(realmName).getRealmRoles().evictRepresentation(roleName);
+    }
+
+    /**
+     * Drops a cached client role after a write of another repository, e.g. of its composites.
+     */
+    public void evictClientRole(String realmName, String clientId, String roleName) {
+        getCatalog(realmName).getClientRoles(clientRepository.getIdByClientId(realmName, clientId)).evictRepresentation(roleName);
+    }
+
+    /**
+     * Drops the realm and client roles cataloged for the realm.
+     */
+    public void evict(String realmName) {
+        catalogs.remove(realmName);
+    }
+
+    private RoleCatalog getCatalog(String realmName) {
+        return catalogs.computeIfAbsent(realmName, RoleCatalog::new);
     }
 
     public List<String> getUserRealmLevelRoles(String realmName, String username) {
@@ -280,4 +346,38 @@ public class RoleRepository {
                 .roles()
                 .get(roleName);
     }
+
+    private class RoleCatalog {
+        private final String realmName;
+        private final RepresentationIndex<RoleRepresentation> realmRoles;
+        private final Map<String, RepresentationIndex<RoleRepresentation>> clientRoles = new ConcurrentHashMap<>();
+
+        RoleCatalog(String realmName) {
+            this.realmName = realmName;
+            this.realmRoles = createRoles(() -> realmRepository.getResource(realmName).roles());
+        }
+
+        RepresentationIndex<RoleRepresentation> getRealmRoles() {
+            return realmRoles;
+        }
+
+        /**
+         * The roles of the client with the given id, not the client id.
+         */
+        RepresentationIndex<RoleRepresentation> getClientRoles(String id) {
+            return clientRoles.computeIfAbsent(id, key -> createRoles(() -> clientRepository.getResourceById(realmName, key).roles()));
+        }
+
+        /*
+         * The roles are indexed by name, a role which is not indexed is read by its name.
+         */
+        private RepresentationIndex<RoleRepresentation> createRoles(Supplier<RolesResource> rolesResource) {
+            return new RepresentationIndex<>(
+                    () -> rolesResource.get().list(false),
+                    name -> rolesResource.get().get(name).toRepresentation(),
+                    RoleRepresentation::getName,
+                    List.of()
+            );
+        }
+    }
 }
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static de.adorsys.keycloak.config.util.JsonUtil.fromJson;
 import static de.adorsys.keycloak.config.util.JsonUtil.toJson;
@@ -42,7 +43,8 @@ public class StateRepository {
     private final RealmRepository realmRepository;
     private final ImportConfigProperties importConfigProperties;
 
-    private Map<String, String> customAttributes;
+    // realm imports may run concurrently, so the loaded state is kept per realm
+    private final Map<String, Map<String, String>> customAttributes = new ConcurrentHashMap<>();
 
     public StateRepository(RealmRepository realmRepository, ImportConfigProperties importConfigProperties) {
         this.realmRepository = realmRepository;
@@ -65,7 +67,7 @@ public class StateRepository {
     }
 
     public void loadCustomAttributes(String realmName) {
-        customAttributes = retrieveCustomAttributes(realmName);
+        customAttributes.put(realmName, retrieveCustomAttributes(realmName));
     }
 
     /**
@@ -76,8 +78,10 @@ public class StateRepository {
      * @param realmForUpdating the {@link RealmRepresentation} instance which will be synchronized with the Keycloak
      */
     public void loadCustomAttributes(RealmRepresentation realmForUpdating) {
-        loadCustomAttributes(realmForUpdating.getRealm());
+        String realmName = realmForUpdating.getRealm();
+        loadCustomAttributes(realmName);
 
+        Map<String, String> realmCustomAttributes = customAttributes.get(realmName);
         Map<String, String> attributes = realmForUpdating.getAttributes();
 
         if (attributes == null) {
@@ -89,9 +93,9 @@ public class StateRepository {
         attributes.entrySet()
                 .stream()
                 .filter(e -> !isStateAttribute(e))
-                .forEach(e -> customAttributes.put(e.getKey(), e.getValue()));
+                .forEach(e -> realmCustomAttributes.put(e.getKey(), e.getValue()));
 
-        customAttributes.entrySet()
+        realmCustomAttributes.entrySet()
                 .stream()
                 .filter(this::isStateAttribute)
                 .forEach(e -> attributes.put(e.getKey(), e.getValue()));
@@ -101,17 +105,18 @@ public class StateRepository {
         return e.getKey().startsWith(ImportConfigProperties.REALM_STATE_ATTRIBUTE_COMMON_PREFIX);
     }
 
-    public List<String> getState(String entity) {
+    public List<String> getState(String realmName, String entity) {
+        Map<String, String> realmCustomAttributes = customAttributes.get(realmName);
         List<String> stateValues = new ArrayList<>();
 
-        long attributeCount = customAttributes
+        long attributeCount = realmCustomAttributes
                 .entrySet()
                 .stream()
                 .filter(attribute -> attribute.getKey().matches(String.format("^%s-\\d+$", getCustomAttributeKey(entity))))
                 .count();
 
         for (int index = 0; index < attributeCount; index++) {
-            stateValues.add(customAttributes.get(getCustomAttributeKey(entity) + "-" + index));
+            stateValues.add(realmCustomAttributes.get(getCustomAttributeKey(entity) + "-" + index));
         }
 
         if (stateValues.isEmpty()) {
@@ -134,7 +139,7 @@ public class StateRepository {
     public void update(RealmImport realmImport) {
         RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
         Map<String, String> realmAttributes = existingRealm.getAttributes();
-        realmAttributes.putAll(customAttributes);
+        realmAttributes.putAll(customAttributes.get(realmImport.getRealm()));
 
         realmRepository.update(existingRealm);
     }
@@ -152,7 +157,7 @@ public class StateRepository {
         return existingRealm.getAttributes();
     }
 
-    public void setState(String entity, List<String> values) {
+    public void setState(String realmName, String entity, List<String> values) {
         String valuesAsString = toJson(values);
 
         if (this.importConfigProperties.getRemoteState().getEncryptionKey() != null) {
@@ -165,13 +170,14 @@ public class StateRepository {
 
         List<String> valueList = splitEqually(valuesAsString);
 
-        customAttributes.entrySet()
+        Map<String, String> realmCustomAttributes = customAttributes.get(realmName);
+        realmCustomAttributes.entrySet()
                 .removeIf(attribute -> attribute.getKey().startsWith(getCustomAttributeKey(entity) + "-"));
 
         // split value into multiple attributes to avoid max length limit
         int index = 0;
         for (String value : valueList) {
-            customAttributes.put(getCustomAttributeKey(entity) + "-" + index, value);
+            realmCustomAttributes.put(getCustomAttributeKey(entity) + "-" + index, value);
             index++;
         }
     }
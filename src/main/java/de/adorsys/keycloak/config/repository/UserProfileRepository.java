@@ -57,8 +57,11 @@ public class UserProfileRepository {
 
         if (!newUserProfileEnabled) {
             logger.trace("UserProfile is explicitly disabled, removing configuration.");
-            try (var response = userProfileResource.update(null)) {
+            try {
+                userProfileResource.update(null).close();
                 logger.trace("UserProfile configuration removed.");
+            } finally {
+                realmRepository.evict(realm);
             }
             return;
         }
@@ -86,6 +89,8 @@ public class UserProfileRepository {
             if (!updateUserProfileResponse.getStatusInfo().equals(Response.Status.OK)) {
                 throw new KeycloakRepositoryException("Could not update UserProfile Definition");
             }
+        } finally {
+            realmRepository.evict(realm);
         }
 
         logger.trace("UserProfile updated.");
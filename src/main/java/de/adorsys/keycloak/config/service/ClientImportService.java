@@ -20,9 +20,13 @@
 
 package de.adorsys.keycloak.config.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.ImportPlan;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.provider.ImportExecutor.Entity;
 import de.adorsys.keycloak.config.repository.AuthenticationFlowRepository;
 import de.adorsys.keycloak.config.repository.ClientRepository;
 import de.adorsys.keycloak.config.repository.ClientScopeRepository;
@@ -32,13 +36,13 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.keycloak.common.util.CollectionUtil;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import jakarta.ws.rs.WebApplicationException;
@@ -63,6 +67,7 @@ public class ClientImportService {
     private final AuthenticationFlowRepository authenticationFlowRepository;
     private final ImportConfigProperties importConfigProperties;
     private final StateService stateService;
+    private final ImportExecutor importExecutor;
 
     @Autowired
     public ClientImportService(
@@ -70,12 +75,14 @@ public class ClientImportService {
             ClientScopeRepository clientScopeRepository,
             AuthenticationFlowRepository authenticationFlowRepository,
             ImportConfigProperties importConfigProperties,
-            StateService stateService) {
+            StateService stateService,
+            ImportExecutor importExecutor) {
         this.clientRepository = clientRepository;
         this.clientScopeRepository = clientScopeRepository;
         this.authenticationFlowRepository = authenticationFlowRepository;
         this.importConfigProperties = importConfigProperties;
         this.stateService = stateService;
+        this.importExecutor = importExecutor;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -103,27 +110,36 @@ public class ClientImportService {
             RealmImport realmImport,
             List<ClientRepresentation> clients
     ) {
-        Consumer<ClientRepresentation> loop = client -> createOrUpdateClient(realmImport, client);
-        if (importConfigProperties.isParallel()) {
-            clients.parallelStream().forEach(loop);
-        } else {
-            clients.forEach(loop);
-        }
+        importExecutor.forEach(Entity.CLIENT, clients, client -> createOrUpdateClient(realmImport, client));
     }
 
     private void deleteClientsMissingInImport(
             RealmImport realmImport,
             List<ClientRepresentation> clients
+    ) {
+        List<ClientRepresentation> clientsToRemove = getClientsToRemove(
+                realmImport, clients, clientRepository.getAll(realmImport.getRealm())
+        );
+
+        for (ClientRepresentation clientToRemove : clientsToRemove) {
+            logger.debug("Remove client '{}' in realm '{}'", clientToRemove.getClientId(), realmImport.getRealm());
+            clientRepository.remove(realmImport.getRealm(), clientToRemove);
+        }
+    }
+
+    private List<ClientRepresentation> getClientsToRemove(
+            RealmImport realmImport,
+            List<ClientRepresentation> clients,
+            List<ClientRepresentation> existingClients
     ) {
         Set<String> importedClients = clients.stream()
                 .map(ClientRepresentation::getClientId)
                 .collect(Collectors.toSet());
 
         boolean isState = importConfigProperties.getRemoteState().isEnabled();
-        final List<String> stateClients = stateService.getClients();
+        final List<String> stateClients = stateService.getClients(realmImport.getRealm());
 
-        List<ClientRepresentation> clientsToRemove = clientRepository.getAll(realmImport.getRealm())
-                .stream()
+        return existingClients.stream()
                 .filter(client -> !KeycloakUtil.isDefaultClient(client)
                         && !importedClients.contains(client.getClientId())
                         && (!isState || stateClients.contains(client.getClientId()))
@@ -131,11 +147,6 @@ public class ClientImportService {
                         && client.getClientId().endsWith("-realm"))
                 )
                 .collect(Collectors.toList());
-
-        for (ClientRepresentation clientToRemove : clientsToRemove) {
-            logger.debug("Remove client '{}' in realm '{}'", clientToRemove.getClientId(), realmImport.getRealm());
-            clientRepository.remove(realmImport.getRealm(), clientToRemove);
-        }
     }
 
     private void createOrUpdateClient(
@@ -144,6 +155,19 @@ public class ClientImportService {
     ) {
         String realmName = realmImport.getRealm();
 
+        validateAuthorizationSettings(realmName, client);
+
+        Optional<ClientRepresentation> existingClient = searchClient(realmName, client);
+
+        if (existingClient.isPresent()) {
+            updateClientIfNeeded(realmName, client, existingClient.get());
+        } else {
+            logger.debug("Create client '{}' in realm '{}'", getClientIdentifier(client), realmName);
+            createClient(realmName, client);
+        }
+    }
+
+    private void validateAuthorizationSettings(String realmName, ClientRepresentation client) {
         // https://github.com/keycloak/keycloak/blob/74695c02423345dab892a0808bf9203c3f92af7c/server-spi-private/src/main/java/org/keycloak/models/utils/RepresentationToModel.java#L2878-L2881
         if (importConfigProperties.isValidate()
                 && client.getAuthorizationSettings() != null && !REALM_MANAGEMENT_CLIENT_ID.equals(client.getClientId())) {
@@ -161,22 +185,67 @@ public class ClientImportService {
                 );
             }
         }
+    }
 
-        Optional<ClientRepresentation> existingClient;
+    private Optional<ClientRepresentation> searchClient(String realmName, ClientRepresentation client) {
         if (client.getClientId() != null) {
-            existingClient = clientRepository.searchByClientId(realmName, client.getClientId());
+            return clientRepository.searchByClientId(realmName, client.getClientId());
         } else if (client.getName() != null) {
-            existingClient = clientRepository.searchByName(realmName, client.getName());
+            return clientRepository.searchByName(realmName, client.getName());
         } else {
             throw new ImportProcessingException("clients require client id or name.");
         }
+    }
 
-        if (existingClient.isPresent()) {
-            updateClientIfNeeded(realmName, client, existingClient.get());
-        } else {
-            logger.debug("Create client '{}' in realm '{}'", getClientIdentifier(client), realmName);
-            createClient(realmName, client);
+    void plan(RealmImport realmImport, RealmRepresentation existingRealm, ImportPlan.RealmPlan realmPlan) {
+        List<ClientRepresentation> clients = realmImport.getClients();
+        if (clients == null) {
+            return;
+        }
+
+        String realmName = realmImport.getRealm();
+        List<ClientRepresentation> existingClients = Optional.ofNullable(existingRealm.getClients()).orElse(Collections.emptyList());
+
+        if (importConfigProperties.getManaged().getClient() == FULL) {
+            for (ClientRepresentation clientToRemove : getClientsToRemove(realmImport, clients, existingClients)) {
+                realmPlan.add(ImportPlan.Action.DELETE, ImportPlan.Type.CLIENT, clientToRemove.getClientId(), null,
+                        CloneUtil.deepClone(clientToRemove, JsonNode.class));
+            }
         }
+
+        for (ClientRepresentation client : clients) {
+            validateAuthorizationSettings(realmName, client);
+
+            Optional<ClientRepresentation> existingClient = existingClients.stream()
+                    .filter(c -> client.getClientId() != null
+                            ? Objects.equals(c.getClientId(), client.getClientId())
+                            : Objects.equals(c.getName(), client.getName()))
+                    .findFirst();
+
+            if (existingClient.isEmpty()) {
+                realmPlan.add(ImportPlan.Action.CREATE, ImportPlan.Type.CLIENT, getClientIdentifier(client), null,
+                        CloneUtil.deepClone(client, JsonNode.class, propertiesWithDependencies));
+                continue;
+            }
+
+            String[] propertiesToIgnore = ArrayUtils.addAll(propertiesWithDependencies, "id", "access");
+            ClientRepresentation mergedClient = CloneUtil.patch(existingClient.get(), client, propertiesToIgnore);
+            // exported clients contain a masked secret, it has to be compared only if the import defines one
+            mergedClient.setSecret(client.getSecret());
+
+            if (!isClientEqual(realmName, existingClient.get(), mergedClient)) {
+                realmPlan.add(ImportPlan.Action.UPDATE, ImportPlan.Type.CLIENT, getClientIdentifier(client), null,
+                        CloneUtil.deepClone(client, JsonNode.class, propertiesWithDependencies));
+            }
+        }
+    }
+
+    void updatePlannedClient(String realmName, ClientRepresentation client) {
+        ClientRepresentation existingClient = searchClient(realmName, client).orElseThrow(() -> new ImportProcessingException(
+                "Cannot update client '%s' in realm '%s': client not found.", getClientIdentifier(client), realmName
+        ));
+
+        updateClientIfNeeded(realmName, client, existingClient);
     }
 
     private void updateClientIfNeeded(
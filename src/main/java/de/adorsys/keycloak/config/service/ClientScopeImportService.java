@@ -23,6 +23,8 @@ package de.adorsys.keycloak.config.service;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.provider.ImportExecutor.Entity;
 import de.adorsys.keycloak.config.repository.ClientScopeRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
 import de.adorsys.keycloak.config.util.CloneUtil;
@@ -37,7 +39,6 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -47,14 +48,17 @@ public class ClientScopeImportService {
     private final ClientScopeRepository clientScopeRepository;
     private final ImportConfigProperties importConfigProperties;
     private final RealmRepository realmRepository;
+    private final ImportExecutor importExecutor;
 
     public ClientScopeImportService(
             ClientScopeRepository clientScopeRepository,
             ImportConfigProperties importConfigProperties,
-            RealmRepository realmRepository) {
+            RealmRepository realmRepository,
+            ImportExecutor importExecutor) {
         this.clientScopeRepository = clientScopeRepository;
         this.importConfigProperties = importConfigProperties;
         this.realmRepository = realmRepository;
+        this.importExecutor = importExecutor;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -169,12 +173,7 @@ public class ClientScopeImportService {
             String realmName,
             List<ClientScopeRepresentation> clientScopes
     ) {
-        Consumer<ClientScopeRepresentation> loop = clientScope -> createOrUpdateClientScope(realmName, clientScope);
-        if (importConfigProperties.isParallel()) {
-            clientScopes.parallelStream().forEach(loop);
-        } else {
-            clientScopes.forEach(loop);
-        }
+        importExecutor.forEach(Entity.CLIENT_SCOPE, clientScopes, clientScope -> createOrUpdateClientScope(realmName, clientScope));
     }
 
     private void deleteClientScopesMissingInImport(
@@ -266,7 +266,7 @@ public class ComponentImportService {
         String parentName = parentComponent != null ? parentComponent.getName() : null;
 
         // ignore all object there are not in state
-        return stateService.getComponents(existingComponents, parentName);
+        return stateService.getComponents(realmName, existingComponents, parentName);
     }
 
     private boolean checkIfComponentMissingImport(
@@ -0,0 +1,117 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.RealmImport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Imports different realms concurrently on import.parallel-realms threads. Parts of the same realm are chained,
+ * so they are still imported one after another and in the order they are submitted. After a failed part, the
+ * remaining parts of that realm are skipped while other realms continue.
+ */
+public class ConcurrentRealmImporter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentRealmImporter.class);
+
+    private final RealmImportService realmImportService;
+    private final ExecutorService executor;
+    private final Semaphore pendingParts;
+
+    private final Map<String, CompletableFuture<Void>> realmImports = new LinkedHashMap<>();
+
+    public ConcurrentRealmImporter(RealmImportService realmImportService, int parallelRealms) {
+        this.realmImportService = realmImportService;
+        this.executor = Executors.newFixedThreadPool(parallelRealms, new CustomizableThreadFactory("kcc-realm-"));
+        // bound the parsed parts which wait for their import
+        this.pendingParts = new Semaphore(parallelRealms * 2);
+    }
+
+    public void submit(RealmImport realmImport) {
+        try {
+            pendingParts.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportProcessingException("Interrupted while waiting for realm imports", e);
+        }
+
+        String realmName = realmImport.getRealm();
+        CompletableFuture<Void> previousPart = realmImports.getOrDefault(realmName, CompletableFuture.completedFuture(null));
+
+        CompletableFuture<Void> part = previousPart.thenRunAsync(() -> realmImportService.doImport(realmImport), executor);
+        part.whenComplete((result, error) -> pendingParts.release());
+
+        realmImports.put(realmName, part);
+    }
+
+    /**
+     * Waits for all submitted parts. A single failed realm is rethrown as is, multiple failed realms are logged and
+     * reported together.
+     */
+    public void awaitAll() {
+        Map<String, Throwable> failedRealms = new LinkedHashMap<>();
+
+        for (Map.Entry<String, CompletableFuture<Void>> realmImport : realmImports.entrySet()) {
+            try {
+                realmImport.getValue().join();
+            } catch (CompletionException | CancellationException e) {
+                failedRealms.put(realmImport.getKey(), e.getCause() != null ? e.getCause() : e);
+            }
+        }
+
+        if (failedRealms.isEmpty()) {
+            return;
+        }
+
+        Throwable firstError = failedRealms.values().iterator().next();
+        if (failedRealms.size() == 1 && firstError instanceof RuntimeException) {
+            throw (RuntimeException) firstError;
+        }
+
+        failedRealms.forEach((realmName, error) -> logger.error("Import of realm '{}' failed: {}", realmName, error.getMessage()));
+
+        throw new ImportProcessingException(
+                String.format("Import of %d realm(s) failed: %s", failedRealms.size(), String.join(", ", failedRealms.keySet())),
+                firstError
+        );
+    }
+
+    /**
+     * Lets already submitted parts finish, so no realm is left with an interrupted request.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
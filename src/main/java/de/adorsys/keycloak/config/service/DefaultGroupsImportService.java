@@ -24,7 +24,6 @@ import de.adorsys.keycloak.config.exception.InvalidImportException;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.repository.GroupRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
-import org.keycloak.admin.client.resource.RealmResource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -52,14 +51,13 @@ public class DefaultGroupsImportService {
 
         String realmName = realmImport.getRealm();
 
-        RealmResource realmResource = realmRepository.getResource(realmName);
-        List<String> existingDefaultGroups = realmResource.toRepresentation().getDefaultGroups();
+        List<String> existingDefaultGroups = realmRepository.get(realmName).getDefaultGroups();
 
         if (existingDefaultGroups != null) {
             for (String existingDefaultGroup : existingDefaultGroups) {
                 if (!newDefaultGroups.contains(existingDefaultGroup)) {
-                    String existingDefaultGroupId = groupRepository.getGroupByPath(realmName, existingDefaultGroup).getId();
-                    realmResource.removeDefaultGroup(existingDefaultGroupId);
+                    String existingDefaultGroupId = groupRepository.getGroupIdByPath(realmName, existingDefaultGroup);
+                    realmRepository.removeDefaultGroup(realmName, existingDefaultGroupId);
                 }
             }
         }
@@ -67,8 +65,8 @@ public class DefaultGroupsImportService {
         for (String newDefaultGroup : newDefaultGroups) {
             if (existingDefaultGroups == null || !existingDefaultGroups.contains(newDefaultGroup)) {
                 try {
-                    String newDefaultGroupId = groupRepository.getGroupByPath(realmName, newDefaultGroup).getId();
-                    realmResource.addDefaultGroup(newDefaultGroupId);
+                    String newDefaultGroupId = groupRepository.getGroupIdByPath(realmName, newDefaultGroup);
+                    realmRepository.addDefaultGroup(realmName, newDefaultGroupId);
                 } catch (NotFoundException ignored) {
                     throw new InvalidImportException(String.format("Unable to add default group '%s'. Does group exists?", newDefaultGroup));
                 }
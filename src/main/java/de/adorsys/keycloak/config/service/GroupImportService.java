@@ -20,18 +20,22 @@
 
 package de.adorsys.keycloak.config.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import de.adorsys.keycloak.config.model.ImportPlan;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.provider.ImportExecutor.Entity;
 import de.adorsys.keycloak.config.repository.GroupRepository;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,10 +44,12 @@ public class GroupImportService {
 
     private final GroupRepository groupRepository;
     private final ImportConfigProperties importConfigProperties;
+    private final ImportExecutor importExecutor;
 
-    public GroupImportService(GroupRepository groupRepository, ImportConfigProperties importConfigProperties) {
+    public GroupImportService(GroupRepository groupRepository, ImportConfigProperties importConfigProperties, ImportExecutor importExecutor) {
         this.groupRepository = groupRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
     }
 
     public void importGroups(RealmImport realmImport) {
@@ -64,11 +70,35 @@ public class GroupImportService {
     }
 
     public void createOrUpdateGroups(List<GroupRepresentation> groups, String realmName) {
-        Consumer<GroupRepresentation> loop = group -> createOrUpdateRealmGroup(realmName, group);
-        if (importConfigProperties.isParallel()) {
-            groups.parallelStream().forEach(loop);
-        } else {
-            groups.forEach(loop);
+        importExecutor.forEach(Entity.GROUP, groups, group -> createOrUpdateRealmGroup(realmName, group));
+    }
+
+    void plan(RealmImport realmImport, RealmRepresentation existingRealm, ImportPlan.RealmPlan realmPlan) {
+        List<GroupRepresentation> groups = realmImport.getGroups();
+
+        if (groups == null) {
+            return;
+        }
+
+        List<GroupRepresentation> existingGroups = Optional.ofNullable(existingRealm.getGroups()).orElse(Collections.emptyList());
+
+        for (GroupRepresentation group : groups) {
+            GroupRepresentation existingGroup = existingGroups.stream()
+                    .filter(g -> Objects.equals(g.getName(), group.getName()))
+                    .findFirst().orElse(null);
+
+            if (existingGroup == null) {
+                realmPlan.add(ImportPlan.Action.CREATE, ImportPlan.Type.GROUP, group.getName(), null, CloneUtil.deepClone(group, JsonNode.class));
+            } else if (!isGroupEqual(existingGroup, CloneUtil.patch(existingGroup, group))) {
+                realmPlan.add(ImportPlan.Action.UPDATE, ImportPlan.Type.GROUP, group.getName(), null, CloneUtil.deepClone(group, JsonNode.class));
+            }
+        }
+
+        if (importConfigProperties.getManaged().getGroup() == ImportManagedPropertiesValues.FULL) {
+            for (GroupRepresentation existingGroup : getGroupsToDelete(groups, existingGroups)) {
+                realmPlan.add(ImportPlan.Action.DELETE, ImportPlan.Type.GROUP, existingGroup.getName(), null,
+                        CloneUtil.deepClone(existingGroup, JsonNode.class, "subGroups"));
+            }
         }
     }
 
@@ -76,17 +106,24 @@ public class GroupImportService {
             String realmName,
             List<GroupRepresentation> importedGroups,
             List<GroupRepresentation> existingGroups
+    ) {
+        for (GroupRepresentation existingGroup : getGroupsToDelete(importedGroups, existingGroups)) {
+            logger.debug("Delete group '{}' in realm '{}'", existingGroup.getName(), realmName);
+            groupRepository.deleteGroup(realmName, existingGroup.getId());
+        }
+    }
+
+    private List<GroupRepresentation> getGroupsToDelete(
+            List<GroupRepresentation> importedGroups,
+            List<GroupRepresentation> existingGroups
     ) {
         Set<String> importedGroupNames = importedGroups.stream()
                 .map(GroupRepresentation::getName)
                 .collect(Collectors.toSet());
 
-        for (GroupRepresentation existingGroup : existingGroups) {
-            if (importedGroupNames.contains(existingGroup.getName())) continue;
-
-            logger.debug("Delete group '{}' in realm '{}'", existingGroup.getName(), realmName);
-            groupRepository.deleteGroup(realmName, existingGroup.getId());
-        }
+        return existingGroups.stream()
+                .filter(group -> !importedGroupNames.contains(group.getName()))
+                .collect(Collectors.toList());
     }
 
     private void createOrUpdateRealmGroup(String realmName, GroupRepresentation group) {
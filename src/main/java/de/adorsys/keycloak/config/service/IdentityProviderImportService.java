@@ -20,6 +20,8 @@
 
 package de.adorsys.keycloak.config.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import de.adorsys.keycloak.config.model.ImportPlan;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.IdentityProviderMapperRepository;
@@ -27,11 +29,13 @@ import de.adorsys.keycloak.config.repository.IdentityProviderRepository;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.IdentityProviderMapperRepresentation;
 import org.keycloak.representations.idm.IdentityProviderRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -78,6 +82,42 @@ public class IdentityProviderImportService {
         }
     }
 
+    void plan(RealmImport realmImport, RealmRepresentation existingRealm, ImportPlan.RealmPlan realmPlan) {
+        List<IdentityProviderRepresentation> identityProviders = realmImport.getIdentityProviders();
+
+        if (identityProviders == null) return;
+
+        List<IdentityProviderRepresentation> existingIdentityProviders = Optional.ofNullable(existingRealm.getIdentityProviders())
+                .orElse(Collections.emptyList());
+
+        if (importConfigProperties.getManaged().getIdentityProvider() == ImportManagedPropertiesValues.FULL) {
+            for (IdentityProviderRepresentation identityProvider : existingIdentityProviders) {
+                if (!hasIdentityProviderWithAlias(identityProviders, identityProvider.getAlias())) {
+                    realmPlan.add(ImportPlan.Action.DELETE, ImportPlan.Type.IDENTITY_PROVIDER, identityProvider.getAlias(), null,
+                            CloneUtil.deepClone(identityProvider, JsonNode.class));
+                }
+            }
+        }
+
+        for (IdentityProviderRepresentation identityProvider : identityProviders) {
+            IdentityProviderRepresentation existingIdentityProvider = existingIdentityProviders.stream()
+                    .filter(idp -> Objects.equals(idp.getAlias(), identityProvider.getAlias()))
+                    .findFirst().orElse(null);
+
+            if (existingIdentityProvider == null) {
+                realmPlan.add(ImportPlan.Action.CREATE, ImportPlan.Type.IDENTITY_PROVIDER, identityProvider.getAlias(), null,
+                        CloneUtil.deepClone(identityProvider, JsonNode.class));
+            } else if (!isIdentityProviderEqual(existingIdentityProvider, CloneUtil.patch(existingIdentityProvider, identityProvider))) {
+                realmPlan.add(ImportPlan.Action.UPDATE, ImportPlan.Type.IDENTITY_PROVIDER, identityProvider.getAlias(), null,
+                        CloneUtil.deepClone(identityProvider, JsonNode.class));
+            }
+        }
+    }
+
+    void updatePlannedIdentityProvider(String realmName, IdentityProviderRepresentation identityProvider) {
+        updateIdentityProviderIfNecessary(realmName, identityProvider);
+    }
+
     private void deleteIdentityProvidersMissingInImport(
             String realmName,
             List<IdentityProviderRepresentation> identityProviders,
@@ -0,0 +1,417 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.ImportPlan;
+import de.adorsys.keycloak.config.model.ImportPlan.Action;
+import de.adorsys.keycloak.config.model.ImportPlan.Operation;
+import de.adorsys.keycloak.config.model.ImportPlan.RealmPlan;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.repository.ClientRepository;
+import de.adorsys.keycloak.config.repository.GroupRepository;
+import de.adorsys.keycloak.config.repository.IdentityProviderRepository;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.repository.RoleRepository;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.phase.ImportPhase;
+import de.adorsys.keycloak.config.service.state.StateService;
+import de.adorsys.keycloak.config.util.CloneUtil;
+import org.keycloak.representations.idm.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Computes the changes of an import without writing to keycloak and applies them later.
+ * <p>
+ * Every realm is exported once, concurrently on the import executor. The export is compared with the import by the
+ * comparison logic of the import services. Realm settings, clients, roles, groups and identity providers are planned,
+ * groups by their top-level group. All other sections of the import are reported as unplanned and require a regular
+ * import.
+ * <p>
+ * Applying a plan stores the remote state of the import. The import checksum is only stored if the plan has no
+ * unplanned sections, otherwise the next regular import would skip them.
+ */
+@Service
+public class ImportPlanService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportPlanService.class);
+
+    private static final Set<String> plannedSections = Set.of("clients", "roles", "groups", "identityProviders", "attributes");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(Include.NON_NULL)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final RealmRepository realmRepository;
+    private final ClientRepository clientRepository;
+    private final RoleRepository roleRepository;
+    private final GroupRepository groupRepository;
+    private final IdentityProviderRepository identityProviderRepository;
+    private final ClientImportService clientImportService;
+    private final RoleImportService roleImportService;
+    private final GroupImportService groupImportService;
+    private final IdentityProviderImportService identityProviderImportService;
+    private final StateService stateService;
+    private final ChecksumService checksumService;
+    private final ImportExecutor importExecutor;
+    private final KeycloakProvider keycloakProvider;
+    private final ImportConfigProperties importConfigProperties;
+
+    @Autowired
+    public ImportPlanService(
+            RealmRepository realmRepository,
+            ClientRepository clientRepository,
+            RoleRepository roleRepository,
+            GroupRepository groupRepository,
+            IdentityProviderRepository identityProviderRepository,
+            ClientImportService clientImportService,
+            RoleImportService roleImportService,
+            GroupImportService groupImportService,
+            IdentityProviderImportService identityProviderImportService,
+            StateService stateService,
+            ChecksumService checksumService,
+            ImportExecutor importExecutor,
+            KeycloakProvider keycloakProvider,
+            ImportConfigProperties importConfigProperties) {
+        this.realmRepository = realmRepository;
+        this.clientRepository = clientRepository;
+        this.roleRepository = roleRepository;
+        this.groupRepository = groupRepository;
+        this.identityProviderRepository = identityProviderRepository;
+        this.clientImportService = clientImportService;
+        this.roleImportService = roleImportService;
+        this.groupImportService = groupImportService;
+        this.identityProviderImportService = identityProviderImportService;
+        this.stateService = stateService;
+        this.checksumService = checksumService;
+        this.importExecutor = importExecutor;
+        this.keycloakProvider = keycloakProvider;
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    public ImportPlan plan(List<RealmImport> realmImports) {
+        Map<String, RealmRepresentation> existingRealms = exportRealms(realmImports);
+
+        ImportPlan plan = new ImportPlan();
+        for (RealmImport realmImport : realmImports) {
+            plan.getRealms().add(planRealm(realmImport, existingRealms.get(realmImport.getRealm())));
+        }
+
+        return plan;
+    }
+
+    private Map<String, RealmRepresentation> exportRealms(List<RealmImport> realmImports) {
+        Map<String, RealmImport> realms = realmImports.stream()
+                .collect(Collectors.toMap(RealmImport::getRealm, Function.identity(), (first, second) -> first, LinkedHashMap::new));
+
+        if (realms.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<CompletableFuture<Optional<RealmRepresentation>>> exports = new ArrayList<>();
+        for (RealmImport realmImport : realms.values()) {
+            exports.add(importExecutor.supplyAsync(() -> exportRealm(realmImport)));
+        }
+
+        Map<String, RealmRepresentation> existingRealms = new HashMap<>();
+        Iterator<String> realmNames = realms.keySet().iterator();
+        for (Optional<RealmRepresentation> existingRealm : ImportExecutor.joinAll(exports)) {
+            String realmName = realmNames.next();
+            existingRealm.ifPresent(realm -> existingRealms.put(realmName, realm));
+        }
+
+        return existingRealms;
+    }
+
+    private Optional<RealmRepresentation> exportRealm(RealmImport realmImport) {
+        String realmName = realmImport.getRealm();
+
+        RealmRepresentation existingRealm;
+        try {
+            existingRealm = realmRepository.partialExport(realmName, true, true);
+        } catch (NotFoundException e) {
+            logger.debug("Realm '{}' does not exist", realmName);
+            return Optional.empty();
+        }
+
+        stateService.loadState(realmImport);
+        logger.debug("Exported realm '{}'", realmName);
+
+        return Optional.of(existingRealm);
+    }
+
+    private RealmPlan planRealm(RealmImport realmImport, RealmRepresentation existingRealm) {
+        String realmName = realmImport.getRealm();
+        RealmPlan realmPlan = new RealmPlan(realmName);
+        realmPlan.setRealmImport(CloneUtil.deepClone(realmImport, JsonNode.class));
+        realmPlan.setChecksum(realmImport.getChecksum());
+        realmPlan.setImportPart(realmImport.getImportPart());
+
+        if (existingRealm == null) {
+            // a new realm is created with its full representation, which includes all sections
+            realmPlan.add(Action.CREATE, ImportPlan.Type.REALM, realmName, null, realmPlan.getRealmImport());
+            return realmPlan;
+        }
+
+        RealmRepresentation realm = CloneUtil.deepClone(
+                realmImport, RealmRepresentation.class, RealmImportService.ignoredPropertiesForRealmImport
+        );
+        RealmRepresentation patchedRealm = CloneUtil.patch(existingRealm, realm);
+
+        if (realm.getAttributes() != null && existingRealm.getAttributes() != null) {
+            // keycloak keeps attributes which are missing in the update
+            Map<String, String> attributes = new HashMap<>(existingRealm.getAttributes());
+            attributes.putAll(realm.getAttributes());
+            patchedRealm.setAttributes(attributes);
+        }
+
+        if (!CloneUtil.deepEquals(existingRealm, patchedRealm, RealmImportService.ignoredPropertiesForRealmImport)) {
+            realmPlan.add(Action.UPDATE, ImportPlan.Type.REALM, realmName, null, CloneUtil.deepClone(realm, JsonNode.class));
+        }
+
+        clientImportService.plan(realmImport, existingRealm, realmPlan);
+        roleImportService.plan(realmImport, existingRealm, realmPlan);
+        groupImportService.plan(realmImport, existingRealm, realmPlan);
+        identityProviderImportService.plan(realmImport, existingRealm, realmPlan);
+
+        JsonNode realmImportNode = realmPlan.getRealmImport();
+        for (String section : ImportPhase.getAllSections()) {
+            if (realmImportNode.has(section) && !plannedSections.contains(section)) {
+                realmPlan.getUnplannedSections().add(section);
+            }
+        }
+
+        logger.info("Planned {} changes for realm '{}'", realmPlan.getOperations().size(), realmName);
+        return realmPlan;
+    }
+
+    /**
+     * Applies a plan created by {@link #plan(List)}. All created objects of a realm are sent in one partial import,
+     * which fails if one of them has been created in the meantime.
+     */
+    public void apply(ImportPlan plan) {
+        for (RealmPlan realmPlan : plan.getRealms()) {
+            applyRealm(realmPlan);
+        }
+    }
+
+    private void applyRealm(RealmPlan realmPlan) {
+        String realmName = realmPlan.getRealm();
+        Map<Action, List<Operation>> operations = realmPlan.getOperations().stream()
+                .collect(Collectors.groupingBy(Operation::getAction, () -> new EnumMap<>(Action.class), Collectors.toList()));
+
+        for (Operation operation : operations.getOrDefault(Action.CREATE, Collections.emptyList())) {
+            if (operation.getType() == ImportPlan.Type.REALM) {
+                logger.debug("Creating realm '{}' ...", realmName);
+                realmRepository.create(convert(operation, RealmRepresentation.class));
+
+                // refresh the access token to update the scopes. See: https://github.com/adorsys/keycloak-config-cli/issues/339
+                keycloakProvider.refreshToken();
+
+                storeImport(realmPlan);
+                return;
+            }
+        }
+
+        for (Operation operation : operations.getOrDefault(Action.UPDATE, Collections.emptyList())) {
+            if (operation.getType() == ImportPlan.Type.REALM) {
+                logger.debug("Updating realm '{}'...", realmName);
+                RealmRepresentation realm = convert(operation, RealmRepresentation.class);
+
+                stateService.loadState(realm);
+                realmRepository.update(realm);
+            }
+        }
+
+        for (Operation operation : operations.getOrDefault(Action.DELETE, Collections.emptyList())) {
+            applyDelete(realmName, operation);
+        }
+
+        applyCreates(realmName, operations.getOrDefault(Action.CREATE, Collections.emptyList()));
+
+        for (Operation operation : operations.getOrDefault(Action.UPDATE, Collections.emptyList())) {
+            applyUpdate(realmName, operation);
+        }
+
+        storeImport(realmPlan);
+
+        logger.info("Applied {} changes to realm '{}'", realmPlan.getOperations().size(), realmName);
+    }
+
+    private void storeImport(RealmPlan realmPlan) {
+        if (realmPlan.getRealmImport() == null) {
+            logger.warn("Plan of realm '{}' has no import, remote state and import checksum are not updated", realmPlan.getRealm());
+            return;
+        }
+
+        RealmImport realmImport = CloneUtil.deepClone(realmPlan.getRealmImport(), RealmImport.class);
+        realmImport.setChecksum(realmPlan.getChecksum());
+        realmImport.setImportPart(realmPlan.getImportPart());
+
+        stateService.doImport(realmImport);
+
+        if (realmPlan.getUnplannedSections().isEmpty() && realmPlan.getChecksum() != null) {
+            checksumService.doImport(realmImport);
+        }
+    }
+
+    private void applyDelete(String realmName, Operation operation) {
+        logger.debug("Delete {} '{}' in realm '{}'", operation.getType(), operation.getName(), realmName);
+
+        switch (operation.getType()) {
+            case CLIENT:
+                clientRepository.remove(realmName, convert(operation, ClientRepresentation.class));
+                break;
+            case REALM_ROLE:
+                roleRepository.deleteRealmRole(realmName, convert(operation, RoleRepresentation.class));
+                break;
+            case CLIENT_ROLE:
+                roleRepository.deleteClientRole(realmName, operation.getParent(), convert(operation, RoleRepresentation.class));
+                break;
+            case GROUP:
+                groupRepository.deleteGroup(realmName, convert(operation, GroupRepresentation.class).getId());
+                break;
+            case IDENTITY_PROVIDER:
+                identityProviderRepository.delete(realmName, convert(operation, IdentityProviderRepresentation.class));
+                break;
+            default:
+                throw new ImportProcessingException("Cannot delete %s '%s' in realm '%s'", operation.getType(), operation.getName(), realmName);
+        }
+    }
+
+    private void applyCreates(String realmName, List<Operation> operations) {
+        if (operations.isEmpty()) return;
+
+        PartialImportRepresentation partialImport = new PartialImportRepresentation();
+        partialImport.setIfResourceExists(PartialImportRepresentation.Policy.FAIL.name());
+        partialImport.setClients(new ArrayList<>());
+        partialImport.setGroups(new ArrayList<>());
+        partialImport.setIdentityProviders(new ArrayList<>());
+
+        RolesRepresentation roles = new RolesRepresentation();
+        roles.setRealm(new ArrayList<>());
+        roles.setClient(new LinkedHashMap<>());
+        partialImport.setRoles(roles);
+
+        for (Operation operation : operations) {
+            switch (operation.getType()) {
+                case CLIENT:
+                    partialImport.getClients().add(convert(operation, ClientRepresentation.class));
+                    break;
+                case REALM_ROLE:
+                    roles.getRealm().add(convert(operation, RoleRepresentation.class));
+                    break;
+                case CLIENT_ROLE:
+                    roles.getClient().computeIfAbsent(operation.getParent(), clientId -> new ArrayList<>())
+                            .add(convert(operation, RoleRepresentation.class));
+                    break;
+                case GROUP:
+                    partialImport.getGroups().add(convert(operation, GroupRepresentation.class));
+                    break;
+                case IDENTITY_PROVIDER:
+                    partialImport.getIdentityProviders().add(convert(operation, IdentityProviderRepresentation.class));
+                    break;
+                default:
+                    throw new ImportProcessingException("Cannot create %s '%s' in realm '%s'", operation.getType(), operation.getName(), realmName);
+            }
+        }
+
+        logger.debug("Create {} objects in realm '{}'", operations.size(), realmName);
+        realmRepository.partialImport(realmName, partialImport);
+    }
+
+    private void applyUpdate(String realmName, Operation operation) {
+        switch (operation.getType()) {
+            case REALM:
+                break;
+            case CLIENT:
+                clientImportService.updatePlannedClient(realmName, convert(operation, ClientRepresentation.class));
+                break;
+            case REALM_ROLE:
+                roleImportService.updatePlannedRealmRole(realmName, convert(operation, RoleRepresentation.class));
+                break;
+            case CLIENT_ROLE:
+                roleImportService.updatePlannedClientRole(realmName, operation.getParent(), convert(operation, RoleRepresentation.class));
+                break;
+            case GROUP:
+                groupImportService.createOrUpdateGroups(List.of(convert(operation, GroupRepresentation.class)), realmName);
+                break;
+            case IDENTITY_PROVIDER:
+                identityProviderImportService.updatePlannedIdentityProvider(realmName, convert(operation, IdentityProviderRepresentation.class));
+                break;
+            default:
+                throw new ImportProcessingException("Cannot update %s '%s' in realm '%s'", operation.getType(), operation.getName(), realmName);
+        }
+    }
+
+    private <T> T convert(Operation operation, Class<T> type) {
+        return CloneUtil.deepClone(operation.getRepresentation(), type);
+    }
+
+    /**
+     * Writes the plan to import.plan.file, or logs it if no file is configured.
+     */
+    public void writePlan(ImportPlan plan) {
+        String file = importConfigProperties.getPlan().getFile();
+
+        try {
+            if (file == null || file.isEmpty()) {
+                logger.info("Import plan:\n{}", objectMapper.writeValueAsString(plan));
+            } else {
+                objectMapper.writeValue(new File(file), plan);
+                logger.info("Wrote import plan to '{}'", file);
+            }
+        } catch (IOException e) {
+            throw new ImportProcessingException("Cannot write import plan: " + e.getMessage(), e);
+        }
+    }
+
+    public ImportPlan readPlan() {
+        String file = importConfigProperties.getPlan().getFile();
+
+        if (file == null || file.isEmpty()) {
+            throw new ImportProcessingException("import.plan.file is required to apply a plan");
+        }
+
+        try {
+            return objectMapper.readValue(new File(file), ImportPlan.class);
+        } catch (IOException e) {
+            throw new ImportProcessingException("Cannot read import plan '" + file + "': " + e.getMessage(), e);
+        }
+    }
+}
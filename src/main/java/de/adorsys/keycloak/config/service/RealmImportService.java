@@ -23,8 +23,14 @@ package de.adorsys.keycloak.config.service;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.provider.KeycloakProvider;
+import de.adorsys.keycloak.config.repository.ClientRepository;
+import de.adorsys.keycloak.config.repository.ClientScopeRepository;
+import de.adorsys.keycloak.config.repository.GroupRepository;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.repository.RoleRepository;
 import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import de.adorsys.keycloak.config.service.phase.ImportPhase;
+import de.adorsys.keycloak.config.service.phase.ImportPhaseScheduler;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import org.keycloak.representations.idm.RealmRepresentation;
@@ -33,6 +39,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class RealmImportService {
     static final String[] ignoredPropertiesForRealmImport = new String[]{
@@ -63,6 +73,10 @@ public class RealmImportService {
     private static final Logger logger = LoggerFactory.getLogger(RealmImportService.class);
     private final KeycloakProvider keycloakProvider;
     private final RealmRepository realmRepository;
+    private final ClientRepository clientRepository;
+    private final ClientScopeRepository clientScopeRepository;
+    private final RoleRepository roleRepository;
+    private final GroupRepository groupRepository;
 
     private final UserImportService userImportService;
     private final UserProfileImportService userProfileImportService;
@@ -87,12 +101,17 @@ public class RealmImportService {
 
     private final ChecksumService checksumService;
     private final StateService stateService;
+    private final ImportPhaseScheduler importPhaseScheduler;
 
     @Autowired
     public RealmImportService(
             ImportConfigProperties importProperties,
             KeycloakProvider keycloakProvider,
             RealmRepository realmRepository,
+            ClientRepository clientRepository,
+            ClientScopeRepository clientScopeRepository,
+            RoleRepository roleRepository,
+            GroupRepository groupRepository,
             UserImportService userImportService,
             UserProfileImportService userProfileImportService,
             ClientPoliciesImportService clientPoliciesImportService,
@@ -110,10 +129,15 @@ public class RealmImportService {
             ClientScopeMappingImportService clientScopeMappingImportService,
             IdentityProviderImportService identityProviderImportService,
             ChecksumService checksumService,
-            StateService stateService) {
+            StateService stateService,
+            ImportPhaseScheduler importPhaseScheduler) {
         this.importProperties = importProperties;
         this.keycloakProvider = keycloakProvider;
         this.realmRepository = realmRepository;
+        this.clientRepository = clientRepository;
+        this.clientScopeRepository = clientScopeRepository;
+        this.roleRepository = roleRepository;
+        this.groupRepository = groupRepository;
         this.userImportService = userImportService;
         this.userProfileImportService = userProfileImportService;
         this.clientPoliciesImportService = clientPoliciesImportService;
@@ -132,9 +156,12 @@ public class RealmImportService {
         this.identityProviderImportService = identityProviderImportService;
         this.checksumService = checksumService;
         this.stateService = stateService;
+        this.importPhaseScheduler = importPhaseScheduler;
     }
 
     public void doImport(RealmImport realmImport) {
+        evictCachedResources(realmImport.getRealm());
+
         boolean realmExists = realmRepository.exists(realmImport.getRealm());
 
         if (realmExists) {
@@ -144,6 +171,18 @@ public class RealmImportService {
         }
     }
 
+    /*
+     * The repositories cache resources of a realm during an import. The realm may have been changed by others
+     * since the last import, e.g. in watch mode.
+     */
+    private void evictCachedResources(String realmName) {
+        realmRepository.evict(realmName);
+        clientRepository.evict(realmName);
+        clientScopeRepository.evict(realmName);
+        roleRepository.evict(realmName);
+        groupRepository.evict(realmName);
+    }
+
     private void updateRealmIfNecessary(RealmImport realmImport) {
         if (!importProperties.getCache().isEnabled() || checksumService.hasToBeUpdated(realmImport)) {
             setEventsEnabledWorkaround(realmImport);
@@ -175,7 +214,7 @@ public class RealmImportService {
         keycloakProvider.refreshToken();
 
         stateService.loadState(realmImport);
-        configureRealm(realmImport, realm);
+        configureRealm(realmImport, realm, false);
     }
 
     private void updateRealm(RealmImport realmImport) {
@@ -189,31 +228,53 @@ public class RealmImportService {
 
         realmRepository.update(realm);
 
-        configureRealm(realmImport, realm);
+        configureRealm(realmImport, realm, importProperties.getCache().isEnabled());
     }
 
-    private void configureRealm(RealmImport realmImport, RealmRepresentation existingRealm) {
-        clientScopeImportService.doImport(realmImport);
-        clientScopeImportService.updateDefaultClientScopes(realmImport, existingRealm);
-        clientImportService.doImport(realmImport);
-        roleImportService.doImport(realmImport);
-        groupImportService.importGroups(realmImport);
-        defaultGroupsImportService.doImport(realmImport);
-        componentImportService.doImport(realmImport);
-        userProfileImportService.doImport(realmImport);
-        clientPoliciesImportService.doImport(realmImport);
-        userImportService.doImport(realmImport);
-        requiredActionsImportService.doImport(realmImport);
-        authenticationFlowsImportService.doImport(realmImport);
-        authenticatorConfigImportService.doImport(realmImport);
-        clientImportService.doImportDependencies(realmImport);
-        identityProviderImportService.doImport(realmImport);
-        clientAuthorizationImportService.doImport(realmImport);
-        scopeMappingImportService.doImport(realmImport);
-        clientScopeMappingImportService.doImport(realmImport);
-        clientScopeImportService.doRemoveOrphan(realmImport);
+    /*
+     * Unchanged phases are only skipped when an existing realm is updated, a new realm has nothing to compare with.
+     */
+    private void configureRealm(RealmImport realmImport, RealmRepresentation existingRealm, boolean skipUnchangedPhases) {
+        Map<ImportPhase, Runnable> phases = new EnumMap<>(ImportPhase.class);
+        phases.put(ImportPhase.CLIENT_SCOPES, () -> clientScopeImportService.doImport(realmImport));
+        phases.put(ImportPhase.DEFAULT_CLIENT_SCOPES, () -> clientScopeImportService.updateDefaultClientScopes(realmImport, existingRealm));
+        phases.put(ImportPhase.CLIENTS, () -> clientImportService.doImport(realmImport));
+        phases.put(ImportPhase.ROLES, () -> roleImportService.doImport(realmImport));
+        phases.put(ImportPhase.GROUPS, () -> groupImportService.importGroups(realmImport));
+        phases.put(ImportPhase.DEFAULT_GROUPS, () -> defaultGroupsImportService.doImport(realmImport));
+        phases.put(ImportPhase.COMPONENTS, () -> componentImportService.doImport(realmImport));
+        phases.put(ImportPhase.USER_PROFILE, () -> userProfileImportService.doImport(realmImport));
+        phases.put(ImportPhase.CLIENT_POLICIES, () -> clientPoliciesImportService.doImport(realmImport));
+        phases.put(ImportPhase.USERS, () -> userImportService.doImport(realmImport));
+        phases.put(ImportPhase.REQUIRED_ACTIONS, () -> requiredActionsImportService.doImport(realmImport));
+        phases.put(ImportPhase.AUTHENTICATION_FLOWS, () -> authenticationFlowsImportService.doImport(realmImport));
+        phases.put(ImportPhase.AUTHENTICATOR_CONFIG, () -> authenticatorConfigImportService.doImport(realmImport));
+        phases.put(ImportPhase.CLIENT_DEPENDENCIES, () -> clientImportService.doImportDependencies(realmImport));
+        phases.put(ImportPhase.IDENTITY_PROVIDERS, () -> identityProviderImportService.doImport(realmImport));
+        phases.put(ImportPhase.CLIENT_AUTHORIZATION, () -> clientAuthorizationImportService.doImport(realmImport));
+        phases.put(ImportPhase.SCOPE_MAPPINGS, () -> scopeMappingImportService.doImport(realmImport));
+        phases.put(ImportPhase.CLIENT_SCOPE_MAPPINGS, () -> clientScopeMappingImportService.doImport(realmImport));
+        phases.put(ImportPhase.CLIENT_SCOPES_REMOVE_ORPHAN, () -> clientScopeImportService.doRemoveOrphan(realmImport));
+
+        if (skipUnchangedPhases) {
+            skipUnchangedPhases(realmImport, phases);
+        }
+
+        importPhaseScheduler.run(realmImport.getRealm(), phases);
 
         stateService.doImport(realmImport);
         checksumService.doImport(realmImport);
     }
+
+    private void skipUnchangedPhases(RealmImport realmImport, Map<ImportPhase, Runnable> phases) {
+        Set<String> unchangedSections = checksumService.getUnchangedSections(realmImport);
+
+        phases.keySet().removeIf(phase -> {
+            if (!unchangedSections.containsAll(phase.getSections())) return false;
+
+            logger.debug("Skipping {} of realm '{}', import checksums of {} are unchanged",
+                    phase.getDisplayName(), realmImport.getRealm(), phase.getSections());
+            return true;
+        });
+    }
 }
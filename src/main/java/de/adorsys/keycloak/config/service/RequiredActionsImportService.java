@@ -178,7 +178,7 @@ public class RequiredActionsImportService {
             List<RequiredActionProviderRepresentation> existingRequiredActions
     ) {
         if (importConfigProperties.getRemoteState().isEnabled()) {
-            List<String> requiredActionsInState = stateService.getRequiredActions();
+            List<String> requiredActionsInState = stateService.getRequiredActions(realmName);
 
             // ignore all object there are not in state
             existingRequiredActions = existingRequiredActions.stream()
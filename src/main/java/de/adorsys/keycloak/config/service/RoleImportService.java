@@ -20,15 +20,20 @@
 
 package de.adorsys.keycloak.config.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.model.ImportPlan;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.provider.ImportExecutor.Entity;
 import de.adorsys.keycloak.config.repository.RoleRepository;
 import de.adorsys.keycloak.config.service.rolecomposites.client.ClientRoleCompositeImportService;
 import de.adorsys.keycloak.config.service.rolecomposites.realm.RealmRoleCompositeImportService;
 import de.adorsys.keycloak.config.service.state.StateService;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.KeycloakUtil;
+import org.keycloak.representations.idm.RealmRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.RolesRepresentation;
 import org.slf4j.Logger;
@@ -36,11 +41,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -56,18 +63,20 @@ public class RoleImportService {
     private final RoleRepository roleRepository;
     private final ImportConfigProperties importConfigProperties;
     private final StateService stateService;
+    private final ImportExecutor importExecutor;
 
     @Autowired
     public RoleImportService(
             RealmRoleCompositeImportService realmRoleCompositeImportService,
             ClientRoleCompositeImportService clientRoleCompositeImportService,
             RoleRepository roleRepository,
-            ImportConfigProperties importConfigProperties, StateService stateService) {
+            ImportConfigProperties importConfigProperties, StateService stateService, ImportExecutor importExecutor) {
         this.realmRoleCompositeImport = realmRoleCompositeImportService;
         this.clientRoleCompositeImport = clientRoleCompositeImportService;
         this.roleRepository = roleRepository;
         this.importConfigProperties = importConfigProperties;
         this.stateService = stateService;
+        this.importExecutor = importExecutor;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -115,29 +124,115 @@ public class RoleImportService {
         }
     }
 
+    void plan(RealmImport realmImport, RealmRepresentation existingRealm, ImportPlan.RealmPlan realmPlan) {
+        RolesRepresentation roles = realmImport.getRoles();
+        if (roles == null) return;
+
+        String realmName = realmImport.getRealm();
+        boolean isFullManaged = importConfigProperties.getManaged().getRole()
+                == ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues.FULL;
+        RolesRepresentation existingRoles = Optional.ofNullable(existingRealm.getRoles()).orElseGet(RolesRepresentation::new);
+
+        if (roles.getRealm() != null) {
+            List<RoleRepresentation> existingRealmRoles = Optional.ofNullable(existingRoles.getRealm()).orElse(Collections.emptyList());
+
+            if (isFullManaged) {
+                for (RoleRepresentation role : getRealmRolesToDelete(realmName, roles.getRealm(), existingRealmRoles)) {
+                    realmPlan.add(ImportPlan.Action.DELETE, ImportPlan.Type.REALM_ROLE, role.getName(), null,
+                            CloneUtil.deepClone(role, JsonNode.class));
+                }
+            }
+
+            Map<String, RoleRepresentation> existingRealmRolesByName = rolesByName(existingRealmRoles);
+
+            for (RoleRepresentation role : roles.getRealm()) {
+                RoleRepresentation existingRole = existingRealmRolesByName.get(role.getName());
+
+                if (existingRole == null) {
+                    realmPlan.add(ImportPlan.Action.CREATE, ImportPlan.Type.REALM_ROLE, role.getName(), null,
+                            CloneUtil.deepClone(role, JsonNode.class, propertiesWithDependencies));
+                } else if (!CloneUtil.deepEquals(existingRole, patchRealmRole(existingRole, role))) {
+                    realmPlan.add(ImportPlan.Action.UPDATE, ImportPlan.Type.REALM_ROLE, role.getName(), null,
+                            CloneUtil.deepClone(role, JsonNode.class, propertiesWithDependencies));
+                }
+            }
+        }
+
+        if (roles.getClient() != null) {
+            Map<String, List<RoleRepresentation>> existingClientRoles = Optional.ofNullable(existingRoles.getClient())
+                    .orElse(Collections.emptyMap());
+
+            if (isFullManaged) {
+                for (Map.Entry<String, List<RoleRepresentation>> client
+                        : getClientRolesToDelete(realmName, roles.getClient(), existingClientRoles).entrySet()) {
+                    for (RoleRepresentation role : client.getValue()) {
+                        realmPlan.add(ImportPlan.Action.DELETE, ImportPlan.Type.CLIENT_ROLE, role.getName(), client.getKey(),
+                                CloneUtil.deepClone(role, JsonNode.class));
+                    }
+                }
+            }
+
+            for (Map.Entry<String, List<RoleRepresentation>> client : roles.getClient().entrySet()) {
+                String clientId = client.getKey();
+                boolean isClientInImport = realmImport.getClients() != null && realmImport.getClients().stream()
+                        .anyMatch(c -> Objects.equals(c.getClientId(), clientId));
+
+                if (!existingClientRoles.containsKey(clientId) && !isClientInImport) {
+                    throw new ImportProcessingException(String.format(
+                            "Can't create roles for non existing client '%s' in realm '%s'!", clientId, realmName
+                    ));
+                }
+
+                Map<String, RoleRepresentation> existingClientRolesByName = rolesByName(
+                        existingClientRoles.getOrDefault(clientId, Collections.emptyList())
+                );
+
+                for (RoleRepresentation role : client.getValue()) {
+                    RoleRepresentation existingRole = existingClientRolesByName.get(role.getName());
+
+                    if (existingRole == null) {
+                        realmPlan.add(ImportPlan.Action.CREATE, ImportPlan.Type.CLIENT_ROLE, role.getName(), clientId,
+                                CloneUtil.deepClone(role, JsonNode.class, propertiesWithDependencies));
+                    } else if (!CloneUtil.deepEquals(existingRole, CloneUtil.patch(existingRole, role, propertiesWithDependencies))) {
+                        realmPlan.add(ImportPlan.Action.UPDATE, ImportPlan.Type.CLIENT_ROLE, role.getName(), clientId,
+                                CloneUtil.deepClone(role, JsonNode.class, propertiesWithDependencies));
+                    }
+                }
+            }
+        }
+    }
+
+    void updatePlannedRealmRole(String realmName, RoleRepresentation role) {
+        updateRoleIfNeeded(realmName, roleRepository.getRealmRole(realmName, role.getName()), role);
+    }
+
+    void updatePlannedClientRole(String realmName, String clientId, RoleRepresentation role) {
+        updateClientRoleIfNecessary(realmName, clientId, roleRepository.getClientRole(realmName, clientId, role.getName()), role);
+    }
+
+    private Map<String, RoleRepresentation> rolesByName(List<RoleRepresentation> roles) {
+        return roles.stream()
+                .collect(Collectors.toMap(RoleRepresentation::getName, role -> role, (first, second) -> first));
+    }
+
     private void createOrUpdateRealmRoles(
             String realmName,
             List<RoleRepresentation> rolesToImport,
             List<RoleRepresentation> existingRealmRoles
     ) {
-        Consumer<RoleRepresentation> loop = role -> createOrUpdateRealmRole(realmName, role, existingRealmRoles);
-        if (importConfigProperties.isParallel()) {
-            rolesToImport.parallelStream().forEach(loop);
-        } else {
-            rolesToImport.forEach(loop);
-        }
+        Map<String, RoleRepresentation> existingRolesByName = rolesByName(existingRealmRoles);
+
+        importExecutor.forEach(Entity.ROLE, rolesToImport, role -> createOrUpdateRealmRole(realmName, role, existingRolesByName));
     }
 
     private void createOrUpdateRealmRole(
             String realmName,
             RoleRepresentation roleToImport,
-            List<RoleRepresentation> existingRoles
+            Map<String, RoleRepresentation> existingRoles
     ) {
         String roleName = roleToImport.getName();
 
-        RoleRepresentation existingRole = existingRoles.stream()
-                .filter(r -> Objects.equals(r.getName(), roleToImport.getName()))
-                .findFirst().orElse(null);
+        RoleRepresentation existingRole = existingRoles.get(roleName);
 
         if (existingRole != null) {
             updateRoleIfNeeded(realmName, existingRole, roleToImport);
@@ -160,12 +255,15 @@ public class RoleImportService {
             Map<String, List<RoleRepresentation>> rolesToImport,
             Map<String, List<RoleRepresentation>> existingRoles
     ) {
+        Map<String, Map<String, RoleRepresentation>> existingRolesByName = existingRoles.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, client -> rolesByName(client.getValue())));
+
         for (Map.Entry<String, List<RoleRepresentation>> client : rolesToImport.entrySet()) {
             String clientId = client.getKey();
             List<RoleRepresentation> clientRoles = client.getValue();
 
             for (RoleRepresentation role : clientRoles) {
-                createOrUpdateClientRole(realmName, clientId, role, existingRoles);
+                createOrUpdateClientRole(realmName, clientId, role, existingRolesByName);
             }
         }
     }
@@ -174,7 +272,7 @@ public class RoleImportService {
             String realmName,
             String clientId,
             RoleRepresentation roleToImport,
-            Map<String, List<RoleRepresentation>> existingRoles
+            Map<String, Map<String, RoleRepresentation>> existingRoles
     ) {
         String roleName = roleToImport.getName();
 
@@ -185,9 +283,7 @@ public class RoleImportService {
             ));
         }
 
-        RoleRepresentation existingClientRole = existingRoles.get(clientId).stream()
-                .filter(r -> Objects.equals(r.getName(), roleToImport.getName()))
-                .findFirst().orElse(null);
+        RoleRepresentation existingClientRole = existingRoles.get(clientId).get(roleName);
 
         if (existingClientRole != null) {
             updateClientRoleIfNecessary(realmName, clientId, existingClientRole, roleToImport);
@@ -210,10 +306,7 @@ public class RoleImportService {
             RoleRepresentation roleToImport
     ) {
         String roleName = roleToImport.getName();
-        RoleRepresentation patchedRole = CloneUtil.patch(existingRole, roleToImport, propertiesWithDependencies);
-        if (roleToImport.getAttributes() != null) {
-            patchedRole.setAttributes(roleToImport.getAttributes());
-        }
+        RoleRepresentation patchedRole = patchRealmRole(existingRole, roleToImport);
 
         if (!CloneUtil.deepEquals(existingRole, patchedRole)) {
             logger.debug("Update realm-level role '{}' in realm '{}'", roleName, realmName);
@@ -223,6 +316,15 @@ public class RoleImportService {
         }
     }
 
+    private RoleRepresentation patchRealmRole(RoleRepresentation existingRole, RoleRepresentation roleToImport) {
+        RoleRepresentation patchedRole = CloneUtil.patch(existingRole, roleToImport, propertiesWithDependencies);
+        if (roleToImport.getAttributes() != null) {
+            patchedRole.setAttributes(roleToImport.getAttributes());
+        }
+
+        return patchedRole;
+    }
+
     private void updateClientRoleIfNecessary(
             String realmName,
             String clientId,
@@ -244,9 +346,20 @@ public class RoleImportService {
             String realmName,
             List<RoleRepresentation> importedRoles,
             List<RoleRepresentation> existingRoles
+    ) {
+        for (RoleRepresentation existingRole : getRealmRolesToDelete(realmName, importedRoles, existingRoles)) {
+            logger.debug("Delete realm-level role '{}' in realm '{}'", existingRole.getName(), realmName);
+            roleRepository.deleteRealmRole(realmName, existingRole);
+        }
+    }
+
+    private List<RoleRepresentation> getRealmRolesToDelete(
+            String realmName,
+            List<RoleRepresentation> importedRoles,
+            List<RoleRepresentation> existingRoles
     ) {
         if (importConfigProperties.getRemoteState().isEnabled()) {
-            List<String> realmRolesInState = stateService.getRealmRoles();
+            List<String> realmRolesInState = stateService.getRealmRoles(realmName);
 
             // ignore all object there are not in state
             existingRoles = existingRoles.stream()
@@ -258,23 +371,35 @@ public class RoleImportService {
                 .map(RoleRepresentation::getName)
                 .collect(Collectors.toSet());
 
-        for (RoleRepresentation existingRole : existingRoles) {
-            if (KeycloakUtil.isDefaultRole(existingRole) || importedRealmRoles.contains(existingRole.getName())) {
-                continue;
-            }
+        return existingRoles.stream()
+                .filter(role -> !KeycloakUtil.isDefaultRole(role) && !importedRealmRoles.contains(role.getName()))
+                .collect(Collectors.toList());
+    }
 
-            logger.debug("Delete realm-level role '{}' in realm '{}'", existingRole.getName(), realmName);
-            roleRepository.deleteRealmRole(realmName, existingRole);
+    private void deleteClientRolesMissingInImport(
+            String realmName,
+            Map<String, List<RoleRepresentation>> importedClientsRoles,
+            Map<String, List<RoleRepresentation>> existingRoles
+    ) {
+        for (Map.Entry<String, List<RoleRepresentation>> client
+                : getClientRolesToDelete(realmName, importedClientsRoles, existingRoles).entrySet()) {
+            for (RoleRepresentation role : client.getValue()) {
+                logger.debug("Delete client-level role '{}' for client '{}' in realm '{}'",
+                        role.getName(), client.getKey(), realmName);
+                roleRepository.deleteClientRole(realmName, client.getKey(), role);
+            }
         }
     }
 
-    private void deleteClientRolesMissingInImport(
+    private Map<String, List<RoleRepresentation>> getClientRolesToDelete(
             String realmName,
             Map<String, List<RoleRepresentation>> importedClientsRoles,
             Map<String, List<RoleRepresentation>> existingRoles
     ) {
+        Map<String, List<RoleRepresentation>> rolesToDelete = new LinkedHashMap<>();
+
         for (Map.Entry<String, List<RoleRepresentation>> client : existingRoles.entrySet()) {
-            List<RoleRepresentation> managedRoles = getManagedClientRoles(client.getKey(), client.getValue());
+            List<RoleRepresentation> managedRoles = getManagedClientRoles(realmName, client.getKey(), client.getValue());
 
             Set<String> importedClientRoles = importedClientsRoles.containsKey(client.getKey())
                     ? importedClientsRoles.get(client.getKey()).stream()
@@ -282,21 +407,22 @@ public class RoleImportService {
                     .collect(Collectors.toSet())
                     : null;
 
-            for (RoleRepresentation role : managedRoles) {
-                boolean neededToDelete = (importedClientRoles == null || !importedClientRoles.contains(role.getName()))
-                        && !KeycloakUtil.isDefaultRole(role);
-                if (neededToDelete) {
-                    logger.debug("Delete client-level role '{}' for client '{}' in realm '{}'",
-                            role.getName(), client.getKey(), realmName);
-                    roleRepository.deleteClientRole(realmName, client.getKey(), role);
-                }
+            List<RoleRepresentation> clientRolesToDelete = managedRoles.stream()
+                    .filter(role -> (importedClientRoles == null || !importedClientRoles.contains(role.getName()))
+                            && !KeycloakUtil.isDefaultRole(role))
+                    .collect(Collectors.toList());
+
+            if (!clientRolesToDelete.isEmpty()) {
+                rolesToDelete.put(client.getKey(), clientRolesToDelete);
             }
         }
+
+        return rolesToDelete;
     }
 
-    private List<RoleRepresentation> getManagedClientRoles(String client, List<RoleRepresentation> existingRoles) {
+    private List<RoleRepresentation> getManagedClientRoles(String realmName, String client, List<RoleRepresentation> existingRoles) {
         if (importConfigProperties.getRemoteState().isEnabled()) {
-            List<String> clientRolesInState = stateService.getClientRoles(client);
+            List<String> clientRolesInState = stateService.getClientRoles(realmName, client);
             // ignore all object there are not in state
             return existingRoles.stream()
                     .filter(role -> clientRolesInState.contains(role.getName()))
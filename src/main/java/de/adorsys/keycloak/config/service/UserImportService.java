@@ -23,6 +23,8 @@ package de.adorsys.keycloak.config.service;
 import de.adorsys.keycloak.config.exception.InvalidImportException;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.provider.ImportExecutor;
+import de.adorsys.keycloak.config.provider.ImportExecutor.Entity;
 import de.adorsys.keycloak.config.repository.*;
 import de.adorsys.keycloak.config.util.CloneUtil;
 import de.adorsys.keycloak.config.util.KeycloakUtil;
@@ -34,7 +36,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,13 +52,15 @@ public class UserImportService {
     private final ClientRepository clientRepository;
 
     private final ImportConfigProperties importConfigProperties;
+    private final ImportExecutor importExecutor;
 
     @Autowired
     public UserImportService(
             RealmRepository realmRepository, UserRepository userRepository,
             RoleRepository roleRepository,
             GroupRepository groupRepository,
-            ClientRepository clientRepository, ImportConfigProperties importConfigProperties
+            ClientRepository clientRepository, ImportConfigProperties importConfigProperties,
+            ImportExecutor importExecutor
     ) {
         this.realmRepository = realmRepository;
         this.userRepository = userRepository;
@@ -65,6 +68,7 @@ public class UserImportService {
         this.groupRepository = groupRepository;
         this.clientRepository = clientRepository;
         this.importConfigProperties = importConfigProperties;
+        this.importExecutor = importExecutor;
     }
 
     public void doImport(RealmImport realmImport) {
@@ -79,12 +83,7 @@ public class UserImportService {
             return;
         }
 
-        Consumer<UserRepresentation> loop = user -> importUser(realmImport.getRealm(), user);
-        if (importConfigProperties.isParallel()) {
-            users.parallelStream().forEach(loop);
-        } else {
-            users.forEach(loop);
-        }
+        importExecutor.forEach(Entity.USER, users, user -> importUser(realmImport.getRealm(), user));
     }
 
     private void importUser(String realmName, UserRepresentation user) {
@@ -189,12 +188,12 @@ public class UserImportService {
             List<String> groupsToAdd = searchForMissing(userGroupsToUpdate, existingUserGroupsToUpdate);
             if (groupsToAdd.isEmpty()) return;
 
-            List<GroupRepresentation> groups = groupRepository.findGroupsByGroupPath(realmName, groupsToAdd);
+            List<String> groupIds = groupRepository.findGroupIdsByGroupPath(realmName, groupsToAdd);
 
             logger.debug("Add groups {} to user '{}' in realm '{}'",
                     groupsToAdd, userToImport.getUsername(), realmName);
 
-            groupRepository.addGroupsToUser(realmName, userToImport.getUsername(), groups);
+            groupRepository.addGroupsToUser(realmName, userToImport.getUsername(), groupIds);
         }
 
         private void handleGroupsToBeRemoved(
@@ -204,12 +203,12 @@ public class UserImportService {
             List<String> groupsToDelete = searchForMissing(existingUserGroupsToUpdate, userGroupsToUpdate);
             if (groupsToDelete.isEmpty()) return;
 
-            List<GroupRepresentation> groups = groupRepository.findGroupsByGroupPath(realmName, groupsToDelete);
+            List<String> groupIds = groupRepository.findGroupIdsByGroupPath(realmName, groupsToDelete);
 
             logger.debug("Remove groups {} from user '{}' in realm '{}'",
                     groupsToDelete, userToImport.getUsername(), realmName);
 
-            groupRepository.removeGroupsFromUser(realmName, userToImport.getUsername(), groups);
+            groupRepository.removeGroupsFromUser(realmName, userToImport.getUsername(), groupIds);
         }
 
         private void handleRealmRoles() {
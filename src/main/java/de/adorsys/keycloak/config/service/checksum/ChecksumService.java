@@ -20,9 +20,14 @@
 
 package de.adorsys.keycloak.config.service.checksum;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.service.phase.ImportPhase;
+import de.adorsys.keycloak.config.util.ImportContentUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,12 +35,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.text.MessageFormat;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import jakarta.ws.rs.NotFoundException;
 
 @Service
 public class ChecksumService {
     private static final Logger logger = LoggerFactory.getLogger(ChecksumService.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    // realm attribute names are limited to 255 characters
+    private static final int MAX_IMPORT_PART_LENGTH = 100;
 
     private final RealmRepository realmRepository;
     private final ImportConfigProperties importConfigProperties;
@@ -51,19 +66,144 @@ public class ChecksumService {
         Map<String, String> customAttributes = existingRealm.getAttributes();
 
         String importChecksum = realmImport.getChecksum();
+        String importPart = realmImport.getImportPart();
+
+        // the realm checksum is kept for the last imported part, as imports before per-part checksums compare it
         customAttributes.put(getCustomAttributeKey(), importChecksum);
+        customAttributes.put(getPartCustomAttributeKey(importPart), importChecksum);
+
+        // sections missing in the import are removed, to never compare against an outdated checksum
+        getSectionChecksums(realmImport).forEach((section, sectionChecksum) -> {
+            if (sectionChecksum == null) {
+                customAttributes.remove(getSectionCustomAttributeKey(importPart, section));
+            } else {
+                customAttributes.put(getSectionCustomAttributeKey(importPart, section), sectionChecksum);
+            }
+        });
+
+        pruneUnknownImportParts(customAttributes, realmImport);
+
         realmRepository.update(existingRealm);
 
-        logger.debug("Updated import checksum of realm '{}' to '{}'", realmImport.getRealm(), importChecksum);
+        logger.debug("Updated import checksum of realm '{}' part '{}' to '{}'", realmImport.getRealm(), importPart, importChecksum);
+    }
+
+    /*
+     * Removes the checksums of parts whose files were not read in this run, e.g. files removed from or renamed in the
+     * directory of a pattern location.
+     */
+    private void pruneUnknownImportParts(Map<String, String> customAttributes, RealmImport realmImport) {
+        Set<String> knownImportParts = realmImport.getKnownImportParts();
+        if (knownImportParts == null) return;
+
+        String partKeyPrefix = getPartCustomAttributeKey("");
+        Set<String> knownPartKeys = knownImportParts.stream()
+                .map(this::getPartCustomAttributeKey)
+                .collect(Collectors.toSet());
+
+        customAttributes.keySet().removeIf(key -> key.startsWith(partKeyPrefix) && !isKnownPartKey(getPartKey(key), knownPartKeys));
+    }
+
+    private static String getPartKey(String key) {
+        for (String section : ImportPhase.getAllSections()) {
+            String sectionSuffix = MessageFormat.format(ImportConfigProperties.REALM_SECTION_CHECKSUM_ATTRIBUTE_SUFFIX_KEY, section);
+
+            if (key.endsWith(sectionSuffix)) {
+                return key.substring(0, key.length() - sectionSuffix.length());
+            }
+        }
+
+        return key;
+    }
+
+    /*
+     * A file skipped as unchanged is known by its name, its documents by the name and their index.
+     */
+    private static boolean isKnownPartKey(String partKey, Set<String> knownPartKeys) {
+        if (knownPartKeys.contains(partKey)) return true;
+
+        int indexSeparator = partKey.lastIndexOf('-');
+
+        return indexSeparator > 0
+                && StringUtils.isNumeric(partKey.substring(indexSeparator + 1))
+                && knownPartKeys.contains(partKey.substring(0, indexSeparator));
     }
 
     public boolean hasToBeUpdated(RealmImport realmImport) {
         RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
+
+        return !isUpToDate(existingRealm.getAttributes(), realmImport.getImportPart(), realmImport.getChecksum());
+    }
+
+    /**
+     * Returns the sections of the import which have the same checksum as stored by the last import. A section
+     * missing in both counts as unchanged.
+     */
+    public Set<String> getUnchangedSections(RealmImport realmImport) {
+        RealmRepresentation existingRealm = realmRepository.get(realmImport.getRealm());
         Map<String, String> customAttributes = existingRealm.getAttributes();
+        Set<String> unchangedSections = new HashSet<>();
+
+        if (customAttributes == null) return unchangedSections;
+
+        getSectionChecksums(realmImport).forEach((section, sectionChecksum) -> {
+            String storedChecksum = customAttributes.get(getSectionCustomAttributeKey(realmImport.getImportPart(), section));
 
-        String readChecksum = customAttributes.get(getCustomAttributeKey());
+            if (Objects.equals(sectionChecksum, storedChecksum)) {
+                unchangedSections.add(section);
+            }
+        });
 
-        return !Objects.equals(realmImport.getChecksum(), readChecksum);
+        return unchangedSections;
+    }
+
+    /**
+     * Calculates the checksums once per import, before import services could change it.
+     */
+    private Map<String, String> getSectionChecksums(RealmImport realmImport) {
+        Map<String, String> sectionChecksums = realmImport.getSectionChecksums();
+        if (sectionChecksums != null) return sectionChecksums;
+
+        JsonNode realmTree = objectMapper.valueToTree(realmImport);
+        sectionChecksums = new TreeMap<>();
+
+        for (String section : ImportPhase.getAllSections()) {
+            JsonNode sectionTree = realmTree.get(section);
+            boolean missing = sectionTree == null || sectionTree.isNull();
+
+            sectionChecksums.put(section, missing ? null : ImportContentUtil.sha256Hex(sectionTree.toString()));
+        }
+
+        realmImport.setSectionChecksums(sectionChecksums);
+        return sectionChecksums;
+    }
+
+    /**
+     * Checks the stored import checksum without a parsed import, returns false if the realm does not exist.
+     */
+    public boolean isUpToDate(String realmName, String importPart, String checksum) {
+        RealmRepresentation existingRealm;
+
+        try {
+            existingRealm = realmRepository.get(realmName);
+        } catch (NotFoundException e) {
+            return false;
+        }
+
+        return isUpToDate(existingRealm.getAttributes(), importPart, checksum);
+    }
+
+    private boolean isUpToDate(Map<String, String> customAttributes, String importPart, String checksum) {
+        if (customAttributes == null) return false;
+
+        String storedChecksum = customAttributes.get(getPartCustomAttributeKey(importPart));
+
+        // parts imported before per-part checksums only have the realm checksum of the last imported part
+        if (storedChecksum == null) {
+            storedChecksum = customAttributes.get(getCustomAttributeKey());
+        }
+
+        return Objects.equals(checksum, storedChecksum);
     }
 
     private String getCustomAttributeKey() {
@@ -72,4 +212,25 @@ public class ChecksumService {
                 importConfigProperties.getCache().getKey()
         );
     }
+
+    private String getPartCustomAttributeKey(String importPart) {
+        if (importPart == null) return getCustomAttributeKey();
+
+        if (importPart.length() > MAX_IMPORT_PART_LENGTH) {
+            importPart = ImportContentUtil.sha256Hex(importPart).substring(0, 16);
+        }
+
+        return MessageFormat.format(
+                ImportConfigProperties.REALM_PART_CHECKSUM_ATTRIBUTE_PREFIX_KEY,
+                importConfigProperties.getCache().getKey(),
+                importPart
+        );
+    }
+
+    private String getSectionCustomAttributeKey(String importPart, String section) {
+        return getPartCustomAttributeKey(importPart) + MessageFormat.format(
+                ImportConfigProperties.REALM_SECTION_CHECKSUM_ATTRIBUTE_SUFFIX_KEY,
+                section
+        );
+    }
 }
@@ -42,7 +42,7 @@ public class GroupPermissionResolver implements PermissionResolver {
     @Override
     public String resolveObjectId(String groupPath, String authzName) {
         try {
-            return groupRepository.getGroupByPath(realmName, groupPath).getId();
+            return groupRepository.getGroupIdByPath(realmName, groupPath);
         } catch (NotFoundException | KeycloakRepositoryException e) {
             throw new ImportProcessingException("Cannot find group with path '%s' in realm '%s' for '%s'", groupPath, realmName, authzName);
         }
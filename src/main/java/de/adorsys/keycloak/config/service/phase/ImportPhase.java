@@ -0,0 +1,148 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.service.phase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The steps of a realm configuration in their sequential order. Every phase declares the phases it reads or
+ * references entities of, which always come earlier in this order.
+ * <p>
+ * Phases which update the realm representation, or entities which are part of it, never run at the same time,
+ * because a realm update writes the full representation.
+ * <p>
+ * A phase is skipped if none of the sections it reads has changed since the last import. Every phase declares only
+ * its own sections, the sections of its dependencies are added, so a phase runs again whenever a phase it depends
+ * on may have changed something.
+ */
+public enum ImportPhase {
+    CLIENT_SCOPES("clientScopes", false,
+            sections("clientScopes")),
+    DEFAULT_CLIENT_SCOPES("defaultClientScopes", true,
+            sections("defaultDefaultClientScopes", "defaultOptionalClientScopes"),
+            CLIENT_SCOPES),
+    CLIENTS("clients", false,
+            sections("clients"),
+            CLIENT_SCOPES),
+    ROLES("roles", false,
+            sections("roles"),
+            CLIENTS),
+    GROUPS("groups", false,
+            sections("groups"),
+            CLIENTS, ROLES),
+    DEFAULT_GROUPS("defaultGroups", true,
+            sections("defaultGroups"),
+            GROUPS),
+    COMPONENTS("components", false,
+            sections("components"),
+            CLIENTS, ROLES, GROUPS),
+    USER_PROFILE("userProfile", true,
+            sections("userProfile", "attributes"),
+            COMPONENTS),
+    CLIENT_POLICIES("clientPolicies", true,
+            sections("clientProfiles", "clientPolicies"),
+            CLIENT_SCOPES, CLIENTS, ROLES),
+    USERS("users", false,
+            sections("users"),
+            CLIENTS, ROLES, GROUPS, COMPONENTS, USER_PROFILE),
+    REQUIRED_ACTIONS("requiredActions", false,
+            sections("requiredActions")),
+    AUTHENTICATION_FLOWS("authenticationFlows", true,
+            sections("authenticationFlows", "browserFlow", "directGrantFlow", "clientAuthenticationFlow",
+                    "dockerAuthenticationFlow", "registrationFlow", "resetCredentialsFlow"),
+            CLIENTS),
+    AUTHENTICATOR_CONFIG("authenticatorConfig", false,
+            sections("authenticatorConfig"),
+            AUTHENTICATION_FLOWS),
+    CLIENT_DEPENDENCIES("clientDependencies", false,
+            sections("clients"),
+            CLIENTS, AUTHENTICATION_FLOWS),
+    IDENTITY_PROVIDERS("identityProviders", false,
+            sections("identityProviders", "identityProviderMappers"),
+            ROLES, GROUPS, AUTHENTICATION_FLOWS),
+    CLIENT_AUTHORIZATION("clientAuthorization", false,
+            sections("clients"),
+            CLIENT_SCOPES, ROLES, GROUPS, USERS, CLIENT_DEPENDENCIES, IDENTITY_PROVIDERS),
+    SCOPE_MAPPINGS("scopeMappings", false,
+            sections("scopeMappings"),
+            CLIENT_SCOPES, CLIENTS, ROLES),
+    CLIENT_SCOPE_MAPPINGS("clientScopeMappings", false,
+            sections("clientScopeMappings"),
+            CLIENT_SCOPES, CLIENTS, ROLES),
+    CLIENT_SCOPES_REMOVE_ORPHAN("clientScopesRemoveOrphan", false,
+            sections("clientScopes"),
+            DEFAULT_CLIENT_SCOPES, CLIENTS, CLIENT_POLICIES, CLIENT_DEPENDENCIES, CLIENT_AUTHORIZATION,
+            SCOPE_MAPPINGS, CLIENT_SCOPE_MAPPINGS);
+
+    private final String displayName;
+    private final boolean realmRepresentation;
+    private final Set<String> sections;
+    private final List<ImportPhase> dependencies;
+
+    ImportPhase(String displayName, boolean realmRepresentation, List<String> ownSections, ImportPhase... dependencies) {
+        this.displayName = displayName;
+        this.realmRepresentation = realmRepresentation;
+        // EnumSet is not available while the enum constants are initialized
+        this.dependencies = Arrays.asList(dependencies);
+
+        // dependencies are declared earlier, so their sections already include the sections of their dependencies
+        Set<String> allSections = new TreeSet<>(ownSections);
+        for (ImportPhase dependency : dependencies) {
+            allSections.addAll(dependency.sections);
+        }
+        this.sections = Collections.unmodifiableSet(allSections);
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public boolean isRealmRepresentation() {
+        return realmRepresentation;
+    }
+
+    /**
+     * The top-level properties of a realm import which this phase reads, its own and those of all phases it depends
+     * on, directly or transitively.
+     */
+    public Set<String> getSections() {
+        return sections;
+    }
+
+    public List<ImportPhase> getDependencies() {
+        return dependencies;
+    }
+
+    public static Set<String> getAllSections() {
+        Set<String> allSections = new TreeSet<>();
+        for (ImportPhase phase : values()) {
+            allSections.addAll(phase.sections);
+        }
+        return allSections;
+    }
+
+    private static List<String> sections(String... sections) {
+        return Arrays.asList(sections);
+    }
+}
@@ -0,0 +1,184 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.service.phase;
+
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the phases of a realm configuration. With import.parallel-phases greater than one, every phase starts as
+ * soon as its dependencies are done, otherwise the phases run one after another in their declared order.
+ */
+@Component
+public class ImportPhaseScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ImportPhaseScheduler.class);
+
+    private final ImportConfigProperties importConfigProperties;
+
+    @Autowired
+    public ImportPhaseScheduler(ImportConfigProperties importConfigProperties) {
+        this.importConfigProperties = importConfigProperties;
+    }
+
+    public void run(String realmName, Map<ImportPhase, Runnable> phases) {
+        Map<ImportPhase, Long> durations = new ConcurrentHashMap<>();
+        long startTime = System.nanoTime();
+
+        int parallelPhases = importConfigProperties.getParallelPhases();
+        if (parallelPhases <= 1) {
+            phases.forEach((phase, task) -> runPhase(phase, task, durations));
+        } else {
+            runConcurrent(phases, durations, parallelPhases);
+        }
+
+        logReport(realmName, durations, System.nanoTime() - startTime);
+    }
+
+    private void runConcurrent(Map<ImportPhase, Runnable> phases, Map<ImportPhase, Long> durations, int parallelPhases) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelPhases, new CustomizableThreadFactory("kcc-phase-"));
+        Object realmRepresentationLock = new Object();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Map<ImportPhase, CompletableFuture<Void>> scheduledPhases = new EnumMap<>(ImportPhase.class);
+
+        try {
+            // the declared order is a topological order, dependencies are always scheduled first
+            for (Map.Entry<ImportPhase, Runnable> entry : new TreeMap<>(phases).entrySet()) {
+                ImportPhase phase = entry.getKey();
+
+                CompletableFuture<?>[] dependencies = phase.getDependencies().stream()
+                        .map(scheduledPhases::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture[]::new);
+
+                scheduledPhases.put(phase, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    // do not start further phases once a phase has failed
+                    if (failure.get() != null) return;
+
+                    try {
+                        if (phase.isRealmRepresentation()) {
+                            synchronized (realmRepresentationLock) {
+                                runPhase(phase, entry.getValue(), durations);
+                            }
+                        } else {
+                            runPhase(phase, entry.getValue(), durations);
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    }
+                }, executor));
+            }
+
+            try {
+                CompletableFuture.allOf(scheduledPhases.values().toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException ignored) {
+                // the first failure is rethrown below
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error != null) {
+            throw error instanceof RuntimeException ? (RuntimeException) error : new ImportProcessingException(error);
+        }
+    }
+
+    private static void runPhase(ImportPhase phase, Runnable task, Map<ImportPhase, Long> durations) {
+        long startTime = System.nanoTime();
+        task.run();
+        durations.put(phase, System.nanoTime() - startTime);
+    }
+
+    private static void logReport(String realmName, Map<ImportPhase, Long> durations, long totalTime) {
+        List<ImportPhase> criticalPath = getCriticalPath(durations);
+        long criticalPathTime = criticalPath.stream().mapToLong(durations::get).sum();
+
+        if (logger.isDebugEnabled()) {
+            for (ImportPhase phase : ImportPhase.values()) {
+                if (!durations.containsKey(phase)) continue;
+
+                logger.debug("Phase '{}' of realm '{}' took {} ms{}", phase.getDisplayName(), realmName,
+                        TimeUnit.NANOSECONDS.toMillis(durations.get(phase)), criticalPath.contains(phase) ? " (critical path)" : "");
+            }
+        }
+
+        logger.info("Configured realm '{}' in {} ms, critical path {} ms: {}", realmName,
+                TimeUnit.NANOSECONDS.toMillis(totalTime), TimeUnit.NANOSECONDS.toMillis(criticalPathTime),
+                criticalPath.stream()
+                        .map(phase -> phase.getDisplayName() + " (" + TimeUnit.NANOSECONDS.toMillis(durations.get(phase)) + " ms)")
+                        .collect(Collectors.joining(" > ")));
+    }
+
+    /**
+     * The chain of dependent phases with the longest total duration, which bounds the runtime of the realm
+     * configuration regardless of the available concurrency.
+     */
+    static List<ImportPhase> getCriticalPath(Map<ImportPhase, Long> durations) {
+        Map<ImportPhase, Long> finishTimes = new EnumMap<>(ImportPhase.class);
+        Map<ImportPhase, ImportPhase> predecessors = new EnumMap<>(ImportPhase.class);
+        ImportPhase last = null;
+
+        for (ImportPhase phase : ImportPhase.values()) {
+            Long duration = durations.get(phase);
+            if (duration == null) continue;
+
+            long startTime = 0;
+            for (ImportPhase dependency : phase.getDependencies()) {
+                Long dependencyFinishTime = finishTimes.get(dependency);
+                if (dependencyFinishTime != null && dependencyFinishTime > startTime) {
+                    startTime = dependencyFinishTime;
+                    predecessors.put(phase, dependency);
+                }
+            }
+
+            finishTimes.put(phase, startTime + duration);
+            if (last == null || finishTimes.get(phase) > finishTimes.get(last)) {
+                last = phase;
+            }
+        }
+
+        LinkedList<ImportPhase> criticalPath = new LinkedList<>();
+        for (ImportPhase phase = last; phase != null; phase = predecessors.get(phase)) {
+            criticalPath.addFirst(phase);
+        }
+
+        return criticalPath;
+    }
+}
@@ -0,0 +1,402 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Reads import files directly into the target type without building an intermediate object graph.
+ * <p>
+ * JSON content is bound with the Jackson streaming parser. YAML content is translated from the SnakeYAML
+ * event stream into Jackson tokens, one document at a time. Content that uses YAML features which cannot
+ * be translated one-to-one (aliases, merge keys, complex keys, custom tags, non-decimal numbers, timestamps)
+ * is read with {@link #readDocumentsFromObjectTree(ObjectMapper, String, Class)}, which matches the
+ * behavior of previous versions.
+ */
+public class ImportContentUtil {
+    ImportContentUtil() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static final Pattern DECIMAL_INT = Pattern.compile("^[-+]?(0|[1-9][0-9]*)$");
+    private static final Pattern DECIMAL_FLOAT = Pattern.compile("^[-+]?(\\.[0-9]+|[0-9]+(\\.[0-9]*)?)([eE][-+]?[0-9]+)?$");
+
+    private static final Map<String, Boolean> BOOL_VALUES = Map.of(
+            "yes", true, "no", false,
+            "true", true, "false", false,
+            "on", true, "off", false
+    );
+
+    private static final Resolver RESOLVER = new Resolver();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Pattern DOCUMENT_MARKER = Pattern.compile("(?m)^(---|\\.\\.\\.)(\\s|$)");
+    private static final int DIGEST_BUFFER_SIZE = 8192;
+
+    private enum Frame {
+        MAPPING_KEY, MAPPING_VALUE, SEQUENCE
+    }
+
+    public static <T> List<T> readDocuments(ObjectMapper objectMapper, String content, Class<T> type) throws IOException {
+        if (isJsonObject(content)) {
+            try {
+                return readJsonDocuments(objectMapper, content, type);
+            } catch (JsonParseException ignored) {
+                // not strict JSON, let the YAML parser process (and report) it
+            }
+        }
+
+        try {
+            return readYamlDocuments(objectMapper, content, type);
+        } catch (UnsupportedYamlException ignored) {
+            return readDocumentsFromObjectTree(objectMapper, content, type);
+        }
+    }
+
+    /**
+     * Same as {@link org.apache.commons.codec.digest.DigestUtils#sha256Hex(String)}, but encodes the content in
+     * chunks instead of copying it into a byte array first.
+     */
+    public static String sha256Hex(String content) {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        CharBuffer input = CharBuffer.wrap(content);
+        ByteBuffer output = ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+
+        CoderResult result;
+        do {
+            result = encoder.encode(input, output, true);
+            digest.update(output.flip());
+            output.clear();
+        } while (result.isOverflow());
+
+        encoder.flush(output);
+        digest.update(output.flip());
+
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Returns the string value of a top level field without binding the content, or null if the content is not
+     * a single document, the field does not exist or its value is not a string.
+     */
+    public static String readTopLevelString(String content, String fieldName) {
+        if (isJsonObject(content)) {
+            try {
+                return readTopLevelJsonString(content, fieldName);
+            } catch (IOException ignored) {
+                // not strict JSON, try YAML
+            }
+        }
+
+        if (DOCUMENT_MARKER.matcher(content).find()) {
+            return null;
+        }
+
+        try {
+            return readTopLevelYamlString(content, fieldName);
+        } catch (YAMLException ignored) {
+            return null;
+        }
+    }
+
+    static <T> List<T> readDocumentsFromObjectTree(ObjectMapper objectMapper, String content, Class<T> type) {
+        List<T> documents = new ArrayList<>();
+
+        Yaml yaml = new Yaml();
+        for (Object yamlDocument : yaml.loadAll(content)) {
+            documents.add(objectMapper.convertValue(yamlDocument, type));
+        }
+
+        return documents;
+    }
+
+    private static boolean isJsonObject(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{';
+            }
+        }
+
+        return false;
+    }
+
+    private static <T> List<T> readJsonDocuments(ObjectMapper objectMapper, String content, Class<T> type) throws IOException {
+        try (MappingIterator<T> iterator = objectMapper.readerFor(type).readValues(content)) {
+            return iterator.readAll();
+        }
+    }
+
+    private static <T> List<T> readYamlDocuments(ObjectMapper objectMapper, String content, Class<T> type) throws IOException {
+        List<T> documents = new ArrayList<>();
+        Deque<Frame> frames = new ArrayDeque<>();
+        TokenBuffer buffer = null;
+
+        Yaml yaml = new Yaml();
+        for (Event event : yaml.parse(new StringReader(content))) {
+            switch (event.getEventId()) {
+                case DocumentStart:
+                    buffer = new TokenBuffer(objectMapper, false);
+                    break;
+                case DocumentEnd:
+                    documents.add(readDocument(objectMapper, Objects.requireNonNull(buffer), type));
+                    buffer = null;
+                    break;
+                case MappingStart:
+                    checkCollectionTag((CollectionStartEvent) event, Tag.MAP);
+                    beforeCollection(frames);
+                    Objects.requireNonNull(buffer).writeStartObject();
+                    frames.push(Frame.MAPPING_KEY);
+                    break;
+                case MappingEnd:
+                    frames.pop();
+                    Objects.requireNonNull(buffer).writeEndObject();
+                    break;
+                case SequenceStart:
+                    checkCollectionTag((CollectionStartEvent) event, Tag.SEQ);
+                    beforeCollection(frames);
+                    Objects.requireNonNull(buffer).writeStartArray();
+                    frames.push(Frame.SEQUENCE);
+                    break;
+                case SequenceEnd:
+                    frames.pop();
+                    Objects.requireNonNull(buffer).writeEndArray();
+                    break;
+                case Scalar:
+                    writeScalar(Objects.requireNonNull(buffer), frames, (ScalarEvent) event);
+                    break;
+                case Alias:
+                    throw new UnsupportedYamlException();
+                default:
+                    // stream start/end and comments do not produce tokens
+                    break;
+            }
+        }
+
+        return documents;
+    }
+
+    private static String readTopLevelJsonString(String content, String fieldName) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            String value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String currentName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if (fieldName.equals(currentName)) {
+                    value = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            // anything after the first object means multiple documents
+            return parser.nextToken() == null ? value : null;
+        }
+    }
+
+    /*
+     * Stops at the first matching key, so the content behind it is not even tokenized.
+     */
+    private static String readTopLevelYamlString(String content, String fieldName) {
+        int depth = 0;
+        boolean expectKey = true;
+        boolean matched = false;
+
+        Yaml yaml = new Yaml();
+        for (Event event : yaml.parse(new StringReader(content))) {
+            switch (event.getEventId()) {
+                case MappingStart:
+                case SequenceStart:
+                    if ((depth == 0 && event.getEventId() == Event.ID.SequenceStart) || (depth == 1 && (expectKey || matched))) {
+                        return null;
+                    }
+                    depth++;
+                    break;
+                case MappingEnd:
+                case SequenceEnd:
+                    depth--;
+                    expectKey = true;
+                    if (depth == 0) {
+                        return null;
+                    }
+                    break;
+                case Scalar:
+                    if (depth != 1) {
+                        if (depth == 0) {
+                            return null;
+                        }
+                        break;
+                    }
+
+                    ScalarEvent scalar = (ScalarEvent) event;
+                    boolean isString = Tag.STR.equals(resolveTag(scalar));
+                    if (expectKey) {
+                        matched = isString && fieldName.equals(scalar.getValue());
+                        expectKey = false;
+                    } else if (matched) {
+                        return isString ? scalar.getValue() : null;
+                    } else {
+                        expectKey = true;
+                    }
+                    break;
+                case Alias:
+                    if (depth == 1 && (expectKey || matched)) {
+                        return null;
+                    }
+                    if (depth == 1) {
+                        expectKey = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return null;
+    }
+
+    private static <T> T readDocument(ObjectMapper objectMapper, TokenBuffer buffer, Class<T> type) throws IOException {
+        try (JsonParser parser = buffer.asParser()) {
+            return objectMapper.readValue(parser, type);
+        }
+    }
+
+    private static void checkCollectionTag(CollectionStartEvent event, Tag defaultTag) {
+        String tag = event.getTag();
+        if (tag != null && !tag.equals("!") && !tag.equals(defaultTag.getValue())) {
+            throw new UnsupportedYamlException();
+        }
+    }
+
+    private static void beforeCollection(Deque<Frame> frames) {
+        Frame frame = frames.peek();
+
+        if (frame == Frame.MAPPING_KEY) {
+            throw new UnsupportedYamlException();
+        }
+
+        if (frame == Frame.MAPPING_VALUE) {
+            frames.pop();
+            frames.push(Frame.MAPPING_KEY);
+        }
+    }
+
+    private static void writeScalar(TokenBuffer buffer, Deque<Frame> frames, ScalarEvent event) throws IOException {
+        Tag tag = resolveTag(event);
+        String value = event.getValue();
+
+        if (frames.peek() == Frame.MAPPING_KEY) {
+            if (!Tag.STR.equals(tag)) {
+                throw new UnsupportedYamlException();
+            }
+
+            buffer.writeFieldName(value);
+            frames.pop();
+            frames.push(Frame.MAPPING_VALUE);
+            return;
+        }
+
+        if (frames.peek() == Frame.MAPPING_VALUE) {
+            frames.pop();
+            frames.push(Frame.MAPPING_KEY);
+        }
+
+        if (Tag.STR.equals(tag)) {
+            buffer.writeString(value);
+        } else if (Tag.NULL.equals(tag)) {
+            buffer.writeNull();
+        } else if (Tag.BOOL.equals(tag)) {
+            buffer.writeBoolean(BOOL_VALUES.get(value.toLowerCase(Locale.ROOT)));
+        } else if (Tag.INT.equals(tag) && DECIMAL_INT.matcher(value).matches()) {
+            writeInteger(buffer, new BigInteger(value));
+        } else if (Tag.FLOAT.equals(tag) && DECIMAL_FLOAT.matcher(value).matches()) {
+            buffer.writeNumber(Double.parseDouble(value));
+        } else {
+            throw new UnsupportedYamlException();
+        }
+    }
+
+    private static Tag resolveTag(ScalarEvent event) {
+        String tag = event.getTag();
+
+        if (tag == null || tag.equals("!")) {
+            return RESOLVER.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar());
+        }
+
+        return new Tag(tag);
+    }
+
+    /*
+     * Mirror the SnakeYAML constructor, which creates the smallest of Integer, Long and BigInteger.
+     */
+    private static void writeInteger(TokenBuffer buffer, BigInteger value) throws IOException {
+        if (value.bitLength() < Integer.SIZE) {
+            buffer.writeNumber(value.intValue());
+        } else if (value.bitLength() < Long.SIZE) {
+            buffer.writeNumber(value.longValue());
+        } else {
+            buffer.writeNumber(value);
+        }
+    }
+
+    private static class UnsupportedYamlException extends RuntimeException {
+        UnsupportedYamlException() {
+            super(null, null, false, false);
+        }
+    }
+}
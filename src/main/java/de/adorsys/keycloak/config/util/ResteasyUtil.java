@@ -20,7 +20,7 @@
 
 package de.adorsys.keycloak.config.util;
 
-import de.adorsys.keycloak.config.util.resteasy.CookieClientFilter;
+import de.adorsys.keycloak.config.util.resteasy.PooledClientHttpEngineBuilder;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.client.jaxrs.internal.ResteasyClientBuilderImpl;
@@ -35,10 +35,15 @@ public class ResteasyUtil {
         throw new IllegalStateException("Utility class");
     }
 
-    public static ResteasyClient getClient(boolean sslVerification, URL httpProxy, Duration connectTimeout, Duration readTimeout) {
+    @SuppressWarnings({"java:S107"})
+    public static ResteasyClient getClient(boolean sslVerification, URL httpProxy, Duration connectTimeout, Duration readTimeout,
+                                           int poolSize, int maxPerRoute, Duration connectionTtl,
+                                           PooledClientHttpEngineBuilder engineBuilder, Object... providers) {
         ResteasyClientBuilder clientBuilder = new ResteasyClientBuilderImpl();
         clientBuilder
-                .connectionPoolSize(10)
+                .connectionPoolSize(poolSize)
+                .maxPooledPerRoute(maxPerRoute)
+                .connectionTTL(connectionTtl.isZero() ? -1 : connectionTtl.toMillis(), TimeUnit.MILLISECONDS)
                 .connectTimeout(connectTimeout.get(ChronoUnit.NANOS), TimeUnit.NANOSECONDS)
                 .readTimeout(readTimeout.get(ChronoUnit.NANOS), TimeUnit.NANOSECONDS);
 
@@ -61,7 +66,12 @@ public class ResteasyUtil {
             );
         }
 
-        clientBuilder.register(CookieClientFilter.class);
+        for (Object provider : providers) {
+            clientBuilder.register(provider);
+        }
+
+        // the engine is built from the settings above, so it has to be the last step
+        clientBuilder.httpEngine(engineBuilder.resteasyClientBuilder(clientBuilder).build());
 
         return clientBuilder.build();
     }
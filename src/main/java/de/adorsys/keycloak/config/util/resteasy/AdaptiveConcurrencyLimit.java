@@ -0,0 +1,143 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests with additive increase and multiplicative decrease (AIMD).
+ * <p>
+ * A successful request which used the limit raises it by one, while the limit is not used it recovers by one per
+ * limit requests. A dropped request, like a 503 or a connection error, lowers the limit by the backoff ratio.
+ * <p>
+ * Latency is compared with a baseline, the average latency of the recent requests. A request is slow if it takes
+ * longer than the latency tolerance times the baseline. Admin requests differ widely in latency, so a single slow
+ * request is not an overload, only if most of the recent requests are slow the limit is lowered.
+ */
+public class AdaptiveConcurrencyLimit {
+    // the baseline averages about the last 100 requests, the share of slow requests about the last 10
+    private static final int BASELINE_WINDOW = 100;
+    private static final double SLOW_SHARE_SMOOTHING = 0.1;
+    private static final double SLOW_SHARE_THRESHOLD = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+
+    private long samples;
+    private double baselineNanos;
+    private double slowShare;
+
+    private long throttled;
+    private long throttledNanos;
+    private long decreases;
+    private int lowestLimit;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lowestLimit = (int) limit;
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight >= getLimit()) {
+                throttled++;
+
+                long start = System.nanoTime();
+                try {
+                    while (inFlight >= getLimit()) {
+                        available.await();
+                    }
+                } finally {
+                    throttledNanos += System.nanoTime() - start;
+                }
+            }
+
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latencyNanos, boolean dropped) {
+        lock.lock();
+        try {
+            boolean isLimitUsed = inFlight * 2 >= getLimit();
+            inFlight--;
+
+            if (dropped) {
+                decrease();
+            } else {
+                boolean slow = samples > 0 && latencyNanos > baselineNanos * latencyTolerance;
+
+                samples++;
+                baselineNanos += (latencyNanos - baselineNanos) / Math.min(samples, BASELINE_WINDOW);
+                slowShare += ((slow ? 1 : 0) - slowShare) * SLOW_SHARE_SMOOTHING;
+
+                if (slowShare > SLOW_SHARE_THRESHOLD) {
+                    decrease();
+                    slowShare = 0;
+                } else if (!slow) {
+                    limit = Math.min(maxLimit, limit + (isLimitUsed ? 1 : 1 / limit));
+                }
+            }
+
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lowestLimit = Math.min(lowestLimit, getLimit());
+        decreases++;
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    public String getStats() {
+        lock.lock();
+        try {
+            double averageThrottleMillis = throttled == 0 ? 0 : throttledNanos / 1_000_000.0 / throttled;
+
+            return String.format("limit %d (lowest %d, range %d-%d), latency baseline %.2f ms, %d limit decreases, "
+                            + "%d requests throttled, average throttle %.2f ms",
+                    getLimit(), lowestLimit, minLimit, maxLimit, baselineNanos / 1_000_000.0, decreases, throttled, averageThrottleMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
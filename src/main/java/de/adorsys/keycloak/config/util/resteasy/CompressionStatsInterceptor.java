@@ -0,0 +1,118 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.plugins.interceptors.GZIPDecodingInterceptor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+
+/**
+ * Counts the bytes of the responses on the wire and after decoding. The responses are decoded by the RESTEasy
+ * {@link GZIPDecodingInterceptor}, which runs after this interceptor and before the {@link #getDecodedBytesInterceptor()}.
+ */
+@Priority(Priorities.HEADER_DECORATOR)
+public class CompressionStatsInterceptor implements ReaderInterceptor {
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+
+    private final DecodedBytesInterceptor decodedBytesInterceptor = new DecodedBytesInterceptor(decodedBytes);
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        String contentEncoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if ("gzip".equalsIgnoreCase(contentEncoding) || "x-gzip".equalsIgnoreCase(contentEncoding)) {
+            compressedResponses.increment();
+        }
+
+        context.setInputStream(new CountingInputStream(context.getInputStream(), wireBytes));
+        return context.proceed();
+    }
+
+    /**
+     * The interceptor which counts the decoded bytes, it has to be registered together with this interceptor.
+     */
+    public ReaderInterceptor getDecodedBytesInterceptor() {
+        return decodedBytesInterceptor;
+    }
+
+    public String getStats() {
+        return String.format("%d compressed responses, %.1f KiB on the wire, %.1f KiB decoded",
+                compressedResponses.sum(), wireBytes.sum() / 1024.0, decodedBytes.sum() / 1024.0);
+    }
+
+    @Priority(Priorities.USER)
+    private static class DecodedBytesInterceptor implements ReaderInterceptor {
+        private final LongAdder bytes;
+
+        DecodedBytesInterceptor(LongAdder bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+            context.setInputStream(new CountingInputStream(context.getInputStream(), bytes));
+            return context.proceed();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final LongAdder bytes;
+
+        CountingInputStream(InputStream in, LongAdder bytes) {
+            super(in);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result != -1) {
+                bytes.increment();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                bytes.add(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            bytes.add(result);
+            return result;
+        }
+    }
+}
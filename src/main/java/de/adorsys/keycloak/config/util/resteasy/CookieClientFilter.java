@@ -21,38 +21,81 @@
 package de.adorsys.keycloak.config.util.resteasy;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import jakarta.ws.rs.client.ClientRequestContext;
 import jakarta.ws.rs.client.ClientRequestFilter;
 import jakarta.ws.rs.client.ClientResponseContext;
 import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.NewCookie;
 
 // By default, the RESTeasy cookie handling is very limited. There is no access to the underlying httpEngine.
 // The underlying httpEngine uses an old CookieSpec by default which is going to refuse valid cookie today.
 // Instead, build the httpEngine from scratch, we are using a RESTeasy filter to grab a re-attach cookie.
-// Currently, this filter does not valide cookie or is able to remove cookies.
+// Currently, this filter does not valide cookie.
 // A cookie managed is required to handle sticky sessions at cookie base
 
 public class CookieClientFilter implements ClientRequestFilter, ClientResponseFilter {
+    private static final String SENT_COOKIES_PROPERTY = CookieClientFilter.class.getName() + ".sentCookies";
 
     /**
-     * Holds the additional cookies across multiple interactions in the same thread.
+     * Holds the additional cookies across all threads of the client, so parallel imports keep the same sticky session.
      */
-    private final ThreadLocal<Map<String, String>> cookies = ThreadLocal.withInitial(HashMap::new);
+    private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+    private final LongAdder cookieChanges = new LongAdder();
 
     @Override
     public void filter(ClientRequestContext clientRequestContext) {
-        clientRequestContext.getHeaders().put("Cookie", new ArrayList<>(cookies.get().values()));
+        Map<String, String> sentCookies = new HashMap<>(cookies);
+        clientRequestContext.setProperty(SENT_COOKIES_PROPERTY, sentCookies);
+
+        if (!sentCookies.isEmpty()) {
+            clientRequestContext.getHeaders().put("Cookie", new ArrayList<>(sentCookies.values()));
+        }
     }
 
+    /*
+     * A cookie is only replaced by a response to a request which sent the current value. Responses to requests which
+     * were sent before, like the first parallel requests of the run, would switch the session back and forth.
+     */
     @Override
     public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
-        cookies.remove();
-        responseContext.getCookies().forEach((name, cookie) -> cookies.get().put(name, String.format("%s=%s",
-                cookie.toCookie().getName(),
-                cookie.toCookie().getValue()
-        )));
+        @SuppressWarnings("unchecked")
+        Map<String, String> sentCookies = (Map<String, String>) requestContext.getProperty(SENT_COOKIES_PROPERTY);
+        if (sentCookies == null) {
+            sentCookies = Collections.emptyMap();
+        }
+
+        for (NewCookie cookie : responseContext.getCookies().values()) {
+            String name = cookie.getName();
+            String value = String.format("%s=%s", name, cookie.getValue());
+            String sentValue = sentCookies.get(name);
+
+            if (cookie.getMaxAge() == 0) {
+                if (sentValue != null) {
+                    cookies.remove(name, sentValue);
+                }
+            } else if (sentValue == null) {
+                cookies.putIfAbsent(name, value);
+            } else if (!sentValue.equals(value) && cookies.replace(name, sentValue, value)) {
+                cookieChanges.increment();
+            }
+        }
+    }
+
+    /**
+     * The number of responses which replaced a cookie, like a sticky session which switched to another node.
+     */
+    public long getCookieChanges() {
+        return cookieChanges.sum();
+    }
+
+    public String getStats() {
+        return String.format("%d cookies, %d node switches", cookies.size(), getCookieChanges());
     }
 }
@@ -0,0 +1,299 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.jboss.resteasy.plugins.interceptors.GZIPDecodingInterceptor;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+
+/**
+ * Records the requests per templated endpoint, e.g. {@code GET /admin/realms/{realm}/clients/{id}/roles}: the number of
+ * requests, a histogram of the time until the response, including retries, the response statuses and the bytes of the
+ * response bodies on the wire. Requests without a response are not recorded.
+ * The interceptor runs before the RESTEasy {@link GZIPDecodingInterceptor} to count the bytes before decoding.
+ */
+@Priority(Priorities.HEADER_DECORATOR)
+public class HttpMetricsFilter implements ClientRequestFilter, ClientResponseFilter, ReaderInterceptor {
+    /**
+     * The upper bounds of the latency buckets in milliseconds, followed by an unbounded bucket.
+     */
+    static final long[] BUCKETS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private static final String START_PROPERTY = HttpMetricsFilter.class.getName() + ".start";
+    private static final String ENDPOINT_PROPERTY = HttpMetricsFilter.class.getName() + ".endpoint";
+
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    // segments which are followed by the name or id of one of their elements
+    private static final Map<String, String> COLLECTIONS = Map.ofEntries(
+            Map.entry("realms", "{realm}"),
+            Map.entry("roles", "{role}"),
+            Map.entry("roles-by-id", "{id}"),
+            Map.entry("clients", "{id}"),
+            Map.entry("client-scopes", "{id}"),
+            Map.entry("default-client-scopes", "{id}"),
+            Map.entry("optional-client-scopes", "{id}"),
+            Map.entry("default-default-client-scopes", "{id}"),
+            Map.entry("default-optional-client-scopes", "{id}"),
+            Map.entry("default-groups", "{id}"),
+            Map.entry("groups", "{id}"),
+            Map.entry("users", "{id}"),
+            Map.entry("components", "{id}"),
+            Map.entry("models", "{id}"),
+            Map.entry("mappers", "{id}"),
+            Map.entry("instances", "{alias}"),
+            Map.entry("flows", "{alias}"),
+            Map.entry("executions", "{id}"),
+            Map.entry("config", "{id}"),
+            Map.entry("required-actions", "{alias}"),
+            Map.entry("localization", "{locale}")
+    );
+
+    // sub resources which follow a collection, but are no elements of it
+    private static final Set<String> SUB_RESOURCES = Set.of("count", "execution", "flow", "lower-priority", "raise-priority");
+
+    // segments which are followed by a path of any number of segments
+    private static final Map<String, String> PATHS = Map.of("group-by-path", "{path}");
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (!(start instanceof Long)) {
+            return;
+        }
+
+        String method = requestContext.getMethod();
+        String path = template(requestContext.getUri());
+
+        Endpoint endpoint = endpoints.computeIfAbsent(method + " " + path, key -> new Endpoint(method, path));
+        endpoint.record(System.nanoTime() - (Long) start, responseContext.getStatus());
+
+        requestContext.setProperty(ENDPOINT_PROPERTY, endpoint);
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        Object endpoint = context.getProperty(ENDPOINT_PROPERTY);
+        if (endpoint instanceof Endpoint) {
+            context.setInputStream(new CountingInputStream(context.getInputStream(), ((Endpoint) endpoint).bytes));
+        }
+
+        return context.proceed();
+    }
+
+    /**
+     * The recorded endpoints, the ones with the longest total time first.
+     */
+    public List<Endpoint> getEndpoints() {
+        List<Endpoint> result = new ArrayList<>(endpoints.values());
+        result.sort(Comparator.comparingLong(Endpoint::getTotalNanos).reversed()
+                .thenComparing(Endpoint::getPath)
+                .thenComparing(Endpoint::getMethod));
+
+        return result;
+    }
+
+    static String template(URI uri) {
+        String[] segments = uri.getRawPath().split("/", -1);
+
+        String placeholder = null;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+
+            if (PATHS.containsKey(segment) && i + 1 < segments.length) {
+                segments[i + 1] = PATHS.get(segment);
+                return String.join("/", Arrays.copyOf(segments, i + 2));
+            }
+
+            if (placeholder != null && !segment.isEmpty() && !SUB_RESOURCES.contains(segment)) {
+                segments[i] = placeholder;
+                placeholder = null;
+            } else if (UUID.matcher(segment).matches()) {
+                segments[i] = "{id}";
+                placeholder = null;
+            } else {
+                placeholder = COLLECTIONS.get(segment);
+            }
+        }
+
+        return String.join("/", segments);
+    }
+
+    public static class Endpoint {
+        private final String method;
+        private final String path;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder bytes = new LongAdder();
+
+        Endpoint(String method, String path) {
+            this.method = method;
+            this.path = path;
+
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, int status) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * The number of requests per latency bucket, see {@link #BUCKETS}, not cumulative.
+         */
+        public long[] getBuckets() {
+            long[] result = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                result[i] = buckets[i].sum();
+            }
+
+            return result;
+        }
+
+        /**
+         * The upper bound of the latency bucket in milliseconds which contains the given quantile of the requests,
+         * the max latency for the unbounded bucket.
+         */
+        public long getQuantileMillis(double quantile) {
+            long[] counts = getBuckets();
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(BUCKETS[i], TimeUnit.NANOSECONDS.toMillis(getMaxNanos()));
+                }
+            }
+
+            return TimeUnit.NANOSECONDS.toMillis(getMaxNanos());
+        }
+
+        public Map<Integer, Long> getStatuses() {
+            Map<Integer, Long> result = new TreeMap<>();
+            statuses.forEach((status, statusCount) -> result.put(status, statusCount.sum()));
+
+            return result;
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final LongAdder bytes;
+
+        CountingInputStream(InputStream in, LongAdder bytes) {
+            super(in);
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                bytes.increment();
+            }
+
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                bytes.add(read);
+            }
+
+            return read;
+        }
+    }
+}
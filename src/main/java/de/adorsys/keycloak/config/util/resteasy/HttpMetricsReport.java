@@ -0,0 +1,143 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.util.resteasy.HttpMetricsFilter.Endpoint;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Formats the endpoints recorded by the {@link HttpMetricsFilter} as a table for the log, as JSON or in the
+ * Prometheus text format.
+ */
+public class HttpMetricsReport {
+    private static final String METRIC_PREFIX = "keycloak_config_cli_http_";
+
+    HttpMetricsReport() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String toTable(List<Endpoint> endpoints) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%8s %10s %8s %8s %8s %10s  %-20s %s",
+                "count", "total ms", "mean ms", "p95 ms", "max ms", "KiB", "statuses", "endpoint"));
+
+        for (Endpoint endpoint : endpoints) {
+            long totalMillis = TimeUnit.NANOSECONDS.toMillis(endpoint.getTotalNanos());
+
+            table.append(System.lineSeparator()).append(String.format(Locale.ROOT, "%8d %10d %8d %8d %8d %10.1f  %-20s %s %s",
+                    endpoint.getCount(),
+                    totalMillis,
+                    totalMillis / Math.max(1, endpoint.getCount()),
+                    endpoint.getQuantileMillis(0.95),
+                    TimeUnit.NANOSECONDS.toMillis(endpoint.getMaxNanos()),
+                    endpoint.getBytes() / 1024.0,
+                    endpoint.getStatuses().entrySet().stream()
+                            .map(status -> status.getKey() + ":" + status.getValue())
+                            .collect(Collectors.joining(" ")),
+                    endpoint.getMethod(),
+                    endpoint.getPath()
+            ));
+        }
+
+        return table.toString();
+    }
+
+    public static String toJson(List<Endpoint> endpoints) throws JsonProcessingException {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        for (Endpoint endpoint : endpoints) {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            long[] counts = endpoint.getBuckets();
+            for (int i = 0; i < counts.length; i++) {
+                buckets.put(i < HttpMetricsFilter.BUCKETS.length ? String.valueOf(HttpMetricsFilter.BUCKETS[i]) : "+Inf", counts[i]);
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("method", endpoint.getMethod());
+            entry.put("endpoint", endpoint.getPath());
+            entry.put("count", endpoint.getCount());
+            entry.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(endpoint.getTotalNanos()));
+            entry.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(endpoint.getMaxNanos()));
+            entry.put("bytes", endpoint.getBytes());
+            entry.put("statuses", endpoint.getStatuses());
+            entry.put("latencyBucketsMillis", buckets);
+            result.add(entry);
+        }
+
+        return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(result);
+    }
+
+    public static String toPrometheus(List<Endpoint> endpoints) {
+        StringBuilder text = new StringBuilder();
+
+        text.append("# HELP " + METRIC_PREFIX + "request_duration_seconds Time until the response of keycloak requests, including retries\n");
+        text.append("# TYPE " + METRIC_PREFIX + "request_duration_seconds histogram\n");
+        for (Endpoint endpoint : endpoints) {
+            String labels = labels(endpoint);
+            long[] counts = endpoint.getBuckets();
+
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < HttpMetricsFilter.BUCKETS.length ? String.valueOf(HttpMetricsFilter.BUCKETS[i] / 1000.0) : "+Inf";
+                text.append(METRIC_PREFIX + "request_duration_seconds_bucket{").append(labels).append(",le=\"").append(le)
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+
+            text.append(METRIC_PREFIX + "request_duration_seconds_sum{").append(labels).append("} ")
+                    .append(endpoint.getTotalNanos() / 1e9).append('\n');
+            text.append(METRIC_PREFIX + "request_duration_seconds_count{").append(labels).append("} ")
+                    .append(endpoint.getCount()).append('\n');
+        }
+
+        text.append("# HELP " + METRIC_PREFIX + "responses_total Responses of keycloak requests by status\n");
+        text.append("# TYPE " + METRIC_PREFIX + "responses_total counter\n");
+        for (Endpoint endpoint : endpoints) {
+            String labels = labels(endpoint);
+            endpoint.getStatuses().forEach((status, count) -> text.append(METRIC_PREFIX + "responses_total{").append(labels)
+                    .append(",status=\"").append(status).append("\"} ").append(count).append('\n'));
+        }
+
+        text.append("# HELP " + METRIC_PREFIX + "response_bytes_total Bytes of the response bodies of keycloak requests\n");
+        text.append("# TYPE " + METRIC_PREFIX + "response_bytes_total counter\n");
+        for (Endpoint endpoint : endpoints) {
+            text.append(METRIC_PREFIX + "response_bytes_total{").append(labels(endpoint)).append("} ")
+                    .append(endpoint.getBytes()).append('\n');
+        }
+
+        return text.toString();
+    }
+
+    private static String labels(Endpoint endpoint) {
+        return "method=\"" + escape(endpoint.getMethod()) + "\",endpoint=\"" + escape(endpoint.getPath()) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
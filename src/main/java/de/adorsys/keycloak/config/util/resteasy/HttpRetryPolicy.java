@@ -0,0 +1,193 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.RetryPolicy;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Retries idempotent requests which failed with a connection error or one of the retry statuses, with exponential
+ * backoff and jitter. A Retry-After header of the response is used as delay instead, up to the maximum delay.
+ * <p>
+ * Read requests are retried after any connection error and on every retry status. PUT and DELETE are only retried if
+ * the connection could not be established, or on a 429 or 503 retry status with a Retry-After header, which rejects the
+ * request before it is processed. A read timeout or a 502 or 504 of a proxy may come after keycloak applied the change,
+ * and a second DELETE would fail with 404.
+ * <p>
+ * Retries are limited by a budget, which grows with every request. During an outage of keycloak, the import fails
+ * after the budget is used instead of multiplying the load with retries.
+ */
+public class HttpRetryPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(HttpRetryPolicy.class);
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("PUT", "DELETE");
+    private static final Set<Integer> REJECTED_STATUSES = Set.of(429, 503);
+    private static final String CONNECTION_ERROR = "connection error";
+
+    private final Set<Integer> statuses;
+    private final Duration maxDelay;
+    private final double budgetRatio;
+    private final int budgetMinRetries;
+    private final RetryPolicy<Response> safeRetryPolicy;
+    private final RetryPolicy<Response> idempotentRetryPolicy;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder budgetDenied = new LongAdder();
+    private final Map<String, LongAdder> retriesByReason = new ConcurrentHashMap<>();
+
+    @SuppressWarnings({"java:S107"})
+    public HttpRetryPolicy(Set<Integer> statuses, int maxRetries, Duration delay, Duration maxDelay, double jitter,
+                           double budgetRatio, int budgetMinRetries) {
+        this.statuses = statuses;
+        this.maxDelay = maxDelay;
+        this.budgetRatio = budgetRatio;
+        this.budgetMinRetries = budgetMinRetries;
+
+        this.safeRetryPolicy = createRetryPolicy(maxRetries, delay, maxDelay, jitter,
+                ProcessingException.class::isInstance, response -> true);
+        this.idempotentRetryPolicy = createRetryPolicy(maxRetries, delay, maxDelay, jitter,
+                HttpRetryPolicy::isConnectFailure, HttpRetryPolicy::isRejected);
+    }
+
+    private RetryPolicy<Response> createRetryPolicy(int maxRetries, Duration delay, Duration maxDelay, double jitter,
+                                                    Predicate<Throwable> isRetryableFailure, Predicate<Response> isRetryableResponse) {
+        return new RetryPolicy<Response>()
+                .handleIf((response, failure) -> isRetryable(response, failure, isRetryableFailure, isRetryableResponse))
+                .withMaxRetries(maxRetries)
+                .withBackoff(delay.toMillis(), maxDelay.toMillis(), ChronoUnit.MILLIS)
+                .withJitter(jitter)
+                .withDelay((response, failure, context) -> getRetryAfter(response))
+                .onRetry(event -> onRetry(event.getLastResult(), event.getLastFailure(), event.getAttemptCount()))
+                .onRetriesExceeded(event -> exhausted.increment());
+    }
+
+    public Response invoke(String method, Supplier<Response> request) {
+        requests.increment();
+
+        if (SAFE_METHODS.contains(method)) {
+            return Failsafe.with(safeRetryPolicy).get(request::get);
+        }
+
+        if (IDEMPOTENT_METHODS.contains(method)) {
+            return Failsafe.with(idempotentRetryPolicy).get(request::get);
+        }
+
+        return request.get();
+    }
+
+    private boolean isRetryable(Response response, Throwable failure, Predicate<Throwable> isRetryableFailure,
+                                Predicate<Response> isRetryableResponse) {
+        boolean retryable = failure != null
+                ? isRetryableFailure.test(failure)
+                : statuses.contains(response.getStatus()) && isRetryableResponse.test(response);
+
+        if (!retryable) {
+            return false;
+        }
+
+        if (retries.sum() >= budgetMinRetries + budgetRatio * requests.sum()) {
+            budgetDenied.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    /*
+     * The request was not sent if the connection failed. Apache reports connect timeouts as ConnectTimeoutException,
+     * refused connections as HttpHostConnectException, which is a ConnectException.
+     */
+    static boolean isConnectFailure(Throwable failure) {
+        if (!(failure instanceof ProcessingException)) {
+            return false;
+        }
+
+        for (Throwable cause = failure.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /*
+     * A 429 or 503 with Retry-After asks to send the request again later, so it was not processed.
+     */
+    static boolean isRejected(Response response) {
+        return REJECTED_STATUSES.contains(response.getStatus()) && response.getHeaderString(HttpHeaders.RETRY_AFTER) != null;
+    }
+
+    private Duration getRetryAfter(Response response) {
+        if (response == null) {
+            return null;
+        }
+
+        String retryAfter = response.getHeaderString(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null || !retryAfter.matches("\\d+")) {
+            return null;
+        }
+
+        Duration retryAfterDelay = Duration.ofSeconds(Long.parseLong(retryAfter));
+        return retryAfterDelay.compareTo(maxDelay) > 0 ? maxDelay : retryAfterDelay;
+    }
+
+    private void onRetry(Response response, Throwable failure, int attempt) {
+        String reason = response != null ? String.valueOf(response.getStatus()) : CONNECTION_ERROR;
+
+        retries.increment();
+        retriesByReason.computeIfAbsent(reason, key -> new LongAdder()).increment();
+
+        logger.debug("Retry request after attempt #{}: {}", attempt, failure != null ? failure.getMessage() : reason);
+
+        // the response of the failed attempt is not returned to the caller
+        if (response != null) {
+            response.close();
+        }
+    }
+
+    public String getStats() {
+        Map<String, Long> reasons = new TreeMap<>();
+        retriesByReason.forEach((reason, count) -> reasons.put(reason, count.sum()));
+
+        return String.format("%d retries %s, %d requests failed after retries, %d retries denied by the budget",
+                retries.sum(), reasons, exhausted.sum(), budgetDenied.sum());
+    }
+}
@@ -0,0 +1,137 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delegates to a {@link PoolingHttpClientConnectionManager} and records how long requests wait for a pooled connection.
+ */
+public class InstrumentedConnectionManager implements HttpClientConnectionManager {
+    private final PoolingHttpClientConnectionManager delegate;
+    private IdleConnectionEvictor idleConnectionEvictor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger maxPending = new AtomicInteger();
+
+    public InstrumentedConnectionManager(PoolingHttpClientConnectionManager delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Closes connections which have been idle for longer than maxIdleTime in the background.
+     */
+    public void evictIdleConnections(long maxIdleTime, TimeUnit timeUnit) {
+        idleConnectionEvictor = new IdleConnectionEvictor(this, maxIdleTime, timeUnit, maxIdleTime, timeUnit);
+        idleConnectionEvictor.start();
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest connectionRequest = delegate.requestConnection(route, state);
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                maxPending.accumulateAndGet(pending.incrementAndGet(), Math::max);
+
+                try {
+                    return connectionRequest.get(timeout, timeUnit);
+                } finally {
+                    pending.decrementAndGet();
+                    requests.increment();
+                    waitNanos.add(System.nanoTime() - start);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return connectionRequest.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection conn, Object newState, long validDuration, TimeUnit timeUnit) {
+        delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+    }
+
+    @Override
+    public void connect(HttpClientConnection conn, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+        delegate.connect(conn, route, connectTimeout, context);
+    }
+
+    @Override
+    public void upgrade(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        delegate.upgrade(conn, route, context);
+    }
+
+    @Override
+    public void routeComplete(HttpClientConnection conn, HttpRoute route, HttpContext context) throws IOException {
+        delegate.routeComplete(conn, route, context);
+    }
+
+    @Override
+    public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+        delegate.closeIdleConnections(idleTime, timeUnit);
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        delegate.closeExpiredConnections();
+    }
+
+    @Override
+    public void shutdown() {
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdown();
+        }
+
+        delegate.shutdown();
+    }
+
+    public String getStats() {
+        PoolStats poolStats = delegate.getTotalStats();
+        long requestCount = requests.sum();
+        double averageWaitMillis = requestCount == 0 ? 0 : waitNanos.sum() / 1_000_000.0 / requestCount;
+
+        return String.format("max %d, leased %d, available %d, pending %d (peak %d), %d requests, average wait to acquire %.2f ms",
+                poolStats.getMax(), poolStats.getLeased(), poolStats.getAvailable(), poolStats.getPending(), maxPending.get(),
+                requestCount, averageWaitMillis);
+    }
+}
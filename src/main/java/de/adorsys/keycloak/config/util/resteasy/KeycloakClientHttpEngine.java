@@ -0,0 +1,98 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.client.HttpClient;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+
+import java.util.Set;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Runs every request with the {@link HttpRetryPolicy} and every attempt within the {@link AdaptiveConcurrencyLimit}.
+ * The engine is extended instead of using a client filter, because response filters are not called for failed requests,
+ * which would never release their permit. RESTEasy casts the configured engine to the apache engine, so it can not be
+ * wrapped either. The requests are sent with the given http client, which may wrap the one of the engine.
+ */
+public class KeycloakClientHttpEngine extends ApacheHttpClient43Engine {
+    private static final Set<Integer> DROPPED_STATUS = Set.of(429, 502, 503, 504);
+
+    // owns the http client, which is closed together with the engine
+    private final ApacheHttpClient43Engine engine;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final HttpRetryPolicy retryPolicy;
+
+    public KeycloakClientHttpEngine(ApacheHttpClient43Engine engine, HttpClient httpClient, AdaptiveConcurrencyLimit concurrencyLimit,
+                                    HttpRetryPolicy retryPolicy) {
+        super(httpClient, false);
+
+        setResponseBufferSize(engine.getResponseBufferSize());
+        setHostnameVerifier(engine.getHostnameVerifier());
+        setSslContext(engine.getSslContext());
+        setFollowRedirects(engine.isFollowRedirects());
+
+        this.engine = engine;
+        this.concurrencyLimit = concurrencyLimit;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public Response invoke(Invocation request) {
+        if (retryPolicy == null) {
+            return invokeWithinLimit(request);
+        }
+
+        String method = ((ClientInvocation) request).getMethod();
+        return retryPolicy.invoke(method, () -> invokeWithinLimit(request));
+    }
+
+    private Response invokeWithinLimit(Invocation request) {
+        if (concurrencyLimit == null) {
+            return super.invoke(request);
+        }
+
+        try {
+            concurrencyLimit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for the concurrency limit", e);
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            Response response = super.invoke(request);
+            dropped = DROPPED_STATUS.contains(response.getStatus());
+            return response;
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        engine.close();
+    }
+}
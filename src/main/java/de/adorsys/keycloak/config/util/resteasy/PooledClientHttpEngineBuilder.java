@@ -0,0 +1,134 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.jboss.resteasy.client.jaxrs.engines.ClientHttpEngineBuilder43;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Builds the default RESTEasy engine, but keeps its connection pool to instrument it and to configure the idle
+ * connection handling, which is not exposed by the {@link org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder}.
+ * With a {@link AdaptiveConcurrencyLimit} or a {@link HttpRetryPolicy}, the engine runs every request with them.
+ * With coalesced reads, the engine sends its requests with a {@link SingleFlightHttpClient}.
+ */
+public class PooledClientHttpEngineBuilder extends ClientHttpEngineBuilder43 {
+    private final Duration idleTimeout;
+    private final Duration validateAfterInactivity;
+
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private HttpRetryPolicy retryPolicy;
+    private boolean coalesceReads;
+
+    private InstrumentedConnectionManager connectionManager;
+    private SingleFlightHttpClient singleFlightHttpClient;
+
+    public PooledClientHttpEngineBuilder(Duration idleTimeout, Duration validateAfterInactivity) {
+        this.idleTimeout = idleTimeout;
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+
+    public PooledClientHttpEngineBuilder concurrencyLimit(AdaptiveConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        return this;
+    }
+
+    public PooledClientHttpEngineBuilder retryPolicy(HttpRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public PooledClientHttpEngineBuilder coalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+        return this;
+    }
+
+    @Override
+    protected ClientHttpEngine createEngine(HttpClientConnectionManager cm, RequestConfig.Builder rcBuilder, HttpHost defaultProxy,
+                                            int responseBufferSize, HostnameVerifier verifier, SSLContext theContext) {
+        if (cm instanceof PoolingHttpClientConnectionManager) {
+            PoolingHttpClientConnectionManager poolingConnectionManager = (PoolingHttpClientConnectionManager) cm;
+            poolingConnectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+
+            connectionManager = new InstrumentedConnectionManager(poolingConnectionManager);
+            if (!idleTimeout.isZero()) {
+                connectionManager.evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            cm = connectionManager;
+        }
+
+        ClientHttpEngine engine = super.createEngine(cm, rcBuilder, defaultProxy, responseBufferSize, verifier, theContext);
+        if (!(engine instanceof ApacheHttpClient43Engine)) {
+            return engine;
+        }
+
+        ApacheHttpClient43Engine apacheEngine = (ApacheHttpClient43Engine) engine;
+        HttpClient httpClient = apacheEngine.getHttpClient();
+        if (coalesceReads && httpClient instanceof CloseableHttpClient) {
+            singleFlightHttpClient = new SingleFlightHttpClient((CloseableHttpClient) httpClient);
+            httpClient = singleFlightHttpClient;
+        }
+
+        if (concurrencyLimit != null || retryPolicy != null || singleFlightHttpClient != null) {
+            return new KeycloakClientHttpEngine(apacheEngine, httpClient, concurrencyLimit, retryPolicy);
+        }
+
+        return engine;
+    }
+
+    /**
+     * The pool of the built engine, null before {@link #build()} or without a connection pool.
+     */
+    public InstrumentedConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * The limit of concurrent requests, null if disabled.
+     */
+    public AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    /**
+     * The retry policy of requests, null if disabled.
+     */
+    public HttpRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * The http client which coalesces reads, null if disabled.
+     */
+    public SingleFlightHttpClient getSingleFlightHttpClient() {
+        return singleFlightHttpClient;
+    }
+}
@@ -0,0 +1,273 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends identical GET requests which are in flight at the same time only once. Requests are identical if they have the
+ * same uri and the same Authorization and Accept headers. If other requests joined the first one, it reads the response
+ * into memory and every request gets its own copy of it, which RESTEasy deserializes as usual. Otherwise, the response is
+ * streamed as is.
+ * Every other request increments the generation of its realm, or of all realms if the uri has no realm. The generations
+ * are part of the key, so a GET never joins a request which was sent before a write of the same thread has completed.
+ * The RESTEasy engine reads the default request config of its http client, so it is taken from the wrapped one.
+ */
+@SuppressWarnings("deprecation")
+public class SingleFlightHttpClient extends CloseableHttpClient implements Configurable {
+    private static final String GET = "GET";
+    private static final Pattern REALM_PATTERN = Pattern.compile("/realms/([^/?#]+)");
+
+    private final CloseableHttpClient httpClient;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, AtomicLong> realmGenerations = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlightHttpClient(CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+        String uri = request.getRequestLine().getUri();
+        String realm = getRealm(uri);
+
+        if (!GET.equals(request.getRequestLine().getMethod())) {
+            try {
+                return httpClient.execute(target, request, context);
+            } finally {
+                getGeneration(realm).incrementAndGet();
+            }
+        }
+
+        requests.increment();
+
+        String key = String.join(" ",
+                generation.get() + "." + (realm != null ? getGeneration(realm).get() : 0),
+                target.toString(),
+                uri,
+                getHeader(request, HttpHeaders.AUTHORIZATION),
+                getHeader(request, HttpHeaders.ACCEPT)
+        );
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            if (existing.join()) {
+                coalesced.increment();
+                return await(existing.response).copy();
+            }
+
+            // the response of the request in flight is already streamed to its caller
+            return httpClient.execute(target, request, context);
+        }
+
+        CloseableHttpResponse response;
+        try {
+            response = httpClient.execute(target, request, context);
+        } catch (IOException | RuntimeException | Error e) {
+            land(key, flight);
+            flight.response.completeExceptionally(e);
+            throw e;
+        }
+
+        if (land(key, flight) == 0) {
+            return response;
+        }
+
+        try (CloseableHttpResponse closeableResponse = response) {
+            BufferedResponse bufferedResponse = BufferedResponse.read(closeableResponse);
+            flight.response.complete(bufferedResponse);
+            return bufferedResponse.copy();
+        } catch (IOException | RuntimeException | Error e) {
+            flight.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private int land(String key, Flight flight) {
+        inFlight.remove(key, flight);
+        return flight.land();
+    }
+
+    private AtomicLong getGeneration(String realm) {
+        return realm != null ? realmGenerations.computeIfAbsent(realm, name -> new AtomicLong()) : generation;
+    }
+
+    private static String getRealm(String uri) {
+        Matcher matcher = REALM_PATTERN.matcher(uri);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String getHeader(HttpRequest request, String name) {
+        Header header = request.getFirstHeader(name);
+        return header != null ? header.getValue() : "";
+    }
+
+    private static BufferedResponse await(CompletableFuture<BufferedResponse> flight) throws IOException {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ClientProtocolException) {
+                throw new ClientProtocolException(cause.getMessage(), cause);
+            }
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    public String getStats() {
+        return String.format("%d of %d GET requests coalesced", coalesced.sum(), requests.sum());
+    }
+
+    @Override
+    public RequestConfig getConfig() {
+        return httpClient instanceof Configurable ? ((Configurable) httpClient).getConfig() : null;
+    }
+
+    @Override
+    public HttpParams getParams() {
+        return httpClient.getParams();
+    }
+
+    @Override
+    public ClientConnectionManager getConnectionManager() {
+        return httpClient.getConnectionManager();
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private static class Flight {
+        private final CompletableFuture<BufferedResponse> response = new CompletableFuture<>();
+        private int waiters;
+        private boolean landed;
+
+        /**
+         * Returns false if the response is not shared anymore.
+         */
+        synchronized boolean join() {
+            if (landed) {
+                return false;
+            }
+
+            waiters++;
+            return true;
+        }
+
+        synchronized int land() {
+            landed = true;
+            return waiters;
+        }
+    }
+
+    private static class BufferedResponse {
+        private final StatusLine statusLine;
+        private final Header[] headers;
+        private final Header contentType;
+        private final Header contentEncoding;
+        private final byte[] body;
+
+        BufferedResponse(StatusLine statusLine, Header[] headers, Header contentType, Header contentEncoding, byte[] body) {
+            this.statusLine = statusLine;
+            this.headers = headers;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.body = body;
+        }
+
+        static BufferedResponse read(CloseableHttpResponse response) throws IOException {
+            HttpEntity entity = response.getEntity();
+
+            return new BufferedResponse(
+                    response.getStatusLine(),
+                    response.getAllHeaders(),
+                    entity != null ? entity.getContentType() : null,
+                    entity != null ? entity.getContentEncoding() : null,
+                    entity != null ? EntityUtils.toByteArray(entity) : null
+            );
+        }
+
+        CloseableHttpResponse copy() {
+            BufferedHttpResponse response = new BufferedHttpResponse(statusLine);
+            response.setHeaders(headers);
+
+            if (body != null) {
+                ByteArrayEntity entity = new ByteArrayEntity(body);
+                entity.setContentType(contentType);
+                entity.setContentEncoding(contentEncoding);
+                response.setEntity(entity);
+            }
+
+            return response;
+        }
+    }
+
+    private static class BufferedHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        BufferedHttpResponse(StatusLine statusLine) {
+            super(statusLine);
+        }
+
+        @Override
+        public void close() {
+            // the body is in memory, the connection was already released
+        }
+    }
+}
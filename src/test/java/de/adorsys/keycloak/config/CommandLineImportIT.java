@@ -71,6 +71,45 @@ class CommandLineImportIT extends AbstractImportIT {
             assertThat(file2Realm.isEnabled(), is(true));
         }
 
+        @Test
+        @ExpectSystemExitWithStatus(0)
+        void testImportDirectoryPipelined() {
+            KeycloakConfigApplication.main(new String[]{
+                    "--import.files.pipeline=true",
+                    "--import.files.parse-workers=2",
+                    "--import.files.locations=src/test/resources/import-files/cli/dir/*"
+            });
+
+            RealmRepresentation file1Realm = keycloakProvider.getInstance().realm("file1").toRepresentation();
+
+            assertThat(file1Realm.getRealm(), is("file1"));
+            assertThat(file1Realm.isEnabled(), is(true));
+
+            RealmRepresentation file2Realm = keycloakProvider.getInstance().realm("file2").toRepresentation();
+
+            assertThat(file2Realm.getRealm(), is("file2"));
+            assertThat(file2Realm.isEnabled(), is(true));
+        }
+
+        @Test
+        @ExpectSystemExitWithStatus(0)
+        void testImportDirectoryParallelRealms() {
+            KeycloakConfigApplication.main(new String[]{
+                    "--import.parallel-realms=2",
+                    "--import.files.locations=src/test/resources/import-files/cli/dir/*"
+            });
+
+            RealmRepresentation file1Realm = keycloakProvider.getInstance().realm("file1").toRepresentation();
+
+            assertThat(file1Realm.getRealm(), is("file1"));
+            assertThat(file1Realm.isEnabled(), is(true));
+
+            RealmRepresentation file2Realm = keycloakProvider.getInstance().realm("file2").toRepresentation();
+
+            assertThat(file2Realm.getRealm(), is("file2"));
+            assertThat(file2Realm.isEnabled(), is(true));
+        }
+
         @Test
         @ExpectSystemExitWithStatus(1)
         @SuppressWarnings({"java:S2699"})
@@ -99,6 +138,24 @@ class CommandLineImportIT extends AbstractImportIT {
         }
     }
 
+    @Nested
+    @ContextConfiguration()
+    @TestPropertySource(properties = {
+            "import.files.locations=src/test/resources/application-IT.properties",
+            "import.files.pipeline=true",
+    })
+    class CommandLineImportPipelineInvalidIT extends AbstractImportIT {
+        @Autowired
+        KeycloakConfigRunner runner;
+
+        @Test
+        void testInvalidFileFormatException() {
+            InvalidImportException thrown = assertThrows(InvalidImportException.class, runner::run);
+
+            assertThat(thrown.getMessage(), startsWith("Unable to parse file 'file:src/test/resources/application-IT.properties': Cannot construct instance of `de.adorsys.keycloak.config.model.RealmImport`"));
+        }
+    }
+
     @Nested
     @ContextConfiguration()
     @TestPropertySource(properties = {
@@ -22,6 +22,7 @@ package de.adorsys.keycloak.config.properties;
 
 import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportManagedProperties.ImportManagedPropertiesValues;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportPlanProperties.ImportPlanMode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
@@ -42,10 +45,15 @@ import static org.hamcrest.Matchers.is;
         "spring.main.log-startup-info=false",
 
         "import.parallel=true",
+        "import.parallel-realms=4",
+        "import.parallel-phases=3",
         "import.validate=false",
         "import.files.locations=other",
         "import.files.include-hidden-files=true",
         "import.files.excludes=exclude1,exclude2",
+        "import.files.parse-workers=4",
+        "import.files.pipeline=true",
+        "import.files.pipeline-queue-size=8",
         "import.var-substitution.enabled=true",
         "import.var-substitution.nested=false",
         "import.var-substitution.undefined-is-error=false",
@@ -56,6 +64,16 @@ import static org.hamcrest.Matchers.is;
         "import.remote-state.enabled=false",
         "import.remote-state.encryption-key=password",
         "import.remote-state.encryption-salt=0123456789ABCDEFabcdef",
+        "import.watch.enabled=true",
+        "import.watch.interval=5s",
+        "import.plan.mode=plan",
+        "import.plan.file=target/plan.json",
+        "import.executor.threads=32",
+        "import.executor.max-in-flight.client-scope=2",
+        "import.executor.max-in-flight.client=3",
+        "import.executor.max-in-flight.role=4",
+        "import.executor.max-in-flight.group=5",
+        "import.executor.max-in-flight.user=6",
         "import.managed.authentication-flow=no-delete",
         "import.managed.group=no-delete",
         "import.managed.required-action=no-delete",
@@ -83,9 +101,14 @@ class ImportConfigPropertiesTest {
     void shouldPopulateConfigurationProperties() {
         assertThat(properties.isValidate(), is(false));
         assertThat(properties.isParallel(), is(true));
+        assertThat(properties.getParallelRealms(), is(4));
+        assertThat(properties.getParallelPhases(), is(3));
         assertThat(properties.getFiles().getLocations(), contains("other"));
         assertThat(properties.getFiles().getExcludes(), contains("exclude1", "exclude2"));
         assertThat(properties.getFiles().isIncludeHiddenFiles(), is(true));
+        assertThat(properties.getFiles().getParseWorkers(), is(4));
+        assertThat(properties.getFiles().isPipeline(), is(true));
+        assertThat(properties.getFiles().getPipelineQueueSize(), is(8));
         assertThat(properties.getVarSubstitution().isEnabled(), is(true));
         assertThat(properties.getVarSubstitution().isNested(), is(false));
         assertThat(properties.getVarSubstitution().isUndefinedIsError(), is(false));
@@ -96,6 +119,16 @@ class ImportConfigPropertiesTest {
         assertThat(properties.getRemoteState().isEnabled(), is(false));
         assertThat(properties.getRemoteState().getEncryptionKey(), is("password"));
         assertThat(properties.getRemoteState().getEncryptionSalt(), is("0123456789ABCDEFabcdef"));
+        assertThat(properties.getWatch().isEnabled(), is(true));
+        assertThat(properties.getWatch().getInterval(), is(Duration.ofSeconds(5)));
+        assertThat(properties.getPlan().getMode(), is(ImportPlanMode.PLAN));
+        assertThat(properties.getPlan().getFile(), is("target/plan.json"));
+        assertThat(properties.getExecutor().getThreads(), is(32));
+        assertThat(properties.getExecutor().getMaxInFlight().getClientScope(), is(2));
+        assertThat(properties.getExecutor().getMaxInFlight().getClient(), is(3));
+        assertThat(properties.getExecutor().getMaxInFlight().getRole(), is(4));
+        assertThat(properties.getExecutor().getMaxInFlight().getGroup(), is(5));
+        assertThat(properties.getExecutor().getMaxInFlight().getUser(), is(6));
         assertThat(properties.getManaged().getAuthenticationFlow(), is(ImportManagedPropertiesValues.NO_DELETE));
         assertThat(properties.getManaged().getGroup(), is(ImportManagedPropertiesValues.NO_DELETE));
         assertThat(properties.getManaged().getRequiredAction(), is(ImportManagedPropertiesValues.NO_DELETE));
@@ -21,6 +21,9 @@
 package de.adorsys.keycloak.config.properties;
 
 import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties.KeycloakHttpMetricsProperties.KeycloakHttpMetricsFormat;
+import de.adorsys.keycloak.config.properties.KeycloakConfigProperties.KeycloakHttpProperties.KeycloakHttpRetryProperties;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,8 +35,13 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.Set;
+import javax.validation.Validation;
+import javax.validation.Validator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
 
 // From: https://tuhrig.de/testing-configurationproperties-in-spring-boot/
@@ -54,7 +62,33 @@ import static org.hamcrest.core.Is.is;
         "keycloak.read-timeout=20s",
         "keycloak.availability-check.enabled=true",
         "keycloak.availability-check.timeout=60s",
-        "keycloak.availability-check.retry-delay=10s"
+        "keycloak.availability-check.retry-delay=10s",
+        "keycloak.token-refresh.enabled=false",
+        "keycloak.token-refresh.lifetime-ratio=0.75",
+        "keycloak.http.pool-size=20",
+        "keycloak.http.max-per-route=15",
+        "keycloak.http.connection-ttl=5m",
+        "keycloak.http.idle-timeout=1m",
+        "keycloak.http.validate-after-inactivity=500ms",
+        "keycloak.http.compression=false",
+        "keycloak.http.coalesce-reads=true",
+        "keycloak.http.limit.enabled=false",
+        "keycloak.http.limit.initial-limit=8",
+        "keycloak.http.limit.min-limit=2",
+        "keycloak.http.limit.max-limit=16",
+        "keycloak.http.limit.backoff-ratio=0.75",
+        "keycloak.http.limit.latency-tolerance=3.5",
+        "keycloak.http.retry.enabled=false",
+        "keycloak.http.retry.statuses=503",
+        "keycloak.http.retry.max-retries=5",
+        "keycloak.http.retry.delay=1s",
+        "keycloak.http.retry.max-delay=30s",
+        "keycloak.http.retry.jitter=0.5",
+        "keycloak.http.retry.budget-ratio=0.2",
+        "keycloak.http.retry.budget-min-retries=20",
+        "keycloak.http.metrics.enabled=false",
+        "keycloak.http.metrics.file=metrics.json",
+        "keycloak.http.metrics.format=json"
 })
 class KeycloakConfigPropertiesTest {
 
@@ -75,6 +109,45 @@ class KeycloakConfigPropertiesTest {
         assertThat(properties.getAvailabilityCheck().isEnabled(), is(true));
         assertThat(properties.getAvailabilityCheck().getTimeout(), is(Duration.ofSeconds(60L)));
         assertThat(properties.getAvailabilityCheck().getRetryDelay(), is(Duration.ofSeconds(10L)));
+        assertThat(properties.getTokenRefresh().isEnabled(), is(false));
+        assertThat(properties.getTokenRefresh().getLifetimeRatio(), is(0.75));
+        assertThat(properties.getHttp().getPoolSize(), is(20));
+        assertThat(properties.getHttp().getMaxPerRoute(), is(15));
+        assertThat(properties.getHttp().getConnectionTtl(), is(Duration.ofMinutes(5)));
+        assertThat(properties.getHttp().getIdleTimeout(), is(Duration.ofMinutes(1)));
+        assertThat(properties.getHttp().getValidateAfterInactivity(), is(Duration.ofMillis(500)));
+        assertThat(properties.getHttp().isCompression(), is(false));
+        assertThat(properties.getHttp().isCoalesceReads(), is(true));
+        assertThat(properties.getHttp().getLimit().isEnabled(), is(false));
+        assertThat(properties.getHttp().getLimit().getInitialLimit(), is(8));
+        assertThat(properties.getHttp().getLimit().getMinLimit(), is(2));
+        assertThat(properties.getHttp().getLimit().getMaxLimit(), is(16));
+        assertThat(properties.getHttp().getLimit().getBackoffRatio(), is(0.75));
+        assertThat(properties.getHttp().getLimit().getLatencyTolerance(), is(3.5));
+        assertThat(properties.getHttp().getRetry().isEnabled(), is(false));
+        assertThat(properties.getHttp().getRetry().getStatuses(), contains(503));
+        assertThat(properties.getHttp().getRetry().getMaxRetries(), is(5));
+        assertThat(properties.getHttp().getRetry().getDelay(), is(Duration.ofSeconds(1)));
+        assertThat(properties.getHttp().getRetry().getMaxDelay(), is(Duration.ofSeconds(30)));
+        assertThat(properties.getHttp().getRetry().getJitter(), is(0.5));
+        assertThat(properties.getHttp().getRetry().getBudgetRatio(), is(0.2));
+        assertThat(properties.getHttp().getRetry().getBudgetMinRetries(), is(20));
+        assertThat(properties.getHttp().getMetrics().isEnabled(), is(false));
+        assertThat(properties.getHttp().getMetrics().getFile(), is("metrics.json"));
+        assertThat(properties.getHttp().getMetrics().getFormat(), is(KeycloakHttpMetricsFormat.JSON));
+    }
+
+    @Test
+    void shouldRejectRetryDelayNotLessThanMaxDelay() {
+        Validator validator = Validation.byDefaultProvider().configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory().getValidator();
+
+        KeycloakHttpRetryProperties retry = new KeycloakHttpRetryProperties(
+                true, Set.of(503), 3, Duration.ofSeconds(10), Duration.ofSeconds(10), 0.25, 0.1, 10
+        );
+
+        assertThat(validator.validate(retry), hasSize(1));
     }
 
     @EnableConfigurationProperties(KeycloakConfigProperties.class)
@@ -0,0 +1,212 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportExecutorProperties;
+import de.adorsys.keycloak.config.properties.ImportConfigProperties.ImportExecutorProperties.ImportExecutorMaxInFlightProperties;
+import de.adorsys.keycloak.config.provider.ImportExecutor.Entity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@ExtendWith(GithubActionsExtension.class)
+class ImportExecutorTest {
+    private static final List<Integer> ITEMS = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+    private ImportExecutor importExecutor;
+
+    @AfterEach
+    void close() {
+        if (importExecutor != null) {
+            importExecutor.close();
+        }
+    }
+
+    @Test
+    void shouldRunSequentiallyOnCallingThread() {
+        importExecutor = createImportExecutor(false, 4);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger count = new AtomicInteger();
+
+        importExecutor.forEach(Entity.CLIENT, ITEMS, item -> {
+            threads.add(Thread.currentThread());
+            count.incrementAndGet();
+        });
+
+        assertThat(count.get(), is(ITEMS.size()));
+        assertThat(threads, contains(Thread.currentThread()));
+    }
+
+    @Test
+    void shouldRunOnHelpersAndCallingThread() {
+        importExecutor = createImportExecutor(true, 4);
+        Set<Integer> imported = ConcurrentHashMap.newKeySet();
+
+        importExecutor.forEach(Entity.CLIENT, ITEMS, imported::add);
+
+        assertThat(imported, hasSize(ITEMS.size()));
+    }
+
+    @Test
+    void shouldRethrowFirstFailureAndStopOtherItems() {
+        importExecutor = createImportExecutor(true, 4);
+        IllegalStateException failure = new IllegalStateException("failed");
+        AtomicInteger started = new AtomicInteger();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                importExecutor.forEach(Entity.CLIENT, ITEMS, item -> {
+                    started.incrementAndGet();
+                    if (item == 0) throw failure;
+                    sleep(50);
+                })
+        );
+
+        assertThat(thrown, sameInstance(failure));
+        assertThat(started.get(), lessThan(ITEMS.size()));
+    }
+
+    @Test
+    void shouldCancelHelpersOnSaturatedPool() throws InterruptedException {
+        importExecutor = createImportExecutor(true, 1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // occupy the only import thread
+        importExecutor.supplyAsync(() -> {
+            blocked.countDown();
+            await(release);
+            return null;
+        });
+        assertThat(blocked.await(10, TimeUnit.SECONDS), is(true));
+
+        try {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                    importExecutor.forEach(Entity.CLIENT, ITEMS, item -> threads.add(Thread.currentThread()))
+            );
+
+            assertThat(threads, contains(Thread.currentThread()));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shouldRunNestedCallsOnSaturatedPool() {
+        importExecutor = createImportExecutor(true, 1);
+        AtomicInteger count = new AtomicInteger();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                importExecutor.forEach(Entity.CLIENT, ITEMS, client ->
+                        importExecutor.forEach(Entity.ROLE, ITEMS, role -> count.incrementAndGet())
+                )
+        );
+
+        assertThat(count.get(), is(ITEMS.size() * ITEMS.size()));
+    }
+
+    @Test
+    void shouldSupplySequentiallyOnCallingThread() {
+        importExecutor = createImportExecutor(false, 4);
+
+        CompletableFuture<Thread> future = importExecutor.supplyAsync(Thread::currentThread);
+
+        assertThat(future.isDone(), is(true));
+        assertThat(future.getNow(null), sameInstance(Thread.currentThread()));
+    }
+
+    @Test
+    void shouldCompleteSequentialFailureExceptionally() {
+        importExecutor = createImportExecutor(false, 4);
+        IllegalStateException failure = new IllegalStateException("failed");
+
+        CompletableFuture<Object> future = importExecutor.supplyAsync(() -> {
+            throw failure;
+        });
+
+        assertThat(future.isCompletedExceptionally(), is(true));
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> ImportExecutor.join(future));
+        assertThat(thrown, sameInstance(failure));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void shouldCompleteComposedFutures(boolean parallel) throws InterruptedException, ExecutionException, TimeoutException {
+        importExecutor = createImportExecutor(parallel, 4);
+
+        CompletableFuture<Integer> first = importExecutor.supplyAsync(() -> 1).thenApply(value -> value + 1);
+        CompletableFuture<Integer> second = importExecutor.supplyAsync(() -> 3);
+        CompletableFuture<Integer> sum = CompletableFuture.allOf(first, second)
+                .thenApply(ignored -> first.join() + second.join());
+
+        assertThat(sum.get(10, TimeUnit.SECONDS), is(5));
+        assertThat(sum.isDone(), is(true));
+        assertThat(ImportExecutor.joinAll(List.of(first, second)), contains(2, 3));
+    }
+
+    private static ImportExecutor createImportExecutor(boolean parallel, int threads) {
+        ImportExecutorProperties executorProperties = new ImportExecutorProperties(
+                threads, new ImportExecutorMaxInFlightProperties(4, 4, 4, 4, 4)
+        );
+
+        return new ImportExecutor(new ImportConfigProperties(
+                false, parallel, 1, 1, null, null, null, null, null, null, null, null, executorProperties
+        ));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
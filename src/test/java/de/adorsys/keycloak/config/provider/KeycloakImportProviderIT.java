@@ -23,6 +23,7 @@ package de.adorsys.keycloak.config.provider;
 import de.adorsys.keycloak.config.AbstractImportTest;
 import de.adorsys.keycloak.config.exception.InvalidImportException;
 import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.model.RealmImport;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.client.utils.URIBuilder;
 import org.junit.jupiter.api.Nested;
@@ -38,6 +39,8 @@ import org.springframework.test.context.TestPropertySource;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -154,6 +157,38 @@ class KeycloakImportProviderIT extends AbstractImportTest {
         ));
     }
 
+    @Test
+    void shouldIdentifyImportPartsByRelativePath() {
+        String location = "classpath:import-files/import/wildcard/**/*.json";
+        KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(location);
+
+        List<RealmImport> realmImports = keycloakImport.getRealmImports().get(location).values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+
+        assertThat(realmImports.stream().map(RealmImport::getImportPart).collect(Collectors.toList()), contains(
+                "0_create_realm.json",
+                "another/directory/1_update_realm.json",
+                "another/directory/2_update_realm.json",
+                "another/directory/3_update_realm.json",
+                "sub/directory/4_update_realm.json",
+                "sub/directory/5_update_realm.json",
+                "sub/directory/6_update_realm.json"
+        ));
+        assertThat(realmImports.get(realmImports.size() - 1).getKnownImportParts(), hasSize(7));
+    }
+
+    @Test
+    void shouldNotKnowImportPartsOfSingleFile() {
+        String location = "classpath:import-files/import/single/0_create_realm.json";
+        KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(location);
+
+        RealmImport realmImport = keycloakImport.getRealmImports().get(location).values().iterator().next().get(0);
+
+        assertThat(realmImport.getImportPart(), is("0_create_realm.json"));
+        assertThat(realmImport.getKnownImportParts(), is(nullValue()));
+    }
+
     @Test
     void shouldReadLocalFilesFromDoubleWildcardPatternWithoutPrependingSlash() {
         String location = "**/test/resources/import-files/import/wildcard/**/*.json";
@@ -379,6 +414,33 @@ class KeycloakImportProviderIT extends AbstractImportTest {
         }
     }
 
+    @Nested
+    @TestPropertySource(properties = {
+            "import.files.parse-workers=4"
+    })
+    class ParseWorkers extends AbstractImportTest {
+        @Autowired
+        KeycloakImportProvider keycloakImportProvider;
+
+        @Test
+        void shouldReadLocalFilesFromDirectorySorted() {
+            String location = "classpath:import-files/import/sorted/*";
+            KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(location);
+
+            assertThat(keycloakImport.getRealmImports(), hasKey(is(location)));
+            assertThat(keycloakImport.getRealmImports().get(location).keySet(), contains(
+                    matchesPattern(".+/0_create_realm\\.json"),
+                    matchesPattern(".+/1_update_realm\\.json"),
+                    matchesPattern(".+/2_update_realm\\.json"),
+                    matchesPattern(".+/4_update_realm\\.json"),
+                    matchesPattern(".+/5_update_realm\\.json"),
+                    matchesPattern(".+/6_update_realm\\.json"),
+                    matchesPattern(".+/7_update_realm\\.json"),
+                    matchesPattern(".+/9_update_realm\\.json")
+            ));
+        }
+    }
+
     private HttpResponse mockServerResponse(HttpRequest request) throws IOException {
         return response().withBody(
                 IOUtils.toByteArray(
@@ -0,0 +1,85 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.AbstractImportTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@TestPropertySource(properties = {
+        "import.watch.interval=100ms",
+})
+class KeycloakImportWatcherIT extends AbstractImportTest {
+    @Autowired
+    private KeycloakImportWatcher keycloakImportWatcher;
+
+    @Test
+    void shouldNotifyOnChangedFile() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("watch");
+        Path realmFile = Files.writeString(directory.resolve("realm.json"), "{\"enabled\": true, \"realm\": \"realm-watch\"}");
+
+        AtomicInteger changes = new AtomicInteger();
+        Thread watcher = new Thread(() -> keycloakImportWatcher.watch(List.of("file:" + directory + "/*.json"), changes::incrementAndGet));
+        watcher.start();
+
+        try {
+            // the watch service registers the directory asynchronously, write until the change is noticed
+            awaitChange(changes, () -> Files.writeString(realmFile, "{\"enabled\": false, \"realm\": \"realm-watch\"}"));
+            awaitChange(changes, () -> Files.writeString(directory.resolve("users.json"), "{\"realm\": \"realm-watch\", \"users\": []}"));
+        } finally {
+            watcher.interrupt();
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        assertThat(watcher.isAlive(), is(false));
+    }
+
+    private static void awaitChange(AtomicInteger changes, FileWrite write) throws IOException, InterruptedException {
+        int expectedChanges = changes.get() + 1;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (changes.get() < expectedChanges && System.nanoTime() < deadline) {
+            write.run();
+
+            long pollDeadline = Math.min(deadline, System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+            while (changes.get() < expectedChanges && System.nanoTime() < pollDeadline) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+        }
+
+        assertThat(changes.get() >= expectedChanges, is(true));
+    }
+
+    @FunctionalInterface
+    private interface FileWrite {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,152 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.provider;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.keycloak.admin.client.token.TokenManager;
+import org.keycloak.representations.AccessTokenResponse;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(GithubActionsExtension.class)
+class KeycloakTokenRefresherTest {
+    private final KeycloakTokenRefresher tokenRefresher = new KeycloakTokenRefresher(0.5);
+
+    @AfterEach
+    void close() {
+        tokenRefresher.close();
+    }
+
+    @Test
+    void shouldRefreshAfterPartOfLifetime() throws InterruptedException {
+        TokenManager tokenManager = mockTokenManager();
+
+        tokenRefresher.schedule(tokenManager);
+
+        verify(tokenManager, timeout(5000)).refreshToken();
+        awaitStats("1 background refreshes, 0 failures");
+    }
+
+    @Test
+    void shouldCountFailedRefresh() throws InterruptedException {
+        TokenManager tokenManager = mockTokenManager();
+        when(tokenManager.refreshToken()).thenThrow(new IllegalStateException("unavailable"));
+
+        tokenRefresher.schedule(tokenManager);
+
+        verify(tokenManager, timeout(5000)).refreshToken();
+        awaitStats("0 background refreshes, 1 failures");
+    }
+
+    @Test
+    void shouldNotRefreshAfterClose() throws InterruptedException {
+        TokenManager tokenManager = mockTokenManager();
+
+        tokenRefresher.schedule(tokenManager);
+        tokenRefresher.close();
+
+        TimeUnit.MILLISECONDS.sleep(1500);
+        verify(tokenManager, never()).refreshToken();
+    }
+
+    @Test
+    void shouldStopSchedulerThreadOnClose() throws InterruptedException {
+        Set<Thread> otherThreads = getSchedulerThreads();
+
+        tokenRefresher.schedule(mockTokenManager());
+        Set<Thread> schedulerThreads = getSchedulerThreads();
+        schedulerThreads.removeAll(otherThreads);
+        assertThat(schedulerThreads, hasSize(1));
+
+        tokenRefresher.close();
+
+        Thread schedulerThread = schedulerThreads.iterator().next();
+        schedulerThread.join(TimeUnit.SECONDS.toMillis(10));
+        assertThat(schedulerThread.isAlive(), is(false));
+    }
+
+    @Test
+    void shouldNotHoldLockWhileReadingToken() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TokenManager tokenManager = mockTokenManager();
+        when(tokenManager.getAccessToken()).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return getToken();
+        });
+
+        CompletableFuture<Void> schedule = CompletableFuture.runAsync(() -> tokenRefresher.schedule(tokenManager));
+        try {
+            assertThat(reading.await(10, TimeUnit.SECONDS), is(true));
+
+            // a token request in progress must not block the refresher
+            assertTimeoutPreemptively(Duration.ofSeconds(1), tokenRefresher::close);
+        } finally {
+            release.countDown();
+        }
+
+        schedule.get(10, TimeUnit.SECONDS);
+    }
+
+    private static TokenManager mockTokenManager() {
+        TokenManager tokenManager = mock(TokenManager.class);
+        when(tokenManager.getAccessToken()).thenReturn(getToken());
+        return tokenManager;
+    }
+
+    private static AccessTokenResponse getToken() {
+        // refreshed after the minimum delay of one second
+        AccessTokenResponse token = new AccessTokenResponse();
+        token.setExpiresIn(1);
+        return token;
+    }
+
+    private void awaitStats(String stats) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!stats.equals(tokenRefresher.getStats()) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertThat(tokenRefresher.getStats(), is(stats));
+    }
+
+    private static Set<Thread> getSchedulerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("kcc-token-"))
+                .collect(Collectors.toSet());
+    }
+}
@@ -100,6 +100,27 @@ public class ImportClientPoliciesIT extends AbstractImportIT {
         assertThat(parsedClientPolicies.getPolicies()).first().extracting(ClientPolicyRepresentation::getName).isEqualTo("acme-client-policy");
     }
 
+    @Test
+    @Order(6)
+    void shouldUpdateRealmWithClientPoliciesAndAuthenticationFlows() throws IOException {
+        doImport("05_update_realm_with_client_policies_and_auth_flows.json");
+
+        var realm = assertRealm();
+
+        // the authentication flows are imported after the client policies and update the realm with its cached representation
+        assertThat(realm.getBrowserFlow()).isEqualTo("my auth flow");
+
+        var parsedClientProfiles = realm.getParsedClientProfiles();
+        assertThat(parsedClientProfiles.getProfiles()).hasSize(1);
+        assertThat(parsedClientProfiles.getProfiles()).first().extracting(ClientProfileRepresentation::getName).isEqualTo("acme-client-profile");
+
+        var parsedClientPolicies = realm.getParsedClientPolicies();
+        assertThat(parsedClientPolicies.getPolicies()).hasSize(1);
+        assertThat(parsedClientPolicies.getPolicies()).first().extracting(ClientPolicyRepresentation::getName)
+                .isEqualTo("acme-client-policy-with-flows");
+        assertThat(parsedClientPolicies.getPolicies().get(0).getProfiles()).containsExactly("acme-client-profile");
+    }
+
     private RealmRepresentation assertRealm() {
         var realm = keycloakProvider.getInstance().realm(REALM_NAME).toRepresentation();
         assertThat(realm.getRealm()).isEqualTo(REALM_NAME);
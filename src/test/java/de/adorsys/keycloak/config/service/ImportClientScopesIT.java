@@ -23,17 +23,20 @@ package de.adorsys.keycloak.config.service;
 import de.adorsys.keycloak.config.AbstractImportIT;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.repository.ClientScopeRepository;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.representations.idm.ClientScopeRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -43,6 +46,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class ImportClientScopesIT extends AbstractImportIT {
     private static final String REALM_NAME = "realmWithClientScopes";
 
+    @Autowired
+    private ClientScopeRepository clientScopeRepository;
+
     ImportClientScopesIT() {
         this.resourcePath = "import-files/client-scopes";
     }
@@ -373,6 +379,43 @@ class ImportClientScopesIT extends AbstractImportIT {
         assertThat(clientScopes.stream().allMatch(s -> defaultClientScopes.stream().anyMatch(d -> Objects.equals(s.getName(), d.getName()))), is(true));
     }
 
+    @Test
+    @Order(100)
+    void shouldFindClientScopeCreatedOutOfBand() {
+        ClientScopeRepresentation clientScope = new ClientScopeRepresentation();
+        clientScope.setName("out-of-band-scope");
+        clientScope.setProtocol("openid-connect");
+        keycloakProvider.getInstance().realm(REALM_NAME).clientScopes().create(clientScope).close();
+
+        ClientScopeRepresentation foundClientScope = clientScopeRepository.getByName(REALM_NAME, "out-of-band-scope");
+        assertThat(foundClientScope, notNullValue());
+        assertThat(foundClientScope.getProtocol(), is("openid-connect"));
+        assertThat(clientScopeRepository.searchByName(REALM_NAME, "unknown-scope"), is(Optional.empty()));
+
+        clientScopeRepository.delete(REALM_NAME, foundClientScope.getId());
+
+        assertThat(clientScopeRepository.searchByName(REALM_NAME, "out-of-band-scope"), is(Optional.empty()));
+    }
+
+    @Test
+    @Order(101)
+    void shouldFindClientScopeCreatedOutOfBandAfterItWasMissing() {
+        assertThat(clientScopeRepository.searchByName(REALM_NAME, "late-out-of-band-scope"), is(Optional.empty()));
+
+        ClientScopeRepresentation clientScope = new ClientScopeRepresentation();
+        clientScope.setName("late-out-of-band-scope");
+        clientScope.setProtocol("openid-connect");
+        keycloakProvider.getInstance().realm(REALM_NAME).clientScopes().create(clientScope).close();
+
+        // reading all client scopes again forgets the missing names
+        clientScopeRepository.getAll(REALM_NAME);
+
+        ClientScopeRepresentation foundClientScope = clientScopeRepository.getByName(REALM_NAME, "late-out-of-band-scope");
+        assertThat(foundClientScope, notNullValue());
+
+        clientScopeRepository.delete(REALM_NAME, foundClientScope.getId());
+    }
+
     private List<ClientScopeRepresentation> getClientScopes(RealmRepresentation realmExport) {
         return realmExport.getClientScopes();
     }
@@ -27,6 +27,7 @@ import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
 import de.adorsys.keycloak.config.model.RealmImport;
 import de.adorsys.keycloak.config.properties.ImportConfigProperties;
 import de.adorsys.keycloak.config.properties.KeycloakConfigProperties;
+import de.adorsys.keycloak.config.repository.ClientRepository;
 import de.adorsys.keycloak.config.util.VersionUtil;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -55,6 +56,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -84,6 +86,9 @@ class ImportClientsIT extends AbstractImportIT {
     @Autowired
     private KeycloakConfigProperties properties;
 
+    @Autowired
+    private ClientRepository clientRepository;
+
     ImportClientsIT() {
         this.resourcePath = "import-files/clients";
     }
@@ -2557,6 +2562,40 @@ class ImportClientsIT extends AbstractImportIT {
         assertThat(otherClient, nullValue());
     }
 
+    @Test
+    @Order(99)
+    void shouldFindClientCreatedOutOfBand() {
+        ClientRepresentation client = new ClientRepresentation();
+        client.setClientId("out-of-band-client");
+        client.setName("Out-of-band client");
+        keycloakProvider.getInstance().realm(REALM_NAME).clients().create(client).close();
+
+        ClientRepresentation foundClient = clientRepository.getByName(REALM_NAME, "Out-of-band client");
+        assertThat(foundClient.getClientId(), is("out-of-band-client"));
+        assertThat(clientRepository.getByClientId(REALM_NAME, "out-of-band-client").getId(), is(foundClient.getId()));
+        assertThat(clientRepository.searchByName(REALM_NAME, "Unknown client"), is(Optional.empty()));
+    }
+
+    @Test
+    @Order(100)
+    void shouldReindexRenamedClient() {
+        ClientRepresentation client = clientRepository.getByClientId(REALM_NAME, "out-of-band-client");
+        client.setClientId("renamed-out-of-band-client");
+        client.setName("Renamed out-of-band client");
+
+        clientRepository.update(REALM_NAME, client);
+
+        assertThat(clientRepository.getByClientId(REALM_NAME, "renamed-out-of-band-client").getId(), is(client.getId()));
+        assertThat(clientRepository.getByName(REALM_NAME, "Renamed out-of-band client").getId(), is(client.getId()));
+        assertThat(clientRepository.searchByClientId(REALM_NAME, "out-of-band-client"), is(Optional.empty()));
+        assertThat(clientRepository.searchByName(REALM_NAME, "Out-of-band client"), is(Optional.empty()));
+
+        clientRepository.remove(REALM_NAME, client);
+
+        assertThat(clientRepository.searchByClientId(REALM_NAME, "renamed-out-of-band-client"), is(Optional.empty()));
+        assertThat(clientRepository.searchByName(REALM_NAME, "Renamed out-of-band client"), is(Optional.empty()));
+    }
+
     /**
      * @param id (not client-id)
      */
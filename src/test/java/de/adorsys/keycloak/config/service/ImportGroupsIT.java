@@ -21,28 +21,41 @@
 package de.adorsys.keycloak.config.service;
 
 import de.adorsys.keycloak.config.AbstractImportIT;
+import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.repository.GroupRepository;
+import de.adorsys.keycloak.config.repository.UserRepository;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.keycloak.admin.client.resource.GroupsResource;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SuppressWarnings({"java:S5961", "java:S5976"})
 class ImportGroupsIT extends AbstractImportIT {
     private static final String REALM_NAME = "realmWithGroups";
 
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
     ImportGroupsIT() {
         this.resourcePath = "import-files/groups";
     }
@@ -1714,6 +1727,57 @@ class ImportGroupsIT extends AbstractImportIT {
         assertThat(realm.getGroups(), is(nullValue()));
     }
 
+    @Test
+    @Order(100)
+    void shouldFindSubGroupCreatedOutOfBand() {
+        GroupRepresentation parentGroup = new GroupRepresentation();
+        parentGroup.setName("Out-of-band Group");
+        groupRepository.createGroup(REALM_NAME, parentGroup);
+
+        String parentGroupId = groupRepository.getGroupIdByPath(REALM_NAME, "/Out-of-band Group");
+
+        GroupRepresentation subGroup = new GroupRepresentation();
+        subGroup.setName("Out-of-band Sub Group");
+        keycloakProvider.getInstance().realm(REALM_NAME).groups().group(parentGroupId).subGroup(subGroup).close();
+
+        GroupRepresentation foundSubGroup = groupRepository.getSubGroupByName(REALM_NAME, parentGroupId, "Out-of-band Sub Group");
+        assertThat(foundSubGroup, notNullValue());
+        assertThat(foundSubGroup.getPath(), is("/Out-of-band Group/Out-of-band Sub Group"));
+
+        assertThat(groupRepository.getGroupIdByPath(REALM_NAME, "/Out-of-band Group/Out-of-band Sub Group"), is(foundSubGroup.getId()));
+        assertThat(groupRepository.findGroupIdsByGroupPath(REALM_NAME, List.of("/Out-of-band Group", "/Out-of-band Group/Out-of-band Sub Group")),
+                contains(parentGroupId, foundSubGroup.getId()));
+
+        ImportProcessingException thrown = assertThrows(ImportProcessingException.class,
+                () -> groupRepository.findGroupIdsByGroupPath(REALM_NAME, List.of("/Out-of-band Group/Unknown Group")));
+        assertThat(thrown.getMessage(), is("Could not find group '/Out-of-band Group/Unknown Group' in realm '" + REALM_NAME + "'!"));
+    }
+
+    @Test
+    @Order(101)
+    void shouldJoinGroupsResolvedByPath() {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername("out-of-band-user");
+        user.setEnabled(true);
+        userRepository.create(REALM_NAME, user);
+
+        List<String> groupIds = groupRepository.findGroupIdsByGroupPath(REALM_NAME, List.of("/Out-of-band Group/Out-of-band Sub Group"));
+        groupRepository.addGroupsToUser(REALM_NAME, "out-of-band-user", groupIds);
+
+        UserRepresentation createdUser = userRepository.get(REALM_NAME, "out-of-band-user");
+        assertThat(userRepository.getGroups(REALM_NAME, createdUser).stream().map(GroupRepresentation::getPath).collect(Collectors.toList()),
+                contains("/Out-of-band Group/Out-of-band Sub Group"));
+
+        groupRepository.removeGroupsFromUser(REALM_NAME, "out-of-band-user", groupIds);
+
+        assertThat(userRepository.getGroups(REALM_NAME, createdUser), is(empty()));
+
+        keycloakProvider.getInstance().realm(REALM_NAME).users().get(createdUser.getId()).remove();
+        groupRepository.deleteGroup(REALM_NAME, groupRepository.getGroupIdByPath(REALM_NAME, "/Out-of-band Group"));
+
+        assertThat(tryToLoadGroup("/Out-of-band Group").isPresent(), is(false));
+    }
+
     private GroupRepresentation loadGroup(String groupPath) {
         GroupsResource groupsResource = keycloakProvider.getInstance()
                 .realm(REALM_NAME)
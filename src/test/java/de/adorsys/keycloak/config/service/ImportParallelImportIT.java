@@ -37,6 +37,7 @@ import static org.hamcrest.core.Is.is;
 @TestPropertySource(properties = {
         "import.cache.enabled=false",
         "import.parallel=true",
+        "import.parallel-phases=4",
         "import.behaviors.skip-attributes-for-federated-user=true",
 })
 class ImportParallelImportIT extends AbstractImportIT {
@@ -0,0 +1,151 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.service;
+
+import de.adorsys.keycloak.config.AbstractImportIT;
+import de.adorsys.keycloak.config.model.ImportPlan;
+import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.repository.RealmRepository;
+import de.adorsys.keycloak.config.repository.StateRepository;
+import de.adorsys.keycloak.config.service.checksum.ChecksumService;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@TestPropertySource(properties = {
+        "import.plan.file=target/import-plan.json",
+})
+class ImportPlanIT extends AbstractImportIT {
+    private static final String REALM_NAME = "realmWithPlan";
+
+    @Autowired
+    public ImportPlanService importPlanService;
+
+    @Autowired
+    public RealmRepository realmRepository;
+
+    @Autowired
+    public StateRepository stateRepository;
+
+    @Autowired
+    public ChecksumService checksumService;
+
+    ImportPlanIT() {
+        this.resourcePath = "import-files/plan";
+    }
+
+    @Test
+    @Order(0)
+    void shouldPlanAndApplyNewRealm() throws IOException {
+        RealmImport realmImport = getFirstImport("0_create_realm.json");
+        ImportPlan plan = importPlanService.plan(List.of(realmImport));
+
+        assertThat(getOperations(plan), contains("CREATE REALM realmWithPlan"));
+        assertThat(realmRepository.exists(REALM_NAME), is(false));
+
+        importPlanService.apply(plan);
+
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).partialExport(true, true);
+        assertThat(realm.isEnabled(), is(true));
+        assertThat(getClient(realm, "client-a").getDescription(), is("first client"));
+        assertThat(getGroupNames(realm), contains("group-a"));
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        assertThat(stateRepository.getState(REALM_NAME, "clients"), contains("client-a"));
+        assertThat(checksumService.isUpToDate(REALM_NAME, realmImport.getImportPart(), realmImport.getChecksum()), is(true));
+    }
+
+    @Test
+    @Order(1)
+    void shouldPlanChangesWithoutWriting() throws IOException {
+        ImportPlan plan = importPlanService.plan(getImport("1_update_realm.json"));
+
+        assertThat(getOperations(plan), containsInAnyOrder(
+                "UPDATE REALM realmWithPlan",
+                "UPDATE CLIENT client-a",
+                "CREATE CLIENT client-b",
+                "CREATE REALM_ROLE role-b",
+                "CREATE GROUP group-b",
+                "DELETE GROUP group-a"
+        ));
+        assertThat(plan.getRealms().get(0).getUnplannedSections(), contains("requiredActions"));
+
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).partialExport(true, true);
+        assertThat(realm.getDisplayName(), is(nullValue()));
+        assertThat(getClient(realm, "client-a").getDescription(), is("first client"));
+        assertThat(getClient(realm, "client-b"), is(nullValue()));
+        assertThat(getGroupNames(realm), contains("group-a"));
+
+        importPlanService.writePlan(plan);
+    }
+
+    @Test
+    @Order(2)
+    void shouldApplyWrittenPlan() throws IOException {
+        importPlanService.apply(importPlanService.readPlan());
+
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).partialExport(true, true);
+        assertThat(realm.getDisplayName(), is("Realm with plan"));
+        assertThat(getClient(realm, "client-a").getDescription(), is("changed client"));
+        assertThat(getClient(realm, "client-b").getRedirectUris(), contains("https://client-b.example.com/*"));
+        assertThat(realm.getRoles().getRealm().stream().map(RoleRepresentation::getName).collect(Collectors.toList()),
+                hasItems("role-a", "role-b"));
+        assertThat(getGroupNames(realm), contains("group-b"));
+
+        stateRepository.loadCustomAttributes(REALM_NAME);
+        assertThat(stateRepository.getState(REALM_NAME, "clients"), containsInAnyOrder("client-a", "client-b"));
+
+        // the plan does not include the required actions, the next regular import must not skip them
+        RealmImport realmImport = getFirstImport("1_update_realm.json");
+        assertThat(checksumService.isUpToDate(REALM_NAME, realmImport.getImportPart(), realmImport.getChecksum()), is(false));
+
+        ImportPlan plan = importPlanService.plan(getImport("1_update_realm.json"));
+        assertThat(plan.getRealms().get(0).getOperations(), is(empty()));
+    }
+
+    private List<String> getOperations(ImportPlan plan) {
+        return plan.getRealms().stream()
+                .flatMap(realmPlan -> realmPlan.getOperations().stream())
+                .map(operation -> operation.getAction() + " " + operation.getType() + " " + operation.getName())
+                .collect(Collectors.toList());
+    }
+
+    private ClientRepresentation getClient(RealmRepresentation realm, String clientId) {
+        return realm.getClients().stream()
+                .filter(client -> clientId.equals(client.getClientId()))
+                .findFirst().orElse(null);
+    }
+
+    private List<String> getGroupNames(RealmRepresentation realm) {
+        return realm.getGroups().stream().map(GroupRepresentation::getName).collect(Collectors.toList());
+    }
+}
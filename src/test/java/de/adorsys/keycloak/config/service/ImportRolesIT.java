@@ -24,6 +24,8 @@ import de.adorsys.keycloak.config.AbstractImportIT;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
 import de.adorsys.keycloak.config.model.RealmImport;
+import de.adorsys.keycloak.config.repository.RoleCompositeRepository;
+import de.adorsys.keycloak.config.repository.RoleRepository;
 import de.adorsys.keycloak.config.util.VersionUtil;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Order;
@@ -35,6 +37,8 @@ import org.springframework.test.context.TestPropertySource;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -48,6 +52,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 class ImportRolesIT extends AbstractImportIT {
     private static final String REALM_NAME = "realmWithRoles";
 
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleCompositeRepository roleCompositeRepository;
+
     ImportRolesIT() {
         this.resourcePath = "import-files/roles";
     }
@@ -1052,6 +1062,50 @@ class ImportRolesIT extends AbstractImportIT {
         assertThat(composites.getRealm(), is(nullValue()));
     }
 
+    @Test
+    @Order(72)
+    void shouldFindRealmRoleCreatedOutOfBand() {
+        assertThat(roleRepository.searchRealmRole(REALM_NAME, "out_of_band_role"), is(Optional.empty()));
+
+        RoleRepresentation role = new RoleRepresentation();
+        role.setName("out_of_band_role");
+        keycloakProvider.getInstance().realm(REALM_NAME).roles().create(role);
+
+        assertThat(roleRepository.getRealmRole(REALM_NAME, "out_of_band_role").getName(), is("out_of_band_role"));
+
+        keycloakProvider.getInstance().realm(REALM_NAME).roles().deleteRole("out_of_band_role");
+
+        // reading all realm roles again replaces the catalog
+        assertThat(roleRepository.getRealmRoles(REALM_NAME).stream().map(RoleRepresentation::getName).collect(Collectors.toList()),
+                not(hasItem("out_of_band_role")));
+        assertThat(roleRepository.searchRealmRole(REALM_NAME, "out_of_band_role"), is(Optional.empty()));
+    }
+
+    @Test
+    @Order(73)
+    void shouldReadRealmRoleAgainAfterCompositesChanged() {
+        RoleRepresentation compositeRole = new RoleRepresentation();
+        compositeRole.setName("out_of_band_composite_role");
+        roleRepository.createRealmRole(REALM_NAME, compositeRole);
+
+        RoleRepresentation childRole = new RoleRepresentation();
+        childRole.setName("out_of_band_child_role");
+        roleRepository.createRealmRole(REALM_NAME, childRole);
+
+        assertThat(roleRepository.getRealmRole(REALM_NAME, "out_of_band_composite_role").isComposite(), is(false));
+
+        roleCompositeRepository.addRealmRoleRealmComposites(REALM_NAME, "out_of_band_composite_role", Set.of("out_of_band_child_role"));
+
+        assertThat(roleRepository.getRealmRole(REALM_NAME, "out_of_band_composite_role").isComposite(), is(true));
+
+        roleCompositeRepository.removeRealmRoleRealmComposites(REALM_NAME, "out_of_band_composite_role", Set.of("out_of_band_child_role"));
+
+        assertThat(roleRepository.getRealmRole(REALM_NAME, "out_of_band_composite_role").isComposite(), is(false));
+
+        roleRepository.deleteRealmRole(REALM_NAME, roleRepository.getRealmRole(REALM_NAME, "out_of_band_composite_role"));
+        roleRepository.deleteRealmRole(REALM_NAME, roleRepository.getRealmRole(REALM_NAME, "out_of_band_child_role"));
+    }
+
     @SuppressWarnings("SpringJavaAutowiredMembersInspection")
     @Nested
     @Order(60)
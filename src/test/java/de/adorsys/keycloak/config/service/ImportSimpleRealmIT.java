@@ -24,11 +24,16 @@ import de.adorsys.keycloak.config.AbstractImportIT;
 import de.adorsys.keycloak.config.exception.ImportProcessingException;
 import de.adorsys.keycloak.config.exception.InvalidImportException;
 import de.adorsys.keycloak.config.exception.KeycloakRepositoryException;
+import de.adorsys.keycloak.config.model.KeycloakImport;
+import de.adorsys.keycloak.config.model.RealmImport;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.keycloak.representations.idm.RealmRepresentation;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -77,6 +82,23 @@ class ImportSimpleRealmIT extends AbstractImportIT {
         );
     }
 
+    @Test
+    @Order(1)
+    void shouldSkipUnchangedSimpleRealmFile() {
+        String location = "classpath:" + resourcePath + "/00.1_update_simple-realm_with_same_config.json";
+
+        KeycloakImport skippedImport = keycloakImportProvider.readFromLocations(List.of(location), true);
+        List<RealmImport> skippedParts = skippedImport.getRealmImports().get(location).values().iterator().next();
+
+        assertThat(skippedParts, is(empty()));
+
+        KeycloakImport fullImport = keycloakImportProvider.readFromLocations(List.of(location), false);
+        List<RealmImport> parts = fullImport.getRealmImports().get(location).values().iterator().next();
+
+        assertThat(parts, hasSize(1));
+        assertThat(parts.get(0).getRealm(), is(REALM_NAME));
+    }
+
     @Test
     @Order(2)
     void shouldUpdateSimpleRealm() throws IOException {
@@ -218,6 +240,11 @@ class ImportSimpleRealmIT extends AbstractImportIT {
         assertThat(realm.getDefaultOptionalClientScopes(), notNullValue());
         assertThat(realm.getDefaultDefaultClientScopes(), contains("email"));
         assertThat(realm.getDefaultOptionalClientScopes(), contains("address"));
+        assertThat(
+                realm.getAttributes().get("de.adorsys.keycloak.config.import-checksum-default-part-10.1_update_simple-realm_add_defaultScopes.json"
+                        + "-section-defaultDefaultClientScopes"),
+                is(notNullValue())
+        );
 
         doImport("10.2_update_simple-realm_change_defaultScopes.json");
 
@@ -238,6 +265,11 @@ class ImportSimpleRealmIT extends AbstractImportIT {
         assertThat(realm.getDefaultOptionalClientScopes(), notNullValue());
         assertThat(realm.getDefaultDefaultClientScopes(), contains("address"));
         assertThat(realm.getDefaultOptionalClientScopes(), contains("email"));
+        assertThat(
+                realm.getAttributes().get("de.adorsys.keycloak.config.import-checksum-default-part-10.3_update_simple-realm_skip_defaultScopes.json"
+                        + "-section-defaultDefaultClientScopes"),
+                is(nullValue())
+        );
 
         doImport("10.4_update_simple-realm_remove_defaultScopes.json");
 
@@ -275,6 +307,115 @@ class ImportSimpleRealmIT extends AbstractImportIT {
         assertThat(thrown.getMessage(), is("Could not find client scope 'non-exist' in realm 'simple'!"));
     }
 
+    @Test
+    @Order(11)
+    void shouldSkipUnchangedPartsOfSplitRealm() throws IOException {
+        doImport("11.1_update_simple-realm_split_realm-roles.json");
+        doImport("11.2_update_simple-realm_split_groups.json");
+
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).toRepresentation();
+
+        assertThat(realm.getAttributes(), allOf(
+                hasKey("de.adorsys.keycloak.config.import-checksum-default-part-11.1_update_simple-realm_split_realm-roles.json"),
+                hasKey("de.adorsys.keycloak.config.import-checksum-default-part-11.2_update_simple-realm_split_groups.json")
+        ));
+
+        List<String> locations = List.of(
+                "classpath:" + resourcePath + "/11.1_update_simple-realm_split_realm-roles.json",
+                "classpath:" + resourcePath + "/11.2_update_simple-realm_split_groups.json"
+        );
+
+        KeycloakImport keycloakImport = keycloakImportProvider.readFromLocations(locations, true);
+
+        for (String location : locations) {
+            List<RealmImport> parts = keycloakImport.getRealmImports().get(location).values().iterator().next();
+            assertThat(parts, is(empty()));
+        }
+    }
+
+    @Test
+    @Order(12)
+    void shouldPruneChecksumsOfRemovedParts() throws IOException {
+        Path directory = Files.createTempDirectory("simple-realm");
+        Files.writeString(directory.resolve("a.json"), "{\"enabled\": true, \"realm\": \"simple\"}");
+        Files.createDirectory(directory.resolve("sub"));
+        Files.writeString(directory.resolve("sub/a.json"), "{\"enabled\": true, \"realm\": \"simple\", \"displayName\": \"a\"}");
+
+        String location = "file:" + directory.toAbsolutePath() + "/**/*.json";
+        String partKeyPrefix = "de.adorsys.keycloak.config.import-checksum-default-part-";
+
+        doImportLocation(location);
+
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).toRepresentation();
+        assertThat(realm.getAttributes(), allOf(
+                hasKey(partKeyPrefix + "a.json"),
+                hasKey(partKeyPrefix + "sub/a.json"),
+                not(hasKey(partKeyPrefix + "11.1_update_simple-realm_split_realm-roles.json"))
+        ));
+
+        Files.delete(directory.resolve("sub/a.json"));
+        doImportLocation(location);
+
+        realm = keycloakProvider.getInstance().realm(REALM_NAME).toRepresentation();
+        assertThat(realm.getAttributes(), allOf(
+                hasKey(partKeyPrefix + "a.json"),
+                not(hasKey(partKeyPrefix + "sub/a.json")),
+                not(hasKey(partKeyPrefix + "sub/a.json-section-clients"))
+        ));
+    }
+
+    @Test
+    @Order(13)
+    void shouldSkipUnchangedUsersPartsWhenOnlyRealmPartChanged() throws IOException {
+        Path directory = Files.createTempDirectory("simple-realm");
+        Files.writeString(directory.resolve("simple-realm.json"), "{\"enabled\": true, \"realm\": \"simple\", \"displayName\": \"a\"}");
+        Files.writeString(directory.resolve("simple-users-0.json"),
+                "{\"enabled\": true, \"realm\": \"simple\", \"users\": [{\"username\": \"split-user-0\", \"enabled\": true}]}");
+        Files.writeString(directory.resolve("simple-users-1.json"),
+                "{\"enabled\": true, \"realm\": \"simple\", \"users\": [{\"username\": \"split-user-1\", \"enabled\": true}]}");
+
+        String location = "file:" + directory.toAbsolutePath() + "/*.json";
+        String partKeyPrefix = "de.adorsys.keycloak.config.import-checksum-default-part-";
+
+        doImportLocation(location);
+
+        Files.writeString(directory.resolve("simple-realm.json"), "{\"enabled\": true, \"realm\": \"simple\", \"displayName\": \"b\"}");
+
+        Map<String, List<RealmImport>> parts = keycloakImportProvider.readFromLocations(List.of(location), true)
+                .getRealmImports().get(location);
+
+        assertThat(parts.keySet(), contains(
+                matchesPattern(".+/simple-realm\\.json"),
+                matchesPattern(".+/simple-users-0\\.json"),
+                matchesPattern(".+/simple-users-1\\.json")
+        ));
+
+        List<List<RealmImport>> realmImports = List.copyOf(parts.values());
+        assertThat(realmImports.get(0), hasSize(1));
+        assertThat(realmImports.get(1), is(empty()));
+        assertThat(realmImports.get(2), is(empty()));
+
+        realmImportService.doImport(realmImports.get(0).get(0));
+
+        RealmRepresentation realm = keycloakProvider.getInstance().realm(REALM_NAME).toRepresentation();
+        assertThat(realm.getDisplayName(), is("b"));
+        assertThat(realm.getAttributes(), allOf(
+                hasKey(partKeyPrefix + "simple-realm.json"),
+                hasKey(partKeyPrefix + "simple-users-0.json"),
+                hasKey(partKeyPrefix + "simple-users-1.json")
+        ));
+
+        parts = keycloakImportProvider.readFromLocations(List.of(location), true).getRealmImports().get(location);
+        for (List<RealmImport> skippedParts : parts.values()) {
+            assertThat(skippedParts, is(empty()));
+        }
+    }
+
+    private void doImportLocation(String location) {
+        keycloakImportProvider.readFromLocations(location).getRealmImports().get(location).values()
+                .forEach(realmImports -> realmImports.forEach(realmImportService::doImport));
+    }
+
     @Test
     @Order(80)
     void shouldNotUpdateSimpleRealmWithInvalidProperty() {
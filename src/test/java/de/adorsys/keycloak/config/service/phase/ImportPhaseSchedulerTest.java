@@ -0,0 +1,96 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.service.phase;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+@ExtendWith(GithubActionsExtension.class)
+class ImportPhaseSchedulerTest {
+    @Test
+    void shouldOnlyDependOnEarlierPhases() {
+        for (ImportPhase phase : ImportPhase.values()) {
+            for (ImportPhase dependency : phase.getDependencies()) {
+                assertThat(dependency.ordinal(), lessThan(phase.ordinal()));
+            }
+        }
+    }
+
+    @Test
+    void shouldReadOwnSections() {
+        for (ImportPhase phase : ImportPhase.values()) {
+            assertThat(phase.getSections(), not(empty()));
+        }
+
+        assertThat(ImportPhase.getAllSections(), hasItems("clients", "roles", "users", "authenticationFlows"));
+    }
+
+    @Test
+    void shouldReadSectionsOfDependencies() {
+        for (ImportPhase phase : ImportPhase.values()) {
+            for (ImportPhase dependency : phase.getDependencies()) {
+                assertThat(phase.getSections(), hasItems(dependency.getSections().toArray(new String[0])));
+            }
+        }
+
+        assertThat(ImportPhase.USERS.getSections(), hasItems("users", "groups", "roles", "clients", "components", "userProfile"));
+        assertThat(ImportPhase.COMPONENTS.getSections(), hasItems("components", "clients", "roles", "groups"));
+    }
+
+    @Test
+    void shouldFindCriticalPath() {
+        Map<ImportPhase, Long> durations = new EnumMap<>(ImportPhase.class);
+        for (ImportPhase phase : ImportPhase.values()) {
+            durations.put(phase, 1L);
+        }
+        durations.put(ImportPhase.AUTHENTICATION_FLOWS, 100L);
+        durations.put(ImportPhase.IDENTITY_PROVIDERS, 50L);
+
+        assertThat(ImportPhaseScheduler.getCriticalPath(durations), contains(
+                ImportPhase.CLIENT_SCOPES,
+                ImportPhase.CLIENTS,
+                ImportPhase.AUTHENTICATION_FLOWS,
+                ImportPhase.IDENTITY_PROVIDERS,
+                ImportPhase.CLIENT_AUTHORIZATION,
+                ImportPhase.CLIENT_SCOPES_REMOVE_ORPHAN
+        ));
+    }
+
+    @Test
+    void shouldIgnoreMissingPhases() {
+        Map<ImportPhase, Long> durations = new EnumMap<>(ImportPhase.class);
+        durations.put(ImportPhase.REQUIRED_ACTIONS, 5L);
+        durations.put(ImportPhase.ROLES, 3L);
+
+        assertThat(ImportPhaseScheduler.getCriticalPath(durations), contains(ImportPhase.REQUIRED_ACTIONS));
+        assertThat(ImportPhaseScheduler.getCriticalPath(new EnumMap<>(ImportPhase.class)), empty());
+    }
+}
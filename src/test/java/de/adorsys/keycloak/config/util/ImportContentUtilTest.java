@@ -0,0 +1,155 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.model.RealmImport;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class ImportContentUtilTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Test
+    void shouldThrowOnNew() {
+        assertThrows(IllegalStateException.class, ImportContentUtil::new);
+    }
+
+    @Test
+    void shouldReadJson() throws IOException {
+        String content = "{\"realm\": \"test\", \"enabled\": true, \"accessTokenLifespan\": 300, \"attributes\": {\"a\": \"b\"}}";
+
+        List<RealmImport> realmImports = ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class);
+
+        assertThat(realmImports, hasSize(1));
+        assertThat(realmImports.get(0).getRealm(), is("test"));
+        assertThat(realmImports.get(0).isEnabled(), is(true));
+        assertThat(realmImports.get(0).getAccessTokenLifespan(), is(300));
+        assertThat(realmImports.get(0).getAttributes(), hasEntry("a", "b"));
+    }
+
+    @Test
+    void shouldReadMultiDocumentYaml() throws IOException {
+        String content = "realm: first\nenabled: yes\n---\nrealm: second\ndisplayName: '123'\nenabledEventTypes:\n  - LOGIN\n  - LOGOUT\n";
+
+        List<RealmImport> realmImports = ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class);
+
+        assertThat(realmImports, hasSize(2));
+        assertThat(realmImports.get(0).getRealm(), is("first"));
+        assertThat(realmImports.get(0).isEnabled(), is(true));
+        assertThat(realmImports.get(1).getRealm(), is("second"));
+        assertThat(realmImports.get(1).getDisplayName(), is("123"));
+        assertThat(realmImports.get(1).getEnabledEventTypes(), contains("LOGIN", "LOGOUT"));
+    }
+
+    @Test
+    void shouldReadYamlFlowMapping() throws IOException {
+        String content = "{realm: test, enabled: false}";
+
+        List<RealmImport> realmImports = ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class);
+
+        assertThat(realmImports, hasSize(1));
+        assertThat(realmImports.get(0).getRealm(), is("test"));
+        assertThat(realmImports.get(0).isEnabled(), is(false));
+    }
+
+    @Test
+    void shouldReadYamlWithAnchors() throws IOException {
+        String content = "realm: &name test\ndisplayName: *name\naccessTokenLifespan: 0x12C\n";
+
+        List<RealmImport> realmImports = ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class);
+
+        assertThat(realmImports, hasSize(1));
+        assertThat(realmImports.get(0).getRealm(), is("test"));
+        assertThat(realmImports.get(0).getDisplayName(), is("test"));
+        assertThat(realmImports.get(0).getAccessTokenLifespan(), is(300));
+    }
+
+    @Test
+    void shouldReadSameAsObjectTree() throws IOException {
+        String content = "realm: test\nenabled: True\nnotBefore: -1\naccessTokenLifespan: +300\nattributes:\n  empty: \"\"\n"
+                + "  quoted: 'true'\n  plain: text\ndisplayName: ~\nsmtpServer: {}\n";
+
+        List<RealmImport> streamed = ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class);
+        List<RealmImport> legacy = ImportContentUtil.readDocumentsFromObjectTree(OBJECT_MAPPER, content, RealmImport.class);
+
+        assertThat(OBJECT_MAPPER.writeValueAsString(streamed), is(OBJECT_MAPPER.writeValueAsString(legacy)));
+    }
+
+    @Test
+    void shouldHashSameAsDigestUtils() {
+        String content = "{\"realm\": \"t\u00e4st\"}\n".repeat(1000);
+
+        assertThat(ImportContentUtil.sha256Hex(content), is(DigestUtils.sha256Hex(content)));
+        assertThat(ImportContentUtil.sha256Hex(""), is(DigestUtils.sha256Hex("")));
+    }
+
+    @Test
+    void shouldReadTopLevelString() {
+        assertThat(ImportContentUtil.readTopLevelString("{\"users\": [{\"realm\": \"no\"}], \"realm\": \"test\"}", "realm"), is("test"));
+        assertThat(ImportContentUtil.readTopLevelString("users:\n  - realm: no\nrealm: test\n", "realm"), is("test"));
+        assertThat(ImportContentUtil.readTopLevelString("{realm: test}", "realm"), is("test"));
+        assertThat(ImportContentUtil.readTopLevelString("realm: 'test'\nusers: *unknown\n", "realm"), is("test"));
+    }
+
+    @Test
+    void shouldNotReadTopLevelString() {
+        assertThat(ImportContentUtil.readTopLevelString("{\"realm\": \"a\"} {\"realm\": \"b\"}", "realm"), is(nullValue()));
+        assertThat(ImportContentUtil.readTopLevelString("realm: a\n---\nrealm: b\n", "realm"), is(nullValue()));
+        assertThat(ImportContentUtil.readTopLevelString("realm: 123\n", "realm"), is(nullValue()));
+        assertThat(ImportContentUtil.readTopLevelString("realm:\n  nested: true\n", "realm"), is(nullValue()));
+        assertThat(ImportContentUtil.readTopLevelString("users:\n  - realm: no\n", "realm"), is(nullValue()));
+        assertThat(ImportContentUtil.readTopLevelString("- realm: no\n", "realm"), is(nullValue()));
+    }
+
+    @Test
+    void shouldThrowOnUnknownProperty() {
+        String content = "{\"realm\": \"test\", \"unknown\": true}";
+
+        UnrecognizedPropertyException thrown = assertThrows(UnrecognizedPropertyException.class,
+                () -> ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class));
+
+        assertThat(thrown.getMessage(), startsWith("Unrecognized field \"unknown\""));
+    }
+
+    @Test
+    void shouldReportYamlErrorOnInvalidJson() {
+        String content = "{\"realm\": \"test\",, }";
+
+        YAMLException thrown = assertThrows(YAMLException.class,
+                () -> ImportContentUtil.readDocuments(OBJECT_MAPPER, content, RealmImport.class));
+
+        assertThat(thrown.getMessage(), startsWith("while parsing a flow node"));
+    }
+}
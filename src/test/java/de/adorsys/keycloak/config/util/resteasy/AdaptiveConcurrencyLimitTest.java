@@ -0,0 +1,126 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(30);
+
+    @Test
+    void shouldWaitForReleaseAtLimit() throws Exception {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(1, 1, 1, 0.5, 2.0);
+        concurrencyLimit.acquire();
+
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                concurrencyLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertThat(waiting.isDone(), is(false));
+
+        concurrencyLimit.release(FAST, false);
+        waiting.get(10, TimeUnit.SECONDS);
+
+        assertThat(concurrencyLimit.getStats(), containsString("1 requests throttled"));
+    }
+
+    @Test
+    void shouldDecreaseOnDroppedRequest() throws InterruptedException {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.5, 2.0);
+
+        concurrencyLimit.acquire();
+        concurrencyLimit.release(FAST, true);
+
+        assertThat(concurrencyLimit.getLimit(), is(5));
+    }
+
+    @Test
+    void shouldNotDecreaseOnSingleSlowRequest() throws InterruptedException {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.5, 2.0);
+
+        release(concurrencyLimit, FAST, 20);
+        release(concurrencyLimit, SLOW, 1);
+        release(concurrencyLimit, FAST, 5);
+
+        assertThat(concurrencyLimit.getLimit(), is(10));
+        assertThat(concurrencyLimit.getStats(), containsString("0 limit decreases"));
+    }
+
+    @Test
+    void shouldDecreaseIfMostRequestsAreSlow() throws InterruptedException {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.5, 2.0);
+
+        release(concurrencyLimit, FAST, 20);
+        release(concurrencyLimit, SLOW, 10);
+
+        assertThat(concurrencyLimit.getLimit(), is(5));
+    }
+
+    @Test
+    void shouldRecoverWhileNotUsed() throws InterruptedException {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.5, 2.0);
+
+        concurrencyLimit.acquire();
+        concurrencyLimit.release(FAST, true);
+        assertThat(concurrencyLimit.getLimit(), is(5));
+
+        // a sequential import uses one request at a time, which is less than half of the limit
+        release(concurrencyLimit, FAST, 50);
+
+        assertThat(concurrencyLimit.getLimit(), is(10));
+    }
+
+    @Test
+    void shouldNotDecreaseBelowMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(4, 2, 10, 0.5, 2.0);
+
+        for (int i = 0; i < 5; i++) {
+            concurrencyLimit.acquire();
+            concurrencyLimit.release(FAST, true);
+        }
+
+        assertThat(concurrencyLimit.getLimit(), is(2));
+        assertThat(concurrencyLimit.getStats(), containsString("lowest 2, range 2-10"));
+    }
+
+    private static void release(AdaptiveConcurrencyLimit concurrencyLimit, long latencyNanos, int requests) throws InterruptedException {
+        for (int i = 0; i < requests; i++) {
+            concurrencyLimit.acquire();
+            concurrencyLimit.release(latencyNanos, false);
+        }
+    }
+}
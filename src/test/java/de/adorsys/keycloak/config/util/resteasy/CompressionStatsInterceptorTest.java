@@ -0,0 +1,107 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.jboss.resteasy.plugins.interceptors.AcceptEncodingGZIPFilter;
+import org.jboss.resteasy.plugins.interceptors.GZIPDecodingInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientBuilder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@ExtendWith(GithubActionsExtension.class)
+class CompressionStatsInterceptorTest {
+    private static final String BODY = "{\"realm\":\"simple\",\"enabled\":true}".repeat(100);
+
+    private final CompressionStatsInterceptor compressionStatsInterceptor = new CompressionStatsInterceptor();
+    private final HttpMetricsFilter metricsFilter = new HttpMetricsFilter();
+
+    private HttpServer server;
+    private Client client;
+    private String acceptEncoding;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = gzip(BODY);
+
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        client = ClientBuilder.newBuilder()
+                .register(new AcceptEncodingGZIPFilter())
+                .register(new GZIPDecodingInterceptor(Integer.MAX_VALUE))
+                .register(compressionStatsInterceptor)
+                .register(compressionStatsInterceptor.getDecodedBytesInterceptor())
+                .register(metricsFilter)
+                .build();
+    }
+
+    @AfterEach
+    void stop() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldCountBytesOnWireAndDecoded() throws IOException {
+        String response = client.target("http://localhost:" + server.getAddress().getPort() + "/admin/realms/simple")
+                .request()
+                .get(String.class);
+
+        assertThat(response, is(BODY));
+        assertThat(acceptEncoding, containsString("gzip"));
+        assertThat(compressionStatsInterceptor.getStats(), startsWith("1 compressed responses"));
+        assertThat(compressionStatsInterceptor.getStats(), endsWith(String.format("%.1f KiB decoded", BODY.length() / 1024.0)));
+
+        // the metrics count the bytes on the wire, before the decoding
+        assertThat(metricsFilter.getEndpoints().get(0).getBytes(), is((long) gzip(BODY).length));
+    }
+
+    private static byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return outputStream.toByteArray();
+    }
+}
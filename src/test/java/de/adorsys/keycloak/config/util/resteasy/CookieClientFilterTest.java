@@ -0,0 +1,162 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.NewCookie;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(GithubActionsExtension.class)
+class CookieClientFilterTest {
+    private final CookieClientFilter cookieFilter = new CookieClientFilter();
+
+    @Test
+    void shouldSendCookieOfPreviousResponse() {
+        ClientRequestContext first = send();
+        receive(first, "AUTH_SESSION_ID", "node-1");
+
+        ClientRequestContext second = send();
+
+        assertThat(second.getHeaders().get("Cookie"), contains("AUTH_SESSION_ID=node-1"));
+        assertThat(cookieFilter.getStats(), is("1 cookies, 0 node switches"));
+    }
+
+    @Test
+    void shouldCountNodeSwitch() {
+        receive(send(), "AUTH_SESSION_ID", "node-1");
+        receive(send(), "AUTH_SESSION_ID", "node-2");
+
+        assertThat(send().getHeaders().get("Cookie"), contains("AUTH_SESSION_ID=node-2"));
+        assertThat(cookieFilter.getCookieChanges(), is(1L));
+    }
+
+    @Test
+    void shouldIgnoreResponsesToOutdatedCookie() {
+        receive(send(), "AUTH_SESSION_ID", "node-1");
+
+        ClientRequestContext first = send();
+        ClientRequestContext second = send();
+
+        receive(first, "AUTH_SESSION_ID", "node-2");
+        // the second request was sent with node-1 as well, its response must not switch the session back and forth
+        receive(second, "AUTH_SESSION_ID", "node-3");
+
+        assertThat(send().getHeaders().get("Cookie"), contains("AUTH_SESSION_ID=node-2"));
+        assertThat(cookieFilter.getCookieChanges(), is(1L));
+    }
+
+    @Test
+    void shouldRemoveExpiredCookie() {
+        receive(send(), "AUTH_SESSION_ID", "node-1");
+
+        ClientRequestContext request = send();
+        receive(request, new NewCookie.Builder("AUTH_SESSION_ID").value("node-1").maxAge(0).build());
+
+        assertThat(send().getHeaders().get("Cookie"), is(nullValue()));
+        assertThat(cookieFilter.getStats(), is("0 cookies, 0 node switches"));
+    }
+
+    @Test
+    void shouldSwitchOnceIfConcurrentResponsesSwitchNode() throws Exception {
+        int threads = 8;
+        int rounds = 50;
+
+        receive(send(), "AUTH_SESSION_ID", "node-0");
+
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int node = thread + 1;
+
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        // all requests of a round are sent with the same cookie, the first response switches the node
+                        barrier.await(10, TimeUnit.SECONDS);
+                        ClientRequestContext request = send();
+                        barrier.await(10, TimeUnit.SECONDS);
+                        receive(request, "AUTH_SESSION_ID", "node-" + round + "-" + node);
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(cookieFilter.getCookieChanges(), is((long) rounds));
+        assertThat(send().getHeaders().get("Cookie"), contains(startsWith("AUTH_SESSION_ID=node-" + (rounds - 1) + "-")));
+    }
+
+    private ClientRequestContext send() {
+        Map<String, Object> properties = new HashMap<>();
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+        ClientRequestContext request = mock(ClientRequestContext.class);
+        when(request.getHeaders()).thenReturn(headers);
+        when(request.getProperty(anyString())).thenAnswer(invocation -> properties.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> properties.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(request).setProperty(anyString(), any());
+
+        cookieFilter.filter(request);
+        return request;
+    }
+
+    private void receive(ClientRequestContext request, String name, String value) {
+        receive(request, new NewCookie.Builder(name).value(value).build());
+    }
+
+    private void receive(ClientRequestContext request, NewCookie cookie) {
+        ClientResponseContext response = mock(ClientResponseContext.class);
+        when(response.getCookies()).thenReturn(Map.of(cookie.getName(), cookie));
+
+        cookieFilter.filter(request, response);
+    }
+}
@@ -0,0 +1,68 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.util.resteasy.HttpMetricsFilter.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(GithubActionsExtension.class)
+class HttpMetricsFilterTest {
+    @ParameterizedTest
+    @CsvSource({
+            "/admin/realms/simple, /admin/realms/{realm}",
+            "/admin/realms/simple/users/count, /admin/realms/{realm}/users/count",
+            "/auth/admin/realms/simple/roles-by-id/abc, /auth/admin/realms/{realm}/roles-by-id/{id}",
+            "/admin/realms/simple/clients/0ad6dd0f-7b2b-4a0a-9a5c-6c6d0d6f0a1b/roles/my-role/composites, "
+                    + "/admin/realms/{realm}/clients/{id}/roles/{role}/composites",
+            "/admin/realms/simple/authentication/flows/browser/executions, /admin/realms/{realm}/authentication/flows/{alias}/executions",
+            "/admin/realms/simple/group-by-path/parent, /admin/realms/{realm}/group-by-path/{path}",
+            "/admin/realms/simple/group-by-path/parent/child/grandchild, /admin/realms/{realm}/group-by-path/{path}",
+    })
+    void shouldTemplatePath(String path, String expected) {
+        assertThat(HttpMetricsFilter.template(URI.create("http://localhost:8080" + path)), is(expected));
+    }
+
+    @Test
+    void shouldRecordLatencyBucketsAndStatuses() {
+        Endpoint endpoint = new Endpoint("GET", "/admin/realms/{realm}/clients");
+
+        endpoint.record(TimeUnit.MILLISECONDS.toNanos(3), 200);
+        endpoint.record(TimeUnit.MILLISECONDS.toNanos(40), 200);
+        endpoint.record(TimeUnit.MILLISECONDS.toNanos(20000), 503);
+
+        assertThat(endpoint.getCount(), is(3L));
+        assertThat(endpoint.getBuckets(), is(new long[]{1, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1}));
+        assertThat(endpoint.getQuantileMillis(0.5), is(50L));
+        // the unbounded bucket reports the max latency
+        assertThat(endpoint.getQuantileMillis(0.95), is(20000L));
+        assertThat(endpoint.getStatuses(), is(Map.of(200, 2L, 503, 1L)));
+    }
+}
@@ -0,0 +1,101 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import de.adorsys.keycloak.config.util.resteasy.HttpMetricsFilter.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@ExtendWith(GithubActionsExtension.class)
+class HttpMetricsReportTest {
+    private static final String LABELS = "method=\"GET\",endpoint=\"/admin/realms/{realm}/clients\"";
+
+    @Test
+    void shouldFormatPrometheusText() {
+        String text = HttpMetricsReport.toPrometheus(List.of(createEndpoint()));
+
+        assertThat(text, containsString("# TYPE keycloak_config_cli_http_request_duration_seconds histogram\n"));
+        // the buckets are cumulative
+        assertThat(text, containsString("keycloak_config_cli_http_request_duration_seconds_bucket{" + LABELS + ",le=\"0.005\"} 1\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_request_duration_seconds_bucket{" + LABELS + ",le=\"0.05\"} 2\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_request_duration_seconds_bucket{" + LABELS + ",le=\"10.0\"} 2\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_request_duration_seconds_bucket{" + LABELS + ",le=\"+Inf\"} 3\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_request_duration_seconds_sum{" + LABELS + "} 20.043\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_request_duration_seconds_count{" + LABELS + "} 3\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_responses_total{" + LABELS + ",status=\"200\"} 2\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_responses_total{" + LABELS + ",status=\"503\"} 1\n"));
+        assertThat(text, containsString("keycloak_config_cli_http_response_bytes_total{" + LABELS + "} 0\n"));
+    }
+
+    @Test
+    void shouldEscapePrometheusLabels() {
+        String text = HttpMetricsReport.toPrometheus(List.of(new Endpoint("GET", "/a\"b\\c")));
+
+        assertThat(text, containsString("endpoint=\"/a\\\"b\\\\c\""));
+    }
+
+    @Test
+    void shouldFormatJson() throws JsonProcessingException {
+        JsonNode json = new ObjectMapper().readTree(HttpMetricsReport.toJson(List.of(createEndpoint())));
+
+        assertThat(json.size(), is(1));
+        JsonNode endpoint = json.get(0);
+        assertThat(endpoint.get("method").asText(), is("GET"));
+        assertThat(endpoint.get("endpoint").asText(), is("/admin/realms/{realm}/clients"));
+        assertThat(endpoint.get("count").asLong(), is(3L));
+        assertThat(endpoint.get("totalMillis").asLong(), is(20043L));
+        assertThat(endpoint.get("maxMillis").asLong(), is(20000L));
+        assertThat(endpoint.get("statuses").get("200").asLong(), is(2L));
+        assertThat(endpoint.get("statuses").get("503").asLong(), is(1L));
+        // the buckets are not cumulative
+        assertThat(endpoint.get("latencyBucketsMillis").get("5").asLong(), is(1L));
+        assertThat(endpoint.get("latencyBucketsMillis").get("50").asLong(), is(1L));
+        assertThat(endpoint.get("latencyBucketsMillis").get("+Inf").asLong(), is(1L));
+    }
+
+    @Test
+    void shouldFormatTable() {
+        String[] lines = HttpMetricsReport.toTable(List.of(createEndpoint())).split(System.lineSeparator());
+
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], endsWith("endpoint"));
+        assertThat(lines[1], containsString("200:2 503:1"));
+        assertThat(lines[1], endsWith("GET /admin/realms/{realm}/clients"));
+    }
+
+    private static Endpoint createEndpoint() {
+        Endpoint endpoint = new Endpoint("GET", "/admin/realms/{realm}/clients");
+        endpoint.record(TimeUnit.MILLISECONDS.toNanos(3), 200);
+        endpoint.record(TimeUnit.MILLISECONDS.toNanos(40), 200);
+        endpoint.record(TimeUnit.MILLISECONDS.toNanos(20000), 503);
+
+        return endpoint;
+    }
+}
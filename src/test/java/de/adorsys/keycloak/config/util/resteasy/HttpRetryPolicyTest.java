@@ -0,0 +1,155 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.HttpHostConnectException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(GithubActionsExtension.class)
+class HttpRetryPolicyTest {
+    private final HttpRetryPolicy retryPolicy = createRetryPolicy(1, 0);
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void shouldRetryReadAfterReadTimeout() {
+        Response response = retryPolicy.invoke("GET", () -> {
+            if (attempts.incrementAndGet() == 1) throw new ProcessingException(new SocketTimeoutException("Read timed out"));
+            return Response.ok().build();
+        });
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    void shouldNotRetryDeleteAfterReadTimeout() {
+        ProcessingException readTimeout = new ProcessingException(new SocketTimeoutException("Read timed out"));
+
+        assertThrows(ProcessingException.class, () -> retryPolicy.invoke("DELETE", () -> {
+            attempts.incrementAndGet();
+            throw readTimeout;
+        }));
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void shouldRetryDeleteAfterConnectFailure() {
+        Response response = retryPolicy.invoke("DELETE", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ProcessingException(new HttpHostConnectException(new ConnectException("Connection refused"), null));
+            }
+            return Response.noContent().build();
+        });
+
+        assertThat(response.getStatus(), is(204));
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    void shouldRetryPutAfterRejectionWithRetryAfter() {
+        Response response = retryPolicy.invoke("PUT", () -> attempts.incrementAndGet() == 1
+                ? Response.status(503).header(HttpHeaders.RETRY_AFTER, "0").build()
+                : Response.noContent().build());
+
+        assertThat(response.getStatus(), is(204));
+        assertThat(attempts.get(), is(2));
+        assertThat(retryPolicy.getStats(), containsString("1 retries {503=1}"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {503, 504})
+    void shouldNotRetryPutAfterRetryStatusWithoutRetryAfter(int status) {
+        Response response = retryPolicy.invoke("PUT", () -> {
+            attempts.incrementAndGet();
+            return Response.status(status).build();
+        });
+
+        assertThat(response.getStatus(), is(status));
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void shouldRetryGetAfterRetryStatus() {
+        Response response = retryPolicy.invoke("GET", () -> attempts.incrementAndGet() == 1
+                ? Response.status(504).build()
+                : Response.ok().build());
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(attempts.get(), is(2));
+    }
+
+    @Test
+    void shouldNotRetryPost() {
+        Response response = retryPolicy.invoke("POST", () -> {
+            attempts.incrementAndGet();
+            return Response.status(503).build();
+        });
+
+        assertThat(response.getStatus(), is(503));
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void shouldStopRetriesAtBudget() {
+        HttpRetryPolicy budgetRetryPolicy = createRetryPolicy(0, 1);
+
+        Response response = budgetRetryPolicy.invoke("GET", () -> {
+            attempts.incrementAndGet();
+            return Response.status(503).build();
+        });
+
+        assertThat(response.getStatus(), is(503));
+        assertThat(attempts.get(), is(2));
+        assertThat(budgetRetryPolicy.getStats(), containsString("1 retries denied by the budget"));
+    }
+
+    @Test
+    void shouldDetectConnectFailures() {
+        assertThat(HttpRetryPolicy.isConnectFailure(new ProcessingException(new ConnectTimeoutException("connect timed out"))), is(true));
+        assertThat(HttpRetryPolicy.isConnectFailure(new ProcessingException(new SocketTimeoutException("Read timed out"))), is(false));
+        assertThat(HttpRetryPolicy.isConnectFailure(new IllegalStateException(new ConnectException("Connection refused"))), is(false));
+    }
+
+    private static HttpRetryPolicy createRetryPolicy(double budgetRatio, int budgetMinRetries) {
+        return new HttpRetryPolicy(Set.of(503, 504), 3, Duration.ofMillis(1), Duration.ofMillis(10), 0, budgetRatio, budgetMinRetries);
+    }
+}
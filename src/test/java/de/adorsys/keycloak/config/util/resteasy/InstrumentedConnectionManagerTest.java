@@ -0,0 +1,89 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+@ExtendWith(GithubActionsExtension.class)
+class InstrumentedConnectionManagerTest {
+    private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 8080));
+
+    private final PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+    private final InstrumentedConnectionManager connectionManager = new InstrumentedConnectionManager(pool);
+
+    @AfterEach
+    void shutdown() {
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void shouldReportUnusedPool() {
+        pool.setMaxTotal(1);
+
+        assertThat(connectionManager.getStats(), containsString("max 1, leased 0, available 0, pending 0 (peak 0), 0 requests"));
+    }
+
+    @Test
+    void shouldRecordWaitingRequests() throws Exception {
+        pool.setMaxTotal(1);
+        pool.setDefaultMaxPerRoute(1);
+
+        HttpClientConnection connection = connectionManager.requestConnection(ROUTE, null).get(1, TimeUnit.SECONDS);
+        assertThat(connectionManager.getStats(), containsString("leased 1"));
+
+        CompletableFuture<HttpClientConnection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return connectionManager.requestConnection(ROUTE, null).get(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        awaitStats("leased 1, available 0, pending 1 (peak 1)");
+
+        connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        connectionManager.releaseConnection(waiting.get(10, TimeUnit.SECONDS), null, 0, TimeUnit.MILLISECONDS);
+
+        assertThat(connectionManager.getStats(), containsString("leased 0, available 0, pending 0 (peak 1), 2 requests"));
+    }
+
+    private void awaitStats(String stats) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!connectionManager.getStats().contains(stats) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+
+        assertThat(connectionManager.getStats(), containsString(stats));
+    }
+}
@@ -0,0 +1,208 @@
+/*-
+ * ---license-start
+ * keycloak-config-cli
+ * ---
+ * Copyright (C) 2017 - 2021 adorsys GmbH & Co. KG @ https://adorsys.com
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ---license-end
+ */
+package de.adorsys.keycloak.config.util.resteasy;
+
+import de.adorsys.keycloak.config.extensions.GithubActionsExtension;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@ExtendWith(GithubActionsExtension.class)
+class SingleFlightHttpClientTest {
+    private static final HttpHost TARGET = new HttpHost("localhost", 8080);
+    private static final String CLIENTS = "/admin/realms/simple/clients";
+
+    private final StubHttpClient stubHttpClient = new StubHttpClient();
+    private final SingleFlightHttpClient singleFlightHttpClient = new SingleFlightHttpClient(stubHttpClient);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void close() {
+        stubHttpClient.release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldCoalesceIdenticalReadsInFlight() throws Exception {
+        Future<String> first = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        awaitUntil(() -> stubHttpClient.requests.get() == 1);
+
+        Future<String> second = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        awaitUntil(() -> singleFlightHttpClient.getStats().equals("1 of 2 GET requests coalesced"));
+        stubHttpClient.release.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(stubHttpClient.requests.get(), is(1));
+    }
+
+    @Test
+    void shouldNotCoalesceReadsWithOtherAuthorization() throws Exception {
+        Future<String> first = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        Future<String> second = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer b"));
+        awaitUntil(() -> stubHttpClient.requests.get() == 2);
+        stubHttpClient.release.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(singleFlightHttpClient.getStats(), is("0 of 2 GET requests coalesced"));
+    }
+
+    @Test
+    void shouldStreamResponseWithoutWaiters() throws IOException {
+        stubHttpClient.release.countDown();
+
+        try (CloseableHttpResponse response = singleFlightHttpClient.execute(TARGET, new HttpGet(CLIENTS))) {
+            assertThat(response, sameInstance(stubHttpClient.responses.get(0)));
+        }
+    }
+
+    @Test
+    void shouldNotJoinReadSentBeforeWriteOfSameRealm() throws Exception {
+        Future<String> first = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        awaitUntil(() -> stubHttpClient.requests.get() == 1);
+
+        execute(new HttpPut(CLIENTS + "/1"), "Bearer a");
+
+        Future<String> second = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        awaitUntil(() -> stubHttpClient.requests.get() == 3);
+        stubHttpClient.release.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(singleFlightHttpClient.getStats(), is("0 of 2 GET requests coalesced"));
+    }
+
+    @Test
+    void shouldJoinReadSentBeforeWriteOfOtherRealm() throws Exception {
+        Future<String> first = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        awaitUntil(() -> stubHttpClient.requests.get() == 1);
+
+        execute(new HttpPut("/admin/realms/other/clients/1"), "Bearer a");
+
+        Future<String> second = executor.submit(() -> execute(new HttpGet(CLIENTS), "Bearer a"));
+        awaitUntil(() -> singleFlightHttpClient.getStats().equals("1 of 2 GET requests coalesced"));
+        stubHttpClient.release.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(second.get(10, TimeUnit.SECONDS), is("GET " + CLIENTS));
+        assertThat(stubHttpClient.requests.get(), is(2));
+    }
+
+    private String execute(HttpRequestBase request, String authorization) throws IOException {
+        request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+
+        try (CloseableHttpResponse response = singleFlightHttpClient.execute(TARGET, request)) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (!condition.getAsBoolean()) {
+            assertThat("condition not met within 10s", System.nanoTime() < deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    /**
+     * Answers every request with its method and uri. GET requests are blocked until they are released.
+     */
+    @SuppressWarnings("deprecation")
+    private static class StubHttpClient extends CloseableHttpClient {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<CloseableHttpResponse> responses = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+            requests.incrementAndGet();
+
+            if (request.getRequestLine().getMethod().equals("GET")) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            StubHttpResponse response = new StubHttpResponse();
+            response.setEntity(new StringEntity(request.getRequestLine().getMethod() + " " + request.getRequestLine().getUri()));
+            responses.add(response);
+            return response;
+        }
+
+        @Override
+        public HttpParams getParams() {
+            return null;
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+
+    private static class StubHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubHttpResponse() {
+            super(HttpVersion.HTTP_1_1, 200, "OK");
+        }
+
+        @Override
+        public void close() {
+            // the entity is in memory
+        }
+    }
+}